@@ -0,0 +1,78 @@
+package generation;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Bulk queries over the flat array of Cells with the Java Vector API,
+ * a vector of the preferred width of the platform per step, e.g. 16 cells with AVX2.
+ *
+ * The Vector API is an incubator module, so this class lives in the optional source root src-vector
+ * and is compiled separately with --add-modules jdk.incubator.vector, see src-vector/README.md.
+ * It is only used if the application runs with --add-modules jdk.incubator.vector as well.
+ * Cells loads it by name and keeps its scalar loops if the class or the module is not there,
+ * so src compiles and runs without the module.
+ *
+ * @author Katson, Andrew
+ */
+final class VectorBulkQueries implements Cells.BulkQueries {
+	// fails to initialize without the module, which tells Cells to use its scalar loops
+	private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+	@Override
+	public int countMaskedBitsTrue(short[] cells, int bitmask) {
+		final short mask = (short) bitmask;
+		final int bound = SPECIES.loopBound(cells.length);
+		int result = 0;
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			final ShortVector values = ShortVector.fromArray(SPECIES, cells, i);
+			result += values.and(mask).compare(VectorOperators.NE, (short) 0).trueCount();
+		}
+		for (; i < cells.length; i++) {
+			if (0 != (cells[i] & bitmask))
+				result++;
+		}
+		return result;
+	}
+
+	@Override
+	public int countCellsWithWalls(short[] cells, int walls) {
+		final int bound = SPECIES.loopBound(cells.length);
+		int result = 0;
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			final ShortVector values = ShortVector.fromArray(SPECIES, cells, i);
+			// CW_TOP, CW_BOT, CW_LEFT and CW_RIGHT are bits 0 to 3, add them up lane by lane
+			final ShortVector count = values.and((short) 1)
+					.add(values.lanewise(VectorOperators.LSHR, 1).and((short) 1))
+					.add(values.lanewise(VectorOperators.LSHR, 2).and((short) 1))
+					.add(values.lanewise(VectorOperators.LSHR, 3).and((short) 1));
+			result += count.compare(VectorOperators.EQ, (short) walls).trueCount();
+		}
+		for (; i < cells.length; i++) {
+			if (Integer.bitCount(cells[i] & Cells.CW_ALL) == walls)
+				result++;
+		}
+		return result;
+	}
+
+	@Override
+	public int countDifferentCells(short[] cells, short[] other) {
+		final int bound = SPECIES.loopBound(cells.length);
+		int result = 0;
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			final VectorMask<Short> different = ShortVector.fromArray(SPECIES, cells, i)
+					.compare(VectorOperators.NE, ShortVector.fromArray(SPECIES, other, i));
+			result += different.trueCount();
+		}
+		for (; i < cells.length; i++) {
+			if (cells[i] != other[i])
+				result++;
+		}
+		return result;
+	}
+}
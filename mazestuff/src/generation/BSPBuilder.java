@@ -2,7 +2,6 @@ package generation;
 
 import gui.Constants;
 import java.util.ArrayList;
-import java.util.Iterator;
 
 /**
  * This class has the responsibility to obtain the tree of BSP nodes for a given maze.
@@ -23,6 +22,7 @@ public class BSPBuilder {
 	// only usage is in updateProgressBar to estimate progress made in the BSP tree construction
 	int partiters = 0 ; // relocated from MazeBuilder attribute partiters here. 
 	private final Order order ; 		// current order
+	private CancellationToken cancellation = new CancellationToken(); // checked regularly to stop early
 	
 	//Test variables TODO
 	private static ArrayList<Seg> testlsl;
@@ -51,6 +51,13 @@ public class BSPBuilder {
 
 		partiters = 0 ; // counter for keeping track of progress made in BSP calculation, starts at 0
 	}
+	/**
+	 * Sets the token that tells the builder to stop, generateBSPNodes then throws a CancellationException.
+	 * @param cancellation
+	 */
+	public void setCancellationToken(CancellationToken cancellation) {
+		this.cancellation = cancellation;
+	}
 
 	/**
 	 * Method generates the nodes. In every node, it has two section, left and right. It chooses the segment
@@ -61,6 +68,7 @@ public class BSPBuilder {
 	 * @throws InterruptedException 
 	 */
 	private BSPNode genNodes(ArrayList<Seg> sl) throws InterruptedException {
+		cancellation.checkpoint();
 		// if there is no segment with a partition bit set to false, there is nothing else to do and we are at a leaf node
 		if (countNonPartitions(sl) == 0)
 			return new BSPLeaf(sl);
@@ -79,6 +87,8 @@ public class BSPBuilder {
 		testlsl = lsl;
 		testrsl = rsl;
 		for (int i = 0; i != sl.size(); i++) {
+			if (0 == (i & CancellationToken.CHECKPOINT_INTERVAL-1))
+				cancellation.checkpoint();
 		    // MEMO: code very similar to Seg.calculateGrade method
 			Seg se = (Seg) sl.get(i);
 			int df1x = se.getStartPositionX() - x;
@@ -89,8 +99,9 @@ public class BSPBuilder {
 			int df2y = sendy - y; 
 			int nx = dy;
 			int ny = -dx;
-			int dot1 = df1x * nx + df1y * ny;
-			int dot2 = df2x * nx + df2y * ny;
+			// coordinates are scaled by MAP_UNIT, products exceed the int range for large mazes
+			long dot1 = (long) df1x * nx + (long) df1y * ny;
+			long dot2 = (long) df2x * nx + (long) df2y * ny;
 			if (getSign(dot1) != getSign(dot2)) {
 				if (dot1 == 0)
 					dot1 = dot2;
@@ -175,6 +186,7 @@ public class BSPBuilder {
 			// skip segments where the partition flag was set
 			if (element.isPartition())
 				continue;
+			cancellation.checkpoint();
 			// provide feedback for progress bar every 32 iterations
 			partiters++;
 			if ((partiters & 31) == 0) {
@@ -201,8 +213,9 @@ public class BSPBuilder {
 		if (null != order) {
 			order.updateProgress(percentage) ;
 			if (percentage < 100) {
-				// give main thread a chance to process keyboard events
-				Thread.currentThread().sleep(10);
+				// give main thread a chance to process keyboard events,
+				// cancellation is checked by the callers, so there is no need to sleep
+				Thread.yield();
 			}
 		}
 	}
@@ -300,26 +313,24 @@ public class BSPBuilder {
 	   private void generateSegmentsForVerticalWallsNew(ArrayList<Seg> sl) {
 	        int x;
 	        int y;
-	        Iterator<int[]> it;
-	        int[] cur;
+	        final Cells.SequenceCursor cursor = cells.sequenceCursor(); // reused for all columns, creates no garbage
 	        // we search for vertical walls, so for each row
 	        for (x = 0; x < width; x++) {
-	            it = cells.iterator(x, 0, CardinalDirection.West);
-	            while(it.hasNext()) {
-	                cur = it.next();
-	                int starty = cur[0];
-	                y = cur[1];
+	            cancellation.checkpoint();
+	            cursor.reset(x, 0, CardinalDirection.West);
+	            while(cursor.next()) {
+	                int starty = cursor.getStart();
+	                y = cursor.getEnd();
 	                // create segment with (x,starty) being the actual start position of the segment, 
                     // y-starty being the positive length
                     sl.add(new Seg(x*Constants.MAP_UNIT, starty*Constants.MAP_UNIT,
                             0, (y-starty)*Constants.MAP_UNIT, dists.getDistance(x, starty), colchange));
 	            }
 	            
-	            it = cells.iterator(x, 0, CardinalDirection.East);
-                while(it.hasNext()) {
-                    cur = it.next();
-                    int starty = cur[0];
-                    y = cur[1];
+	            cursor.reset(x, 0, CardinalDirection.East);
+                while(cursor.next()) {
+                    int starty = cursor.getStart();
+                    y = cursor.getEnd();
                     // create segment with (x+1,y) being being one off in both directions from the last cell in this segment, starty-y being the negative length
                     // since we are looking at right walls, one off in the right direction (x+1) are then cells that have this segment on its left hand side
                     // for some reason the end position is used as a starting position and therefore the length & direction is inverse 
@@ -413,27 +424,25 @@ public class BSPBuilder {
     private void generateSegmentForHorizontalWallsNew(ArrayList<Seg> sl) {
         int x;
         int y;
-        Iterator<int[]> it;
-        int[] cur;
+        final Cells.SequenceCursor cursor = cells.sequenceCursor(); // reused for all rows, creates no garbage
         // we search for horizontal walls, so for each column
         for (y = 0; y < height; y++) {
+            cancellation.checkpoint();
             // first round through rows
-            it = cells.iterator(0,y, CardinalDirection.North);
-            while(it.hasNext()) {
-                cur = it.next();
-                int startx = cur[0];
-                x = cur[1];
+            cursor.reset(0,y, CardinalDirection.North);
+            while(cursor.next()) {
+                int startx = cursor.getStart();
+                x = cursor.getEnd();
                 // create segment with (x,y) being the end positions, startx-x being the negative length
                 // note the (x,y) is not part of the segment
                 sl.add(new Seg(x*Constants.MAP_UNIT, y*Constants.MAP_UNIT,
                         (startx-x)*Constants.MAP_UNIT, 0, dists.getDistance(startx, y), colchange));
             }
             // second round through rows, same for bottom walls
-            it = cells.iterator(0,y, CardinalDirection.South);
-            while(it.hasNext()) {
-                cur = it.next();
-                int startx = cur[0];
-                x = cur[1];
+            cursor.reset(0,y, CardinalDirection.South);
+            while(cursor.next()) {
+                int startx = cursor.getStart();
+                x = cursor.getEnd();
                 // create segment with (startx,y+1) being one below the start position, x-startx being the positive length
                 // so this may represent a bottom wall segment as a top wall segment one below
                 sl.add(new Seg(startx*Constants.MAP_UNIT, (y+1)*Constants.MAP_UNIT,
@@ -469,8 +478,9 @@ public class BSPBuilder {
 			int df2y = se.getEndPositionY() - y; // difference between end of segment and y
 			int nx = dy;
 			int ny = -dx;
-			int dot1 = df1x * nx + df1y * ny;
-			int dot2 = df2x * nx + df2y * ny;
+			// coordinates are scaled by MAP_UNIT, products exceed the int range for large mazes
+			long dot1 = (long) df1x * nx + (long) df1y * ny;
+			long dot2 = (long) df2x * nx + (long) df2y * ny;
 			// update splits if necessary
 			if (getSign(dot1) != getSign(dot2)) {
 				if (dot1 == 0)
@@ -523,6 +533,14 @@ public class BSPBuilder {
 	static int getSign(int num) {
 		return (num < 0) ? -1 : (num > 0) ? 1 : 0;
 	}
+	/**
+	 * Provides the sign of a given long number
+	 * @param num
+	 * @return -1 if num < 0, 0 if num == 0, 1 if num > 0
+	 */
+	static int getSign(long num) {
+		return (num < 0) ? -1 : (num > 0) ? 1 : 0;
+	}
 	/**
 	 * Produce output for debugging purposes
 	 * @param str
@@ -0,0 +1,333 @@
+package generation;
+
+import java.util.Arrays;
+
+/**
+ * This class keeps a grid of cells as bitboards, i.e. one bitset per bit of the encoding in Cells:
+ * each of the four walls, the visited flag, each of the four bounds and the room flag.
+ * Bit i of a bitset belongs to cell (x,y) with i = x*height+y, the same order as in Cells,
+ * so a region that spans whole columns is a single range of bits.
+ *
+ * Queries and updates of a single cell touch one bitset per bit in the bitmask,
+ * which is usually just one. Bulk operations work on 64 cells at a time:
+ * initialize, filling and clearing regions, e.g. when a room is placed,
+ * checking a region for rooms, counting cells with a flag, dead ends or junctions, comparing mazes
+ * and finding sequences of walls in a column with a bit scan.
+ *
+ * The class is a drop-in replacement for Cells, a builder that is given
+ * BitboardCells instead of Cells generates the same maze.
+ *
+ * @author Katson, Andrew
+ */
+public class BitboardCells extends Cells {
+	static final int FLAGS = 10; // number of bits used by the encoding in Cells, CW_TOP is bit 0, CW_IN_ROOM is bit 9
+
+	private final int width;
+	private final int height;
+	private final long[][] bitsets; // bitsets[b] has bit i set if bit b of the value of cell i is set
+
+	/**
+	 * Constructor
+	 * @param w width
+	 * @param h height
+	 * @precondition 0 < w, 0 < h
+	 */
+	public BitboardCells(int w, int h) {
+		super(w, h, false);
+		width = w;
+		height = h;
+		bitsets = new long[FLAGS][(int) (((long) w * h + 63) >>> 6)];
+	}
+
+	/**
+	 * Constructor that dimensions and initializes cells with the values from the given matrix.
+	 * @param input provides input data to copy cell content from
+	 * @precondition input != null
+	 */
+	public BitboardCells(int[][] input) {
+		this(input.length, input[0].length);
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				assert (input[x][y] & -(1 << FLAGS)) == 0 : "Cell value does not fit the encoding";
+				setBitToOne(x, y, input[x][y]);
+			}
+		}
+	}
+
+	@Override
+	public int getValueOfCell(int x, int y) {
+		final int i = index(x, y);
+		int value = 0;
+		for (int b = 0; b < FLAGS; b++) {
+			value |= (int) ((bitsets[b][i >>> 6] >>> i) & 1) << b;
+		}
+		return value;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (other instanceof BitboardCells) {
+			final BitboardCells o = (BitboardCells) other;
+			return width == o.width && height == o.height && Arrays.deepEquals(bitsets, o.bitsets);
+		}
+		return super.equals(other);
+	}
+
+	////////////////// low level methods operating on bits and bitmasks //////////////////////////////////////////
+	@Override
+	protected void setBitToZero(int x, int y, int bitmask) {
+		final int i = index(x, y);
+		for (int m = bitmask; 0 != m; m &= m - 1) {
+			bitsets[Integer.numberOfTrailingZeros(m)][i >>> 6] &= ~(1L << i);
+		}
+	}
+
+	@Override
+	protected void setBitToOne(int x, int y, int bitmask) {
+		final int i = index(x, y);
+		for (int m = bitmask; 0 != m; m &= m - 1) {
+			bitsets[Integer.numberOfTrailingZeros(m)][i >>> 6] |= 1L << i;
+		}
+	}
+
+	@Override
+	protected boolean hasMaskedBitsTrue(int x, int y, int bitmask) {
+		final int i = index(x, y);
+		for (int m = bitmask; 0 != m; m &= m - 1) {
+			if (0 != (bitsets[Integer.numberOfTrailingZeros(m)][i >>> 6] & (1L << i)))
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	protected boolean hasMaskedBitsFalse(int x, int y, int bitmask) {
+		return !hasMaskedBitsTrue(x, y, bitmask);
+	}
+
+	//////// bulk operations, each works on the range of bits of a column or on all columns at once
+	@Override
+	protected void fillRegion(int bitmask, int rx, int ry, int rxl, int ryl) {
+		for (int m = bitmask; 0 != m; m &= m - 1) {
+			final long[] bits = bitsets[Integer.numberOfTrailingZeros(m)];
+			if (0 == ry && height-1 == ryl) {
+				setRange(bits, index(rx, 0), index(rxl, ryl) + 1);
+				continue;
+			}
+			for (int x = rx; x <= rxl; x++) {
+				setRange(bits, index(x, ry), index(x, ryl) + 1);
+			}
+		}
+	}
+
+	@Override
+	protected void clearRegion(int bitmask, int rx, int ry, int rxl, int ryl) {
+		for (int m = bitmask; 0 != m; m &= m - 1) {
+			final long[] bits = bitsets[Integer.numberOfTrailingZeros(m)];
+			if (0 == ry && height-1 == ryl) {
+				clearRange(bits, index(rx, 0), index(rxl, ryl) + 1);
+				continue;
+			}
+			for (int x = rx; x <= rxl; x++) {
+				clearRange(bits, index(x, ry), index(x, ryl) + 1);
+			}
+		}
+	}
+
+	@Override
+	protected boolean hasMaskedBitsTrueInRegion(int bitmask, int rx, int ry, int rxl, int ryl) {
+		for (int m = bitmask; 0 != m; m &= m - 1) {
+			final long[] bits = bitsets[Integer.numberOfTrailingZeros(m)];
+			for (int x = rx; x <= rxl; x++) {
+				if (anyInRange(bits, index(x, ry), index(x, ryl) + 1))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected int countMaskedBitsTrue(int bitmask) {
+		// bits beyond the last cell are never set, so whole words can be counted
+		int result = 0;
+		for (int w = 0; w < bitsets[0].length; w++) {
+			long word = 0;
+			for (int m = bitmask; 0 != m; m &= m - 1) {
+				word |= bitsets[Integer.numberOfTrailingZeros(m)][w];
+			}
+			result += Long.bitCount(word);
+		}
+		return result;
+	}
+
+	//////// scanning a column for sequences of walls, a column is a single range of bits
+	@Override
+	protected int findWallInColumn(int x, int y, int bitmask) {
+		final int column = index(x, 0);
+		return nextIndex(column + y, column + height, bitmask, 0) - column;
+	}
+
+	@Override
+	protected int findEndOfWallsInColumn(int x, int y, int bitmask) {
+		final int column = index(x, 0);
+		// the sequence ends at a cell without the wall or with a crossing wall on top
+		return nextIndex(column + y + 1, column + height, CW_TOP, bitmask) - column;
+	}
+
+	@Override
+	protected int countCellsWithWalls(int walls) {
+		final long[] top = bitsets[Integer.numberOfTrailingZeros(CW_TOP)];
+		final long[] bottom = bitsets[Integer.numberOfTrailingZeros(CW_BOT)];
+		final long[] left = bitsets[Integer.numberOfTrailingZeros(CW_LEFT)];
+		final long[] right = bitsets[Integer.numberOfTrailingZeros(CW_RIGHT)];
+		final int cellCount = width * height;
+		int result = 0;
+		for (int w = 0; w < top.length; w++) {
+			// add up the four walls of 64 cells at once, bit i of s2 s1 s0 is the number of walls of cell i
+			final long tb0 = top[w] ^ bottom[w];
+			final long tb1 = top[w] & bottom[w];
+			final long lr0 = left[w] ^ right[w];
+			final long lr1 = left[w] & right[w];
+			final long s0 = tb0 ^ lr0;
+			final long carry = tb0 & lr0;
+			final long s1 = tb1 ^ lr1 ^ carry;
+			final long s2 = (tb1 & lr1) | ((tb1 ^ lr1) & carry);
+			long match = (0 != (walls & 1) ? s0 : ~s0) & (0 != (walls & 2) ? s1 : ~s1) & (0 != (walls & 4) ? s2 : ~s2);
+			if (w == top.length - 1)
+				match &= -1L >>> -cellCount; // bits beyond the last cell are zero and would count as cells without walls
+			result += Long.bitCount(match);
+		}
+		return result;
+	}
+
+	@Override
+	public int countDifferentCells(Cells other) {
+		if (!(other instanceof BitboardCells))
+			return super.countDifferentCells(other);
+		final BitboardCells o = (BitboardCells) other;
+		assert width == o.width && height == o.height : "BitboardCells: mazes of different dimensions";
+		int result = 0;
+		for (int w = 0; w < bitsets[0].length; w++) {
+			long diff = 0;
+			for (int b = 0; b < FLAGS; b++) {
+				diff |= bitsets[b][w] ^ o.bitsets[b][w];
+			}
+			result += Long.bitCount(diff);
+		}
+		return result;
+	}
+
+	/**
+	 * Gives the position of a cell in the bitsets.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @precondition 0 <= x < width, 0 <= y < height
+	 * @return bit index
+	 * @throws ArrayIndexOutOfBoundsException for a position out of range, as in Cells
+	 */
+	private int index(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height)
+			throw new ArrayIndexOutOfBoundsException("BitboardCells: position out of range: " + x + ", " + y);
+		return x * height + y;
+	}
+
+	/**
+	 * Finds the first index from index from inclusive to index to exclusive
+	 * where any bit of setMask is one or any bit of clearMask is zero.
+	 * Works on 64 cells at a time and finds the index in a word with a bit scan.
+	 * @param from
+	 * @param to
+	 * @param setMask bits that end the search if one
+	 * @param clearMask bits that end the search if zero
+	 * @return index, to if there is none
+	 */
+	private int nextIndex(int from, int to, int setMask, int clearMask) {
+		if (from >= to)
+			return to;
+		final int last = (to - 1) >>> 6;
+		long rangeMask = -1L << from; // shift distances of long values are taken modulo 64
+		for (int w = from >>> 6; w <= last; w++) {
+			long word = 0;
+			for (int m = setMask; 0 != m; m &= m - 1) {
+				word |= bitsets[Integer.numberOfTrailingZeros(m)][w];
+			}
+			for (int m = clearMask; 0 != m; m &= m - 1) {
+				word |= ~bitsets[Integer.numberOfTrailingZeros(m)][w];
+			}
+			word &= rangeMask;
+			if (0 != word)
+				return Math.min(to, (w << 6) + Long.numberOfTrailingZeros(word));
+			rangeMask = -1L;
+		}
+		return to;
+	}
+
+	/**
+	 * Sets the bits from index from inclusive to index to exclusive.
+	 * @param bits
+	 * @param from
+	 * @param to
+	 */
+	private static void setRange(long[] bits, int from, int to) {
+		if (from >= to)
+			return;
+		final int first = from >>> 6;
+		final int last = (to - 1) >>> 6;
+		final long firstMask = -1L << from; // shift distances of long values are taken modulo 64
+		final long lastMask = -1L >>> -to;
+		if (first == last) {
+			bits[first] |= firstMask & lastMask;
+			return;
+		}
+		bits[first] |= firstMask;
+		Arrays.fill(bits, first + 1, last, -1L);
+		bits[last] |= lastMask;
+	}
+
+	/**
+	 * Clears the bits from index from inclusive to index to exclusive.
+	 * @param bits
+	 * @param from
+	 * @param to
+	 */
+	private static void clearRange(long[] bits, int from, int to) {
+		if (from >= to)
+			return;
+		final int first = from >>> 6;
+		final int last = (to - 1) >>> 6;
+		final long firstMask = -1L << from;
+		final long lastMask = -1L >>> -to;
+		if (first == last) {
+			bits[first] &= ~(firstMask & lastMask);
+			return;
+		}
+		bits[first] &= ~firstMask;
+		Arrays.fill(bits, first + 1, last, 0L);
+		bits[last] &= ~lastMask;
+	}
+
+	/**
+	 * Tells if a bit from index from inclusive to index to exclusive is set.
+	 * @param bits
+	 * @param from
+	 * @param to
+	 * @return true if there is such a bit
+	 */
+	private static boolean anyInRange(long[] bits, int from, int to) {
+		if (from >= to)
+			return false;
+		final int first = from >>> 6;
+		final int last = (to - 1) >>> 6;
+		final long firstMask = -1L << from;
+		final long lastMask = -1L >>> -to;
+		if (first == last)
+			return 0 != (bits[first] & firstMask & lastMask);
+		if (0 != (bits[first] & firstMask) || 0 != (bits[last] & lastMask))
+			return true;
+		for (int w = first + 1; w < last; w++) {
+			if (0 != bits[w])
+				return true;
+		}
+		return false;
+	}
+}
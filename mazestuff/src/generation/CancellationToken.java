@@ -0,0 +1,81 @@
+package generation;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cancellation token tells a builder that the maze it works on is no longer wanted.
+ * The factory cancels the token of an order, the builder checks it at checkpoints
+ * inside its long running loops and stops by throwing a CancellationException.
+ * A checkpoint is a read of a volatile field and of the interrupt flag of the thread,
+ * so loops can check once per cell without noticeable cost, very tight loops check every
+ * CHECKPOINT_INTERVAL iterations. Either way the worker is free again
+ * within a few milliseconds instead of finishing a maze that nobody waits for.
+ *
+ * Builders that run on threads of their own still stop if the thread is interrupted,
+ * but the token also reaches work that is handed to other threads, e.g. tiles carved on a ForkJoinPool.
+ *
+ * The token records when it was cancelled and when a checkpoint noticed it,
+ * so the latency from cancel to stop can be measured.
+ *
+ * @author Katson, Andrew
+ */
+public class CancellationToken {
+	// loops whose iterations take a few nanoseconds only check every so many iterations, a power of 2
+	static final int CHECKPOINT_INTERVAL = 4096;
+
+	private volatile boolean cancelled; // true once cancel was called
+	private volatile long cancelNanos; // System.nanoTime() when cancel was called
+	private volatile long stopNanos; // System.nanoTime() when a checkpoint first noticed the cancellation, 0 if none did
+
+	/**
+	 * Asks the builder to stop. Calling it again has no effect.
+	 */
+	public synchronized void cancel() {
+		if (cancelled)
+			return;
+		cancelNanos = System.nanoTime();
+		cancelled = true;
+	}
+
+	/**
+	 * Tells if the token was cancelled.
+	 * @return true if cancel was called
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Checks if the work should stop, to be called regularly from long running loops.
+	 * @throws CancellationException if the token was cancelled or the current thread was interrupted
+	 */
+	public void checkpoint() {
+		if (cancelled || Thread.currentThread().isInterrupted())
+			stop();
+	}
+
+	/**
+	 * Records the time the cancellation was noticed and leaves the loop.
+	 * Kept out of checkpoint such that the check itself stays small enough to be inlined.
+	 */
+	private void stop() {
+		synchronized (this) {
+			if (0 == stopNanos)
+				stopNanos = System.nanoTime();
+		}
+		throw new CancellationException("maze generation cancelled");
+	}
+
+	/**
+	 * Gives the time from cancel to the checkpoint that noticed it.
+	 * @param unit of the result
+	 * @return latency in the given unit, -1 if the token was not cancelled
+	 * or the builder did not reach a checkpoint since, e.g. because it was already done
+	 */
+	public long getStopLatency(TimeUnit unit) {
+		if (!cancelled || 0 == stopNanos)
+			return -1;
+		return unit.convert(Math.max(0, stopNanos - cancelNanos), TimeUnit.NANOSECONDS);
+	}
+}
@@ -24,6 +24,37 @@ package generation;
  */
 public enum CardinalDirection {
 	North, East, South, West ;
+	// (dx,dy) pairs indexed by ordinal, i.e. North, East, South, West, see getDirection() for the mapping
+	// tables are shared and must not be modified, they allow for lookups without allocating an array
+	static final int[] DX = { 0, 1, 0, -1 } ;
+	static final int[] DY = { -1, 0, 1, 0 } ;
+	// values() delivers a fresh copy on each call, this one is shared and must not be modified
+	private static final CardinalDirection[] VALUES = values() ;
+	
+	/**
+	 * Gives the direction for the given index, the inverse of ordinal()
+	 * @param index in {0,1,2,3} for North, East, South, West
+	 * @return matching cardinal direction
+	 */
+	static CardinalDirection fromIndex(int index) {
+		return VALUES[index] ;
+	}
+	/**
+	 * Gives the dx value of the (dx,dy) pair for the current direction.
+	 * Same as getDirection()[0] but without allocating an array.
+	 * @return dx in {-1,0,1}
+	 */
+	public int getDx() {
+		return DX[ordinal()] ;
+	}
+	/**
+	 * Gives the dy value of the (dx,dy) pair for the current direction.
+	 * Same as getDirection()[1] but without allocating an array.
+	 * @return dy in {-1,0,1}
+	 */
+	public int getDy() {
+		return DY[ordinal()] ;
+	}
 	/** 
 	 * Gives the direction that results from a 90 degree clockwise rotation
 	 * applied to the current direction. 
@@ -86,7 +117,16 @@ public enum CardinalDirection {
 	 * @return a random direction, distribution is uniform
 	 */
 	public CardinalDirection randomDirection() {
-		int i = SingleRandom.getRandom().nextIntWithinInterval(0, 3) ;
+		return randomDirection(SingleRandom.getRandom()) ;
+	}
+	/**
+	 * Gives a random direction drawn from the given random number stream. 
+	 * Values are picked with equal probabilities.
+	 * @param random is the random number stream, e.g. the one of a maze builder
+	 * @return a random direction, distribution is uniform
+	 */
+	public CardinalDirection randomDirection(SingleRandom random) {
+		int i = random.nextIntWithinInterval(0, 3) ;
 		switch(i) {
 		case 0 : 
 			return CardinalDirection.North ;
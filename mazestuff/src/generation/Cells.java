@@ -2,6 +2,7 @@ package generation;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -9,7 +10,7 @@ import java.util.NoSuchElementException;
  * This class encapsulates all access to a grid of cells. 
  * Each cell encodes whether walls or borders/bounds to rooms 
  * or to the outer border of the maze exist.
- * The internal two-dimensional array matches with a grid of cells as follows:
+ * The internal array matches with a grid of cells as follows:
  * cells[0,y] form the left border, hence there is a wall on  left.
  * cells[width-1,y] form the right border, hence there is a wall on right.
  * cells[x,0] form the top border, hence there is a wall on top.
@@ -32,6 +33,8 @@ import java.util.NoSuchElementException;
  * The internal encoding of walls for each cell into a single integer per cell 
  * is performed with bit operations (&,|) and thus error prone. 
  * An encapsulation within this class localizes all bit operations for this encoding.
+ * Subclasses can keep the cells in a different representation, e.g. BitboardCells,
+ * by overriding getValueOfCell and the low level methods on bits, bitmasks and regions.
  * 
  * This code is refactored code from Maze.java by Paul Falstad, www.falstad.com, Copyright (C) 1998, all rights reserved
  * Paul Falstad granted permission to modify and use code for teaching purposes.
@@ -59,6 +62,8 @@ public class Cells {
 	//public static final int CW_RIGHT_BOUND = 256; // 2^8
 	//public static final int CW_ALL_BOUNDS = CW_TOP_BOUND|CW_BOT_BOUND|CW_LEFT_BOUND|CW_RIGHT_BOUND; // constant to simplify check if all all bounds are present
 	public static final int CW_IN_ROOM = 512; // 2^9
+	// wall bit for each direction indexed by ordinal, i.e. North, East, South, West, see getCWConstantForDirection()
+	private static final int[] CW_FOR_DIRECTION = { CW_TOP, CW_RIGHT, CW_BOT, CW_LEFT };
 	// we put all encodings into a single array such that it is easier to iterate over the array
 	// note that the numerical values are used for bitwise calculations so a refactoring with other values in an enumeration can break the code
 	// Directions:
@@ -74,15 +79,15 @@ public class Cells {
 	
 	private int width;
 	private int height ;
-	private int[][] cells; // width x height array of cells, cells[width][height]
-	// each cell contains an integer which encodes presence/absence of walls
-	// cells[i][j] can be read as (i,j) coordinates much like (x,y) coordinates
-	// where the first dimension x grows towards the right and 
-	// the second dimension y grows towards the bottom
+	private short[] cells; // width x height cells in a single array, cell (x,y) is cells[x*height+y]
+	// each cell contains a short which encodes presence/absence of walls, only bits 0 to 9 are used
+	// (x,y) coordinates are such that x grows towards the right and 
+	// y grows towards the bottom
 	// as if the (0,0) position is in the top-left corner.
-	// cells[i][j] is not intuitive in terms of rows and column indices in matrix notation 
-	// as position (i,j) would be column i and row j which is opposite to the normal  
-	// use of rows and columns indices for matrices.
+	// cells of the same x are next to each other as in the former int[x][y] layout,
+	// which is the order in which Distance numbers positions and most loops visit cells,
+	// without an array object per column and the indirection through it.
+	private CellsJournal journal; // records changes if not null, see setJournal
 	
 	/**
 	 * Constructor
@@ -91,9 +96,20 @@ public class Cells {
 	 * @precondition 0 < w, 0 < h
 	 */
 	public Cells(int w, int h) {
+		this(w, h, true);
+	}
+	/**
+	 * Constructor for subclasses that keep the cells in a representation of their own.
+	 * @param w width
+	 * @param h height
+	 * @param allocate is true to allocate the array of this class, false if a subclass
+	 * overrides all methods that access it
+	 * @precondition 0 < w, 0 < h
+	 */
+	protected Cells(int w, int h, boolean allocate) {
 		width = w ;
 		height = h ;
-		cells = new int[w][h];
+		cells = allocate ? new short[w * h] : null;
 	}
 
 	/**
@@ -102,20 +118,13 @@ public class Cells {
 	 * @precondition input != null
 	 */
 	public Cells(int[][] input){
-		// Alternative, 2d array is a 1d array with arrays as elements
-		width = input.length ;
-		height = input[0].length ;
-		cells = new int[width][];
-		for(int i = 0; i < width; i++)
-		    cells[i] = input[i].clone();
-		/* Basic version
 		this(input.length, input[0].length);
 		for (int i = 0; i < width; i++) {
 			for (int j = 0; j < height; j++) {
-				cells[i][j] = input[i][j];
+				assert (input[i][j] & ~0xffff) == 0 : "Cell value does not fit the encoding" ;
+				cells[index(i, j)] = (short) input[i][j];
 			}
 		}
-		*/
 	}
 	
 	/**
@@ -123,28 +132,21 @@ public class Cells {
 	 * and borders form a rectangle on the outside of the maze.
 	 */
 	public void initialize() {
-		int x, y;
-	
-		for (x = 0; x < width; x++) {
-			for (y = 0; y < height; y++) {
-				setBitToOne(x, y, (CW_VISITED | CW_ALL));
-			}
-		} 
+		if (null != journal)
+			journal.record(CellsJournal.INITIALIZE, 0, 0);
+		fillRegion(CW_VISITED | CW_ALL, 0, 0, width-1, height-1);
 		// Assumption: (0,0) at top-left corner
 		// mark exterior walls to top and bottom
-		for (x = 0; x < width; x++) {
-			setBitToOne(x, 0, getBoundForBit(CW_TOP));
-			setBitToOne(x, height-1, getBoundForBit(CW_BOT));
-		} 
+		fillRegion(getBoundForBit(CW_TOP), 0, 0, width-1, 0);
+		fillRegion(getBoundForBit(CW_BOT), 0, height-1, width-1, height-1);
 		// mark exterior walls to left and right 
-		for (y = 0; y < height; y++) {
-			setBitToOne(0, y, getBoundForBit(CW_LEFT));
-			setBitToOne(width-1, y, getBoundForBit(CW_RIGHT));
-		}
+		fillRegion(getBoundForBit(CW_LEFT), 0, 0, 0, height-1);
+		fillRegion(getBoundForBit(CW_RIGHT), width-1, 0, width-1, height-1);
 	}
 	
 	/**
 	 * Equals method that checks if the other object matches in dimensions and content.
+	 * Cells in different representations are equal if all cells have the same value.
 	 * @param other provides fully functional cells object to compare its content
 	 */
 	@Override
@@ -152,17 +154,17 @@ public class Cells {
 		// trivial special cases
 		if (this == other)
 			return true ;
-		if (null == other)
-			return false ;
-		if (getClass() != other.getClass())
+		if (!(other instanceof Cells))
 			return false ;
 		// general case
-		final Cells o = (Cells)other ; // type cast safe after checking class objects
+		final Cells o = (Cells)other ; // type cast safe after checking class
 		if ((width != o.width)||(height != o.height))
 			return false ;
-		for (int i = 0; i < width; i++) {
-			for (int j = 0; j < height; j++) {
-				if (cells[i][j] != o.cells[i][j])
+		if (null != cells && null != o.cells)
+			return Arrays.equals(cells, o.cells) ;
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				if (getValueOfCell(x, y) != o.getValueOfCell(x, y))
 					return false ;
 			}
 		}
@@ -187,7 +189,21 @@ public class Cells {
 	 */
 	public int getValueOfCell( int x, int y )
 	{
-		return cells[x][y] ;
+		return cells[index(x, y)] ;
+	}
+	/**
+	 * Gives the width of the maze.
+	 * @return number of cells along the x axis
+	 */
+	public int getWidth() {
+		return width ;
+	}
+	/**
+	 * Gives the height of the maze.
+	 * @return number of cells along the y axis
+	 */
+	public int getHeight() {
+		return height ;
 	}
 	
 	/**
@@ -201,9 +217,8 @@ public class Cells {
 	public boolean canGo(Wall wall) {
 		int x = wall.getX();
 		int y = wall.getY();
-		int[] d = wall.getDirection().getDirection() ;
-		int dx = d[0];
-		int dy = d[1];
+		int dx = wall.getDirection().getDx();
+		int dy = wall.getDirection().getDy();
 		// borders limit rooms (but for potential doors) and the outside limit of the maze
 		if (hasBorder(x, y, dx, dy))
 			return false;
@@ -211,6 +226,23 @@ public class Cells {
 		// return true if neighbor has not been visited before
 		return isFirstVisit(x+dx, y+dy);
 	}
+	/**
+	 * Same as canGo(Wall) for a wall encoded with PackedWall.
+	 * @param wall packed wall that provides (x,y) coordinates for cell and the direction
+	 * @precondition borders limit the outside of the maze area
+	 * @precondition 0 <= x < width, 0 <= y < height
+	 * @return true if neighbor in the given direction is new and wall can be taken down, false otherwise
+	 */
+	public boolean canGo(int wall) {
+		int x = PackedWall.getX(wall);
+		int y = PackedWall.getY(wall);
+		// borders limit rooms (but for potential doors) and the outside limit of the maze
+		if (hasMaskedBitsTrue(x, y, getBoundForBit(CW_FOR_DIRECTION[PackedWall.getDirectionIndex(wall)])))
+			return false;
+		// if there is no border, neighbor should be in legal range of values
+		// return true if neighbor has not been visited before
+		return isFirstVisit(x+PackedWall.getDx(wall), y+PackedWall.getDy(wall));
+	}
 	/**
 	 * Checks if there is a wall to be removed. 
 	 * @param wall provides (x,y) coordinates for cell and the direction
@@ -219,9 +251,8 @@ public class Cells {
 	public boolean wallExists(Wall wall) {
 		int x = wall.getX();
 		int y = wall.getY();
-		int[] d = wall.getDirection().getDirection() ;
-		int dx = d[0];
-		int dy = d[1];
+		int dx = wall.getDirection().getDx();
+		int dy = wall.getDirection().getDy();
 		// borders limit rooms (but for potential doors) and the outside limit of the maze
 		if (hasBorder(x, y, dx, dy))
 			return false;
@@ -229,6 +260,16 @@ public class Cells {
 		// return true 
 		return true;
 	}
+	/**
+	 * Same as wallExists(Wall) for a wall encoded with PackedWall.
+	 * @param wall packed wall that provides (x,y) coordinates for cell and the direction
+	 * @return true if neighbor in the given direction has a wall that can be taken down, false otherwise
+	 */
+	public boolean wallExists(int wall) {
+		// borders limit rooms (but for potential doors) and the outside limit of the maze
+		return hasMaskedBitsFalse(PackedWall.getX(wall), PackedWall.getY(wall), 
+				getBoundForBit(CW_FOR_DIRECTION[PackedWall.getDirectionIndex(wall)]));
+	}
 	
 	/**
 	 * Public version of the private hasBorders version I wrote for testing
@@ -282,6 +323,8 @@ public class Cells {
 	 * @precondition 0 <= x < width, 0 <= y < height
 	 */
 	public void setCellAsVisited(int x, int y) {
+		if (null != journal)
+			journal.record(CellsJournal.VISIT, 0, PackedWall.pack(x, y, 0));
 		setBitToZero(x,y,CW_VISITED) ; 
 	}
 	
@@ -293,6 +336,8 @@ public class Cells {
 	 * @precondition 0 <= x < width, 0 <= y < height
 	 */
 	public void setExitPosition(int x, int y) {
+		if (null != journal)
+			journal.record(CellsJournal.EXIT, 0, PackedWall.pack(x, y, 0));
 		int bit = 0;
 		// Assumption: (0,0) at top-left corner
 		// find direction to outside wall
@@ -364,6 +409,8 @@ public class Cells {
 	 * @precondition 0 <= x < width, 0 <= y < height
 	 */
 	public void setInRoomToOne(int x, int y) {
+		if (null != journal)
+			journal.record(CellsJournal.IN_ROOM, 0, PackedWall.pack(x, y, 0));
 		setBitToOne(x, y, CW_IN_ROOM);
 	}
 	/**
@@ -398,15 +445,7 @@ public class Cells {
 		if (((startX < 0)||(startY < 0))||((stopX >= width)||(stopY >= height)))
 			return true ;
 		// check area
-		for (int x = startX; x <= stopX; x++)
-		{
-			for (int y = startY; y <= stopY; y++)
-			{
-				if (isInRoom(x, y))
-					return true ;
-			}
-		}
-		return false ;
+		return hasMaskedBitsTrueInRegion(CW_IN_ROOM, startX, startY, stopX, stopY) ;
 	}
 	/**
 	 * Marks a given area as a room on the maze and positions up to five doors randomly.
@@ -422,20 +461,29 @@ public class Cells {
 	 * @param ryl 2nd corner, y coordinate
 	 */
 	public void markAreaAsRoom(int rw, int rh, int rx, int ry, int rxl, int ryl) {
-		// clear all cells in area of room from all walls and borders
-		// mark all cells in area as being inside the room
+		markAreaAsRoom(rw, rh, rx, ry, rxl, ryl, SingleRandom.getRandom());
+	}
+	/**
+	 * Marks a given area as a room on the maze and positions up to five doors randomly,
+	 * see markAreaAsRoom(int, int, int, int, int, int).
+	 * @param rw room width
+	 * @param rh room height
+	 * @param rx 1st corner, x coordinate
+	 * @param ry 1st corner, y coordinate
+	 * @param rxl 2nd corner, x coordinate
+	 * @param ryl 2nd corner, y coordinate
+	 * @param random is the random number stream to pick doors, e.g. the one of a maze builder
+	 */
+	public void markAreaAsRoom(int rw, int rh, int rx, int ry, int rxl, int ryl, SingleRandom random) {
 		int x;
 		int y;
-		for (x = rx; x <= rxl; x++)
-			for (y = ry; y <= ryl; y++) { 
-				setAllToZero(x, y);
-				setInRoomToOne(x, y);
-			} 
-		// set bounds at the perimeter
-		encloseArea(rx, ry, rxl, ryl);
+		if (null != journal) {
+			journal.record(CellsJournal.ROOM, 0, PackedWall.pack(rx, ry, 0));
+			journal.record(CellsJournal.ROOM_CORNER, 0, PackedWall.pack(rxl, ryl, 0));
+		}
+		markArea(rx, ry, rxl, ryl);
 		// knock down some walls for doors
 		int wallct = (rw+rh)*2; // counter for the total number of walls
-		SingleRandom random = SingleRandom.getRandom() ;
 		// check at most 5 walls
 		for (int ct = 0; ct != 5; ct++) { 
 			int door = random.nextIntWithinInterval(0, wallct-1); // pick a random wall
@@ -455,9 +503,26 @@ public class Cells {
 			} 
 			// tear down the border protection.
 			// It remains a wall that the generation mechanism can then tear down.
+			if (null != journal)
+				journal.record(CellsJournal.DELETE_BOUND, 0, PackedWall.pack(x+rx, y+ry, CardinalDirection.getDirection(dx, dy)));
 			deleteBound(x+rx, y+ry, dx, dy);
 		}
 	}
+	/**
+	 * Marks a given area as a room without doors, see markAreaAsRoom.
+	 * @param rx 1st corner, x coordinate
+	 * @param ry 1st corner, y coordinate
+	 * @param rxl 2nd corner, x coordinate
+	 * @param ryl 2nd corner, y coordinate
+	 */
+	private void markArea(int rx, int ry, int rxl, int ryl) {
+		// clear all cells in area of room from all walls and borders
+		// mark all cells in area as being inside the room
+		clearRegion(CW_ALL, rx, ry, rxl, ryl);
+		fillRegion(CW_IN_ROOM, rx, ry, rxl, ryl);
+		// set bounds at the perimeter
+		encloseArea(rx, ry, rxl, ryl);
+	}
 	/**
 	 * Sets bounds on the perimeter of an internal area with bound and wall to enclose area.
 	 * Bounds and walls are added from both directions.
@@ -568,12 +633,15 @@ public class Cells {
 	public void addWall(Wall wall, boolean internalWall) {
 		int x = wall.getX();
 		int y = wall.getY();
-		int[] d = wall.getDirection().getDirection() ;
+		int dx = wall.getDirection().getDx();
+		int dy = wall.getDirection().getDy();
+		if (null != journal)
+			journal.record(CellsJournal.ADD_WALL, internalWall ? 1 : 0, PackedWall.pack(x, y, wall.getDirection()));
 		// add wall on (x,y)
-		setWallToOne(x, y, d[0], d[1]);
+		setWallToOne(x, y, dx, dy);
 		// add same wall but for adjacent cell
 		if (internalWall)
-			setWallToOne(x+d[0], y+d[1], -d[0], -d[1]);
+			setWallToOne(x+dx, y+dy, -dx, -dy);
 	}
 
 	/**
@@ -585,9 +653,10 @@ public class Cells {
 	public void deleteWall(Wall wall) {
 		int x = wall.getX();
 		int y = wall.getY();
-		int[] d = wall.getDirection().getDirection() ;
-		int dx = d[0];
-		int dy = d[1];
+		int dx = wall.getDirection().getDx();
+		int dy = wall.getDirection().getDy();
+		if (null != journal)
+			journal.record(CellsJournal.DELETE_WALL, 0, PackedWall.pack(x, y, wall.getDirection()));
 		// delete wall on (x,y)
 		setWallToZero(x, y, dx, dy);
 		// delete same wall but for adjacent cell
@@ -597,6 +666,25 @@ public class Cells {
 			logWall( x,  y,  dx,  dy);
 		/////////////////// END OF SPECIAL CODE FOR GRADING //////////////////////////////////////////////////////////////
 	}
+	/**
+	 * Same as deleteWall(Wall) for a wall encoded with PackedWall.
+	 * @param wall packed wall that provides (x,y) coordinate of cell and direction
+	 */
+	public void deleteWall(int wall) {
+		int x = PackedWall.getX(wall);
+		int y = PackedWall.getY(wall);
+		int dx = PackedWall.getDx(wall);
+		int dy = PackedWall.getDy(wall);
+		int d = PackedWall.getDirectionIndex(wall);
+		if (null != journal)
+			journal.record(CellsJournal.DELETE_WALL, 0, wall);
+		// delete wall on (x,y)
+		setBitToZero(x, y, CW_FOR_DIRECTION[d]);
+		// delete same wall but for adjacent cell, opposite direction is two steps further in the clockwise order
+		setBitToZero(x+dx, y+dy, CW_FOR_DIRECTION[(d+2) & 3]);
+		if (deepdebugWall) // for debugging: track sequence of walls that are deleted
+			logWall( x,  y,  dx,  dy);
+	}
     /**
      * Add walls in either north or west direction for the given segment.
      * Segment coordinates need to be rescaled by map_unit to translate into
@@ -669,6 +757,66 @@ public class Cells {
             sy += sdsy;
         }    
     }
+	////////////////// journal of changes ///////////////////////////////////////////////////////////////////////
+	// The journal replaces the text log of deleted walls for replay and comparison, see CellsJournal.saveDeletedWalls
+	// for the same text derived from a journal. The text log itself (deepdebugWall, logWall, saveLogFile) stays
+	// as it is: the grading of project 2 sets the flag and reads the file, and its code must not be altered.
+	/**
+	 * Sets a journal that records all changes from now on, see CellsJournal.
+	 * @param journal records changes, null to stop recording
+	 * @throws IllegalArgumentException if a coordinate of the cells does not fit into a PackedWall
+	 */
+	public void setJournal(CellsJournal journal) {
+		if (null != journal && (width > PackedWall.MAX_COORDINATE + 1 || height > PackedWall.MAX_COORDINATE + 1))
+			throw new IllegalArgumentException("Cells: journal needs coordinates up to " + PackedWall.MAX_COORDINATE);
+		this.journal = journal;
+	}
+	/**
+	 * Gives the journal that records changes.
+	 * @return journal, null if changes are not recorded
+	 */
+	public CellsJournal getJournal() {
+		return journal;
+	}
+	/**
+	 * Applies a record of a journal, used by CellsJournal.replay.
+	 * @param operation of the record, e.g. CellsJournal.DELETE_WALL
+	 * @param detail of the record
+	 * @param position of the record, a packed wall or cell
+	 * @param corner position of the previous record, the upper left corner for ROOM_CORNER
+	 */
+	void apply(int operation, int detail, int position, int corner) {
+		final int x = PackedWall.getX(position);
+		final int y = PackedWall.getY(position);
+		switch (operation) {
+		case CellsJournal.INITIALIZE:
+			initialize();
+			break;
+		case CellsJournal.DELETE_WALL:
+			deleteWall(position);
+			break;
+		case CellsJournal.ADD_WALL:
+			addWall(new Wall(x, y, PackedWall.getDirection(position)), 1 == detail);
+			break;
+		case CellsJournal.VISIT:
+			setCellAsVisited(x, y);
+			break;
+		case CellsJournal.EXIT:
+			setExitPosition(x, y);
+			break;
+		case CellsJournal.IN_ROOM:
+			setInRoomToOne(x, y);
+			break;
+		case CellsJournal.ROOM_CORNER:
+			markArea(PackedWall.getX(corner), PackedWall.getY(corner), x, y);
+			break;
+		case CellsJournal.DELETE_BOUND:
+			deleteBound(x, y, PackedWall.getDx(position), PackedWall.getDy(position));
+			break;
+		default:
+			throw new IllegalArgumentException("Cells: unknown journal operation " + operation);
+		}
+	}
 	//////////////////// get methods (is..., has...) for various attributes ///////////////////////
 	/**
 	 * Tells if the given position has a wall in the given direction.
@@ -710,23 +858,207 @@ public class Cells {
 		static final int CW_LEFT = 4; // 2^2
 		static final int CW_RIGHT = 8;// 2^3
 		 */
-		switch(dir) {
-		case North : 
-			return CW_TOP; // flipped: CW_TOP ;
-		case East : 
-			return CW_RIGHT ;
-		case South : 
-			return CW_BOT; // flipped CW_BOT ;
-		case West : 
-			return CW_LEFT ;
-		default:
-			throw new RuntimeException("Unsupported value in enum type") ;
+		// table lookup instead of a switch, this is called on every wall query
+		return CW_FOR_DIRECTION[dir.ordinal()] ;
+	}
+	////////////////// bulk queries over all cells, e.g. to validate large numbers of generated mazes ///////////
+	// Cells scans its flat array with the Vector API if VectorBulkQueries from the optional source root src-vector
+	// is compiled and the application runs with --add-modules jdk.incubator.vector, see src-vector/README.md,
+	// and otherwise in a single loop without branches that the JIT may vectorize itself.
+	// Subclasses override the protected methods to work directly on their representation.
+	/**
+	 * Bulk queries over the flat array of cells, implemented with the Vector API by VectorBulkQueries.
+	 */
+	interface BulkQueries {
+		/**
+		 * @return number of values with at least one bit of the bitmask set
+		 */
+		int countMaskedBitsTrue(short[] cells, int bitmask);
+		/**
+		 * @return number of values with exactly the given number of wall bits set
+		 */
+		int countCellsWithWalls(short[] cells, int walls);
+		/**
+		 * @return number of positions where the arrays differ, both have the same length
+		 */
+		int countDifferentCells(short[] cells, short[] other);
+	}
+	// null if the Vector API is not available, the scalar loops are used then
+	private static final BulkQueries VECTOR_QUERIES = loadVectorQueries();
+	/**
+	 * Loads the bulk queries on the Vector API by name, such that Cells does not depend on the incubator module.
+	 * @return the queries, null if the module is not available at runtime
+	 */
+	static BulkQueries loadVectorQueries() {
+		try {
+			return (BulkQueries) Class.forName("generation.VectorBulkQueries").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			// the class was not compiled or the module is missing, e.g. NoClassDefFoundError for ShortVector
+			return null;
 		}
 	}
+	/**
+	 * Counts the cells that have a wall in the given direction.
+	 * @param dir gives the cardinal direction
+	 * @return number of cells
+	 */
+	public int countWalls(CardinalDirection dir) {
+		return countMaskedBitsTrue(getCWConstantForDirection(dir));
+	}
+	/**
+	 * Counts the dead ends, i.e. cells with walls on three sides.
+	 * @return number of cells
+	 */
+	public int countDeadEnds() {
+		return countCellsWithWalls(3);
+	}
+	/**
+	 * Counts the junctions, i.e. cells with at most one wall,
+	 * which are open in three or four directions.
+	 * Cells inside of rooms have no walls and are counted as well.
+	 * @return number of cells
+	 */
+	public int countJunctions() {
+		return countCellsWithWalls(0) + countCellsWithWalls(1);
+	}
+	/**
+	 * Counts the cells whose value differs from the cell at the same position in the other maze,
+	 * e.g. to locate a mismatch that equals only reports as false.
+	 * @param other cells of the same width and height
+	 * @precondition other != null and has the same width and height
+	 * @return number of cells, 0 if both mazes are equal
+	 */
+	public int countDifferentCells(Cells other) {
+		assert width == other.width && height == other.height : "Cells: mazes of different dimensions";
+		int result = 0;
+		if (null != cells && null != other.cells) {
+			if (null != VECTOR_QUERIES)
+				return VECTOR_QUERIES.countDifferentCells(cells, other.cells);
+			for (int i = 0; i < cells.length; i++) {
+				// (value + 0xffff) >>> 16 is 1 for a non zero 16 bit value and 0 otherwise
+				result += ((cells[i] ^ other.cells[i]) & 0xffff) + 0xffff >>> 16;
+			}
+			return result;
+		}
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				if (getValueOfCell(x, y) != other.getValueOfCell(x, y))
+					result++;
+			}
+		}
+		return result;
+	}
+	/**
+	 * Counts the cells with exactly the given number of walls.
+	 * @param walls number of walls, 0 to 4
+	 * @return number of cells
+	 */
+	protected int countCellsWithWalls(int walls) {
+		int result = 0;
+		if (null != cells) {
+			if (null != VECTOR_QUERIES)
+				return VECTOR_QUERIES.countCellsWithWalls(cells, walls);
+			for (short value : cells) {
+				result += (Integer.bitCount(value & CW_ALL) == walls) ? 1 : 0;
+			}
+			return result;
+		}
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				if (Integer.bitCount(getValueOfCell(x, y) & CW_ALL) == walls)
+					result++;
+			}
+		}
+		return result;
+	}
 	////////////////// iterator to access continuous sequences of walls //////////////////////////////////////////
 	public Iterator<int[]> iterator(int x, int y, CardinalDirection cd) {
         return new SequenceIterator(x,y,cd);
     }
+	/**
+	 * Gives a cursor over continuous sequences of walls, the same sequences
+	 * as the iterator delivers but without creating an object per sequence.
+	 * A cursor can be reset and reused for any number of scans.
+	 * @return cursor, call reset before the first call of next
+	 */
+	public SequenceCursor sequenceCursor() {
+		return new SequenceCursor();
+	}
+
+	/**
+	 * Inner class to scan for continuous sequences of walls with primitive values only.
+	 * It delivers the same [start,end] pairs as the iterator, see SequenceIterator:
+	 * 
+	 * cursor.reset(x, y, cd);
+	 * while (cursor.next()) {
+	 *     use cursor.getStart() and cursor.getEnd()
+	 * }
+	 * 
+	 * The search itself is done by findWallInRow, findWallInColumn and the matching findEnd methods,
+	 * which subclasses replace with faster versions for their representation.
+	 */
+	public class SequenceCursor {
+		private int x; // current position, the next sequence is searched from here
+		private int y; // current position, the next sequence is searched from here
+		private int bitmask; // wall bit for the given direction
+		private boolean vertical; // true for walls on the east or west side, then y is incremented
+		private int start; // first cell of the current sequence
+		private int end; // first cell after the current sequence
+
+		/**
+		 * Starts a new scan.
+		 * If the given direction is North or South, the cursor looks for
+		 * a horizontal sequence of walls (increments x, so it walks east).
+		 * If the given direction is East or West, the cursor looks for
+		 * a vertical sequence of walls (increments y).
+		 * @param x x-coordinate of first cell to consider
+		 * @param y y-coordinate of first cell to consider
+		 * @param wallsInThisDirection
+		 */
+		public void reset(int x, int y, CardinalDirection wallsInThisDirection) {
+			this.x = x;
+			this.y = y;
+			bitmask = getCWConstantForDirection(wallsInThisDirection);
+			vertical = (CardinalDirection.East == wallsInThisDirection || CardinalDirection.West == wallsInThisDirection);
+			start = -1;
+			end = -1;
+		}
+		/**
+		 * Moves to the next sequence of walls.
+		 * @return true if there is one, false if the row or column has no further sequence
+		 */
+		public boolean next() {
+			if (vertical) {
+				start = findWallInColumn(x, y, bitmask);
+				if (start == height) // no sequence
+					return false;
+				end = findEndOfWallsInColumn(x, start, bitmask);
+				y = end;
+			}
+			else {
+				start = findWallInRow(x, y, bitmask);
+				if (start == width) // no sequence
+					return false;
+				end = findEndOfWallsInRow(start, y, bitmask);
+				x = end;
+			}
+			return true;
+		}
+		/**
+		 * Gives the x or y coordinate of the first cell of the current sequence.
+		 * @return start, a cell with a wall
+		 */
+		public int getStart() {
+			return start;
+		}
+		/**
+		 * Gives the x or y coordinate of the first cell after the current sequence.
+		 * @return end, a cell without a wall, a cell at a crossing wall or width or height at the border
+		 */
+		public int getEnd() {
+			return end;
+		}
+	}
 
     /**
      * Inner class to provide an iterator that delivers tuples of [start,end] indices
@@ -752,11 +1084,8 @@ public class Cells {
      */
     private class SequenceIterator implements
                     Iterator<int[]> {
-        private int[] cursor; // current sequence of walls
+        private final SequenceCursor scan; // finds the sequences
         private int[] next; // next sequence of walls
-        private int startX; // stores the current position during iteration
-        private int startY; // stores the current position during iteration
-        private final CardinalDirection cd;
 
         /**
          * Constructor to obtain an iterator that provides [start,end] value pairs
@@ -773,10 +1102,8 @@ public class Cells {
          * @param wallsInThisDirection
          */
         public SequenceIterator(int x, int y, CardinalDirection wallsInThisDirection) {
-            startX = x;
-            startY = y;
-            cd = wallsInThisDirection;
-            cursor = null;
+            scan = new SequenceCursor();
+            scan.reset(x, y, wallsInThisDirection);
             // compute first element, necessary to make hasNext operational
             next = computeNextSequence();
         }
@@ -789,96 +1116,88 @@ public class Cells {
             if(!this.hasNext()) {
                 throw new NoSuchElementException();
             }
-            cursor = next;
+            final int[] result = next;
             next = computeNextSequence();
-            return cursor;
+            return result;
         }
         @Override
         public void remove() {
             throw new UnsupportedOperationException();
         }
         /**
-         * Finds the next sequence of walls for the stored direction
-         * that starts from the current (startX,startY) position.
-         * Method updates either startX or startY. If the given
-         * direction is North or South, the method looks for 
-         * a horizontal sequence of walls (increments x).
-         * If the given direction is East or West, the method looks for 
-         * a vertical sequence of walls (increments y).
+         * Finds the next sequence of walls for the stored direction.
          * @return [start,end] pair of either x or y coordinates
          * where start has a wall for the given direction and
          * end is the first cell beyond the sequence that does
-         * not have a wall. 
+         * not have a wall, null if there is no further sequence. 
          */
         private int[] computeNextSequence() {
-            int[] result = null;
-            // note that startX and startY are used to memo the current position
-            // across multiple calls for computeNextSequence
-            switch(cd) {
-            case North: /* same code as for South */
-            case South:
-                startX = findBeginningOfHorizontalSequence(startX, startY);
-                if (startX == width) // no sequence
-                    return null;
-                result = new int[2];
-                result[0] = startX;
-                startX = findEndOfHorizontalSequence(startX, startY);
-                result[1] = startX;
-                break;
-            case East: /* same code as for west */ 
-            case West:
-                startY = findBeginningOfVerticalSequence(startX, startY);
-                if (startY == height) // no sequence
-                    return null;
-                result = new int[2];
-                result[0] = startY;
-                startY = findEndOfVerticalSequence(startX, startY);
-                result[1] = startY;
-                break;
-            }
-            return result;
-        }
-        private int findBeginningOfVerticalSequence(final int x, int y) {
-            while (y < height && hasNoWall(x, y, cd)) {
-                y++;
-            } 
-            return y;
-        }
-        private int findBeginningOfHorizontalSequence(int x, final int y) {
-            while (x < width && hasNoWall(x, y, cd)) {
-                x++;
-            } 
-            return x;
-        }
-        private int findEndOfVerticalSequence(final int x, int y) {
-            while (hasWall(x, y, cd)) {
-                y++;
-                // at limit, return
-                if (y == height) 
-                    break;
-                // at a crossing wall: as we go down, we hit a ceiling, a corner
-                // if the neighbor (x incremented already) has wall on the north side
-                // same as hasWall(x, y-1, CardinalDirection.South)
-                if (hasWall(x, y, CardinalDirection.North))
-                    break;
-            }
-            return y;
-        }
-        private int findEndOfHorizontalSequence(int x, final int y) {
-            while (hasWall(x,y, cd)) {
-                x++;
-                // at limit, return
-                if (x == width)
-                    break;
-                // at a crossing wall: as we go east, we hit a blocking wall, 
-                // if the neighbor (x incremented already) has wall on the west side
-                // this is the same as hasWall(x-1,y, CardinalDirection.East)
-                if (hasWall(x,y, CardinalDirection.West))
-                    break;
-            }
-            return x;
+            if (!scan.next())
+                return null;
+            return new int[] {scan.getStart(), scan.getEnd()};
         }
-                    }
+    }
+	////////////////// scanning for sequences of walls, used by SequenceCursor ///////////////////////////////////
+	/**
+	 * Finds the first cell in a column from (x,y) on that has a wall given by the bitmask.
+	 * @param x coordinate of the column
+	 * @param y coordinate of the first cell to consider
+	 * @param bitmask the wall, e.g. CW_LEFT
+	 * @return y coordinate of that cell, height if there is none
+	 */
+	protected int findWallInColumn(int x, int y, int bitmask) {
+		while (y < height && hasMaskedBitsFalse(x, y, bitmask)) {
+			y++;
+		}
+		return y;
+	}
+	/**
+	 * Finds the end of a sequence of walls in a column that starts at (x,y).
+	 * The sequence ends at the first cell without the wall, at a crossing wall,
+	 * i.e. a cell with a wall on top, or at the border.
+	 * @param x coordinate of the column
+	 * @param y coordinate of the first cell of the sequence
+	 * @param bitmask the wall, e.g. CW_LEFT
+	 * @precondition cell (x,y) has the wall
+	 * @return y coordinate of the first cell after the sequence, height at the border
+	 */
+	protected int findEndOfWallsInColumn(int x, int y, int bitmask) {
+		for (y++; y < height; y++) {
+			if (hasMaskedBitsFalse(x, y, bitmask) || hasMaskedBitsTrue(x, y, CW_TOP))
+				break;
+		}
+		return y;
+	}
+	/**
+	 * Finds the first cell in a row from (x,y) on that has a wall given by the bitmask.
+	 * @param x coordinate of the first cell to consider
+	 * @param y coordinate of the row
+	 * @param bitmask the wall, e.g. CW_TOP
+	 * @return x coordinate of that cell, width if there is none
+	 */
+	protected int findWallInRow(int x, int y, int bitmask) {
+		while (x < width && hasMaskedBitsFalse(x, y, bitmask)) {
+			x++;
+		}
+		return x;
+	}
+	/**
+	 * Finds the end of a sequence of walls in a row that starts at (x,y).
+	 * The sequence ends at the first cell without the wall, at a crossing wall,
+	 * i.e. a cell with a wall on the left, or at the border.
+	 * @param x coordinate of the first cell of the sequence
+	 * @param y coordinate of the row
+	 * @param bitmask the wall, e.g. CW_TOP
+	 * @precondition cell (x,y) has the wall
+	 * @return x coordinate of the first cell after the sequence, width at the border
+	 */
+	protected int findEndOfWallsInRow(int x, int y, int bitmask) {
+		for (x++; x < width; x++) {
+			if (hasMaskedBitsFalse(x, y, bitmask) || hasMaskedBitsTrue(x, y, CW_LEFT))
+				break;
+		}
+		return x;
+	}
 	////////////////// low level methods operating on bits and bitmasks //////////////////////////////////////////
 	//  long term goal is to make all of these methods private to encapsulate the encoding ///////////////////////
 	/**
@@ -888,17 +1207,8 @@ public class Cells {
 	 * @param cw_bit like CW_LEFT, CW_RIGHT, CW_TOP, CW_BOTTOM
 	 * @precondition 0 <= x < width, 0 <= y < height
 	 */
-	private void setBitToZero(int x, int y, int cw_bit) {
-		cells[x][y] &= ~cw_bit;
-	}
-	/**
-	 * Sets all wall bits to zero for a given cell
-	 * @param x coordinate of cell
-	 * @param y coordinate of cell
-	 * @precondition 0 <= x < width, 0 <= y < height
-	 */
-	private void setAllToZero(int x, int y) {
-		setBitToZero(x, y, CW_ALL) ;
+	protected void setBitToZero(int x, int y, int cw_bit) {
+		cells[index(x, y)] &= ~cw_bit;
 	}
 
 	//////// replace bitmask access 
@@ -907,10 +1217,88 @@ public class Cells {
 	// better to directly change client classes
 	//
 	protected boolean hasMaskedBitsTrue(int x, int y, int bitmask) {
-		return (cells[x][y] & bitmask) != 0;
+		return (cells[index(x, y)] & bitmask) != 0;
 	}
 	protected boolean hasMaskedBitsFalse(int x, int y, int bitmask) {
-		return (cells[x][y] & bitmask) == 0;
+		return (cells[index(x, y)] & bitmask) == 0;
+	}
+
+	//////// bulk operations on rectangular regions, (rx,ry) is the upper left and (rxl,ryl) the lower right corner
+	/**
+	 * Sets the bits of the given bitmask to one in all cells of a region
+	 * @param bitmask
+	 * @param rx 1st corner, x coordinate
+	 * @param ry 1st corner, y coordinate
+	 * @param rxl 2nd corner, x coordinate
+	 * @param ryl 2nd corner, y coordinate
+	 * @precondition 0 <= rx <= rxl < width, 0 <= ry <= ryl < height
+	 */
+	protected void fillRegion(int bitmask, int rx, int ry, int rxl, int ryl) {
+		for (int x = rx; x <= rxl; x++) {
+			for (int y = ry; y <= ryl; y++) {
+				setBitToOne(x, y, bitmask);
+			}
+		}
+	}
+	/**
+	 * Sets the bits of the given bitmask to zero in all cells of a region
+	 * @param bitmask
+	 * @param rx 1st corner, x coordinate
+	 * @param ry 1st corner, y coordinate
+	 * @param rxl 2nd corner, x coordinate
+	 * @param ryl 2nd corner, y coordinate
+	 * @precondition 0 <= rx <= rxl < width, 0 <= ry <= ryl < height
+	 */
+	protected void clearRegion(int bitmask, int rx, int ry, int rxl, int ryl) {
+		for (int x = rx; x <= rxl; x++) {
+			for (int y = ry; y <= ryl; y++) {
+				setBitToZero(x, y, bitmask);
+			}
+		}
+	}
+	/**
+	 * Tells if a cell in a region has any of the bits of the given bitmask set
+	 * @param bitmask
+	 * @param rx 1st corner, x coordinate
+	 * @param ry 1st corner, y coordinate
+	 * @param rxl 2nd corner, x coordinate
+	 * @param ryl 2nd corner, y coordinate
+	 * @precondition 0 <= rx <= rxl < width, 0 <= ry <= ryl < height
+	 * @return true if there is such a cell, false otherwise
+	 */
+	protected boolean hasMaskedBitsTrueInRegion(int bitmask, int rx, int ry, int rxl, int ryl) {
+		for (int x = rx; x <= rxl; x++) {
+			for (int y = ry; y <= ryl; y++) {
+				if (hasMaskedBitsTrue(x, y, bitmask))
+					return true;
+			}
+		}
+		return false;
+	}
+	/**
+	 * Counts the cells that have any of the bits of the given bitmask set,
+	 * e.g. countMaskedBitsTrue(CW_VISITED) is the number of cells not visited yet.
+	 * @param bitmask
+	 * @return number of cells
+	 */
+	protected int countMaskedBitsTrue(int bitmask) {
+		int result = 0;
+		if (null != cells) {
+			if (null != VECTOR_QUERIES)
+				return VECTOR_QUERIES.countMaskedBitsTrue(cells, bitmask);
+			for (short value : cells) {
+				// (value + 0xffff) >>> 16 is 1 for a non zero 16 bit value and 0 otherwise
+				result += (value & bitmask & 0xffff) + 0xffff >>> 16;
+			}
+			return result;
+		}
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				if (hasMaskedBitsTrue(x, y, bitmask))
+					result++;
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -942,8 +1330,22 @@ public class Cells {
 	 * @param bitmask
 	 * @precondition 0 <= x < width, 0 <= y < height
 	 */
-	private void setBitToOne(int x, int y, int bitmask) {
-		cells[x][y] |= bitmask ;
+	protected void setBitToOne(int x, int y, int bitmask) {
+		cells[index(x, y)] |= bitmask ;
+	}
+	/**
+	 * Gives the position of a cell in the array.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @precondition 0 <= x < width, 0 <= y < height
+	 * @return index into cells
+	 * @throws ArrayIndexOutOfBoundsException for a position out of range, as the former two-dimensional array did,
+	 * a y coordinate out of range would otherwise give a cell of a neighboring column
+	 */
+	private int index(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height)
+			throw new ArrayIndexOutOfBoundsException("Cells: position out of range: " + x + ", " + y) ;
+		return x * height + y ;
 	}
 
 	///////////////// code for debugging ///////////////////////////////////////
@@ -961,7 +1363,7 @@ public class Cells {
 		{
 			prefix = " i:" + i + " j:";
 			for (int j = 0 ; j < height ; j++)
-				s += prefix + j + "=" + cells[i][j] ;
+				s += prefix + j + "=" + getValueOfCell(i, j) ;
 			s += "\n" ;
 		}
 		return s ;
@@ -0,0 +1,345 @@
+package generation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * A journal records the changes to Cells in the order they happen, e.g. while a maze is generated,
+ * such that generation can be replayed step by step, a construction can be animated
+ * and two builds can be compared. It is the binary counterpart of the text log of deleted walls
+ * that Cells.deepdebugWall writes, and cheap enough to be left on: a change costs two int writes.
+ * saveDeletedWalls derives that text log from the journal, so the old format is available
+ * without the string building of the text log during generation.
+ *
+ * Each record is a pair of ints. The first holds the operation in its lowest 4 bits and
+ * an operation specific detail above, the second holds a position encoded with PackedWall,
+ * i.e. the coordinates of a cell and for walls and bounds a direction.
+ * A room takes two records, ROOM with the upper left and ROOM_CORNER with the lower right corner,
+ * followed by a DELETE_BOUND record for each door.
+ *
+ * Records are kept in a ring buffer that grows up to the given capacity, afterwards the oldest
+ * records are dropped. A journal that dropped records can not be replayed from the start
+ * but still gives the most recent changes, e.g. to animate the end of a long generation.
+ *
+ * File format, all values are big endian as written by DataOutputStream:
+ * MAGIC, FORMAT_VERSION, width, height, number of dropped records (a long),
+ * number of records, then two ints per record.
+ *
+ * @author Katson, Andrew
+ */
+public class CellsJournal {
+	// operations, stored in the lowest 4 bits of the first int of a record
+	public static final int INITIALIZE = 0; // Cells.initialize(), position is 0
+	public static final int DELETE_WALL = 1; // Cells.deleteWall(), position is the packed wall
+	public static final int ADD_WALL = 2; // Cells.addWall(), position is the packed wall, detail is 1 for an internal wall
+	public static final int VISIT = 3; // Cells.setCellAsVisited(), position is the cell
+	public static final int EXIT = 4; // Cells.setExitPosition(), position is the cell
+	public static final int IN_ROOM = 5; // Cells.setInRoomToOne(), position is the cell
+	public static final int ROOM = 6; // Cells.markAreaAsRoom(), position is the upper left corner
+	public static final int ROOM_CORNER = 7; // follows ROOM, position is the lower right corner
+	public static final int DELETE_BOUND = 8; // a door of a room, position is the packed wall
+	static final int OPERATION_BITS = 4;
+	static final int OPERATION_MASK = (1 << OPERATION_BITS) - 1;
+
+	static final int MAGIC = 0x4d5a4a4c; // "MZJL"
+	static final int FORMAT_VERSION = 1;
+	private static final int INITIAL_RECORDS = 256;
+
+	private final int width;
+	private final int height;
+	private final int capacity; // maximum number of records kept
+	private int[] records; // ring buffer, two ints per record
+	private int first; // position of the oldest record in the ring buffer, counted in records
+	private int size; // number of records kept
+	private long dropped; // number of records dropped since the journal was created
+
+	/**
+	 * Constructor for a journal that keeps all records.
+	 * @param w width of the cells
+	 * @param h height of the cells
+	 */
+	public CellsJournal(int w, int h) {
+		this(w, h, Integer.MAX_VALUE / 2);
+	}
+
+	/**
+	 * Constructor for a journal that keeps the given number of most recent records.
+	 * @param w width of the cells
+	 * @param h height of the cells
+	 * @param capacity maximum number of records, 0 < capacity <= Integer.MAX_VALUE/2
+	 */
+	public CellsJournal(int w, int h, int capacity) {
+		if (capacity <= 0 || capacity > Integer.MAX_VALUE / 2)
+			throw new IllegalArgumentException("CellsJournal: capacity out of range: " + capacity);
+		width = w;
+		height = h;
+		this.capacity = capacity;
+		records = new int[2 * Math.min(capacity, INITIAL_RECORDS)];
+	}
+
+	/**
+	 * Appends a record, drops the oldest one if the journal is at its capacity.
+	 * Records from several threads are kept in the order they arrive, which depends on scheduling,
+	 * so MazeBuilderParallel records each tile in a journal of its own and appends them with append.
+	 * @param operation one of the operations above
+	 * @param detail operation specific, 0 if not used
+	 * @param position packed position
+	 */
+	synchronized void record(int operation, int detail, int position) {
+		if (size == capacity) {
+			first = (first + 1) % capacity; // the ring buffer has grown to its capacity
+			size--;
+			dropped++;
+		}
+		else if (2 * size == records.length) {
+			grow();
+		}
+		final int i = 2 * ((first + size) % (records.length / 2));
+		records[i] = operation | (detail << OPERATION_BITS);
+		records[i + 1] = position;
+		size++;
+	}
+
+	/**
+	 * Appends all records kept by another journal, oldest first, as if they were recorded here.
+	 * @param other journal, e.g. of a tile of MazeBuilderParallel
+	 */
+	synchronized void append(CellsJournal other) {
+		final int[] copy = other.toArray();
+		for (int i = 0; i < copy.length; i += 2) {
+			record(copy[i] & OPERATION_MASK, copy[i] >>> OPERATION_BITS, copy[i + 1]);
+		}
+	}
+
+	/**
+	 * Doubles the ring buffer up to the capacity, the oldest record moves to the start.
+	 */
+	private void grow() {
+		final int[] larger = new int[2 * (int) Math.min(capacity, 2L * size)];
+		final int n = records.length / 2;
+		for (int r = 0; r < size; r++) {
+			final int from = 2 * ((first + r) % n);
+			larger[2 * r] = records[from];
+			larger[2 * r + 1] = records[from + 1];
+		}
+		records = larger;
+		first = 0;
+	}
+
+	/**
+	 * Gives the number of records kept.
+	 * @return number of records
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Gives the number of records that were dropped because the journal was at its capacity.
+	 * @return number of records, 0 if the journal is complete and can be replayed from the start
+	 */
+	public synchronized long getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * @return width of the cells the journal recorded
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return height of the cells the journal recorded
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Gives the operation of a record.
+	 * @param r index of the record, 0 for the oldest one kept
+	 * @return operation, e.g. DELETE_WALL
+	 */
+	public synchronized int getOperation(int r) {
+		return records[slot(r)] & OPERATION_MASK;
+	}
+
+	/**
+	 * Gives the operation specific detail of a record.
+	 * @param r index of the record, 0 for the oldest one kept
+	 * @return detail
+	 */
+	public synchronized int getDetail(int r) {
+		return records[slot(r)] >>> OPERATION_BITS;
+	}
+
+	/**
+	 * Gives the position of a record, decode it with PackedWall.
+	 * @param r index of the record, 0 for the oldest one kept
+	 * @return packed position
+	 */
+	public synchronized int getPosition(int r) {
+		return records[slot(r) + 1];
+	}
+
+	/**
+	 * Gives the position of a record in the ring buffer.
+	 * @param r index of the record
+	 * @return index of its first int
+	 */
+	private int slot(int r) {
+		if (r < 0 || r >= size)
+			throw new IndexOutOfBoundsException("CellsJournal: no record " + r + ", size " + size);
+		return 2 * ((first + r) % (records.length / 2));
+	}
+
+	/**
+	 * Applies the records from index from inclusive to index to exclusive to the given cells,
+	 * e.g. to replay a generation step by step. Cells that are replayed from the first record
+	 * of a complete journal end up equal to the cells the journal recorded.
+	 * Rooms are replayed as a whole with the record that completes them, i.e. with ROOM_CORNER.
+	 * @param cells to change, their own journal does not record the replayed changes
+	 * @param from index of the first record
+	 * @param to index after the last record
+	 */
+	public synchronized void replay(Cells cells, int from, int to) {
+		if (0 <= from && from < to)
+			slot(to - 1); // checks the range
+		final CellsJournal own = cells.getJournal();
+		cells.setJournal(null);
+		try {
+			for (int r = from; r < to; r++) {
+				final int i = slot(r);
+				final int operation = records[i] & OPERATION_MASK;
+				if (ROOM == operation)
+					continue; // applied with its ROOM_CORNER record
+				int corner = 0;
+				if (ROOM_CORNER == operation) {
+					if (0 == r || ROOM != (records[slot(r - 1)] & OPERATION_MASK))
+						continue; // the ROOM record was dropped
+					corner = records[slot(r - 1) + 1];
+				}
+				cells.apply(operation, records[i] >>> OPERATION_BITS, records[i + 1], corner);
+			}
+		} finally {
+			cells.setJournal(own);
+		}
+	}
+
+	/**
+	 * Compares the records of two journals, e.g. of two builds of the same maze.
+	 * @param other journal
+	 * @return index of the first record that differs, -1 if both journals have the same records
+	 */
+	public int firstDifference(CellsJournal other) {
+		final int[] mine = toArray();
+		final int[] theirs = other.toArray();
+		final int n = Math.min(mine.length, theirs.length);
+		for (int i = 0; i < n; i++) {
+			if (mine[i] != theirs[i])
+				return i / 2;
+		}
+		return (mine.length == theirs.length) ? -1 : n / 2;
+	}
+
+	/**
+	 * Gives a copy of the records, oldest first, two ints per record.
+	 * @return records
+	 */
+	private synchronized int[] toArray() {
+		final int[] result = new int[2 * size];
+		final int n = records.length / 2;
+		for (int r = 0; r < size; r++) {
+			final int from = 2 * ((first + r) % n);
+			result[2 * r] = records[from];
+			result[2 * r + 1] = records[from + 1];
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the journal to the given file.
+	 * @param file
+	 * @throws IOException if the file can not be written
+	 */
+	public void save(File file) throws IOException {
+		final int[] copy;
+		final long droppedCopy;
+		synchronized (this) {
+			copy = toArray();
+			droppedCopy = dropped;
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(width);
+			out.writeInt(height);
+			out.writeLong(droppedCopy);
+			out.writeInt(copy.length / 2);
+			for (int value : copy) {
+				out.writeInt(value);
+			}
+		}
+	}
+
+	/**
+	 * Writes the deleted walls in the text format of the wall log of Cells, see Cells.deepdebugWall:
+	 * a header line, then one line "x y dx dy" per deleted wall in the order of deletion.
+	 * @param file
+	 * @throws IOException if the file can not be written
+	 */
+	public void saveDeletedWalls(File file) throws IOException {
+		final int[] copy = toArray();
+		try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+			out.write("x  y  dx  dy\n");
+			for (int i = 0; i < copy.length; i += 2) {
+				if (DELETE_WALL != (copy[i] & OPERATION_MASK))
+					continue;
+				final int wall = copy[i + 1];
+				out.write(PackedWall.getX(wall) + " " + PackedWall.getY(wall) + " "
+						+ PackedWall.getDx(wall) + " " + PackedWall.getDy(wall) + "\n");
+			}
+		}
+	}
+
+	/**
+	 * Reads a journal that was written with save.
+	 * @param file
+	 * @return journal with the records of the file
+	 * @throws IOException if the file can not be read or is not a journal
+	 */
+	public static CellsJournal load(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (MAGIC != in.readInt() || FORMAT_VERSION != in.readInt())
+				throw new IOException("CellsJournal: not a journal file: " + file);
+			final int w = in.readInt();
+			final int h = in.readInt();
+			final long dropped = in.readLong();
+			final int n = in.readInt();
+			if (n < 0 || n > Integer.MAX_VALUE / 2)
+				throw new IOException("CellsJournal: invalid number of records " + n + " in " + file);
+			final CellsJournal result = new CellsJournal(w, h, Math.max(1, n));
+			result.records = new int[2 * Math.max(1, n)];
+			for (int i = 0; i < 2 * n; i++) {
+				result.records[i] = in.readInt();
+			}
+			result.size = n;
+			result.dropped = dropped;
+			return result;
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "CellsJournal " + width + "x" + height + ": " + size + " records, " + dropped + " dropped";
+	}
+}
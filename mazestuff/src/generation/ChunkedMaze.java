@@ -0,0 +1,198 @@
+package generation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import generation.Order.Builder;
+
+/**
+ * This class provides an endless maze for exploration.
+ * The plane is split into square chunks of a fixed size. A chunk is generated when it is
+ * first accessed, e.g. as the player or a robot approaches it, and dropped when it has not
+ * been used for a while, so memory stays the same no matter how far the player travels.
+ *
+ * Each chunk is carved with the given builder algorithm as a maze of its own, as the tiles
+ * in MazeBuilderParallel. Its random number stream is derived from the seed of the maze and
+ * the chunk coordinates, so a chunk that was dropped is generated again exactly as before.
+ * Neighboring chunks are connected by a door on their common edge. The position of a door
+ * is derived from the seed and the coordinates of the edge, so both chunks agree on it
+ * without either of them being generated. The cells of a chunk have walls all around,
+ * the doors are only known to this class, so moves should be checked with hasWall.
+ *
+ * Coordinates are global and can be negative, chunk (cx,cy) holds
+ * positions cx*chunkSize <= x < (cx+1)*chunkSize and cy*chunkSize <= y < (cy+1)*chunkSize.
+ *
+ * @author Katson, Andrew
+ */
+public class ChunkedMaze {
+	static final int DEFAULT_CHUNK_SIZE = 32; // number of cells along each side of a chunk if not specified
+	static final int DEFAULT_MAX_CHUNKS = 64; // number of chunks kept in memory if not specified
+	static final long EAST_DOORS = 0x5851f42d4c957f2dL; // distinguishes doors on east edges from doors on south edges
+	static final long SOUTH_DOORS = 0x14057b7ef767814fL;
+
+	private final long seed; // all chunks and doors are derived from this seed
+	private final Builder builder; // algorithm to carve chunks with
+	private final int chunkSize; // number of cells along each side of a chunk
+	private final int maxChunks; // number of chunks kept in memory
+	// chunks in memory, iteration order is from least recently to most recently used chunk
+	private final LinkedHashMap<Long, Cells> chunks;
+	private long generatedChunks; // number of times a chunk was generated, including chunks generated again
+
+	/**
+	 * Constructor with default chunk size and memory bound.
+	 * @param seed determines the maze
+	 * @param builder is the algorithm to carve chunks with
+	 */
+	public ChunkedMaze(long seed, Builder builder) {
+		this(seed, builder, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_CHUNKS);
+	}
+
+	/**
+	 * Constructor
+	 * @param seed determines the maze
+	 * @param builder is the algorithm to carve chunks with
+	 * @param chunkSize is the number of cells along each side of a chunk, 1 < chunkSize
+	 * @param maxChunks is the number of chunks kept in memory, 9 <= maxChunks such that the
+	 * neighborhood of a position fits, see prefetch
+	 */
+	public ChunkedMaze(long seed, Builder builder, int chunkSize, final int maxChunks) {
+		this.seed = seed;
+		this.builder = builder;
+		this.chunkSize = chunkSize;
+		this.maxChunks = maxChunks;
+		chunks = new LinkedHashMap<Long, Cells>(2 * maxChunks, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Cells> eldest) {
+				return size() > maxChunks;
+			}
+		};
+	}
+
+	/**
+	 * Tells if there is a wall at the given position in the given direction.
+	 * The chunks on both sides of the wall agree on it.
+	 * @param x coordinate of the position
+	 * @param y coordinate of the position
+	 * @param dir direction of the wall
+	 * @return true if one can not move from (x,y) in the given direction
+	 */
+	public boolean hasWall(int x, int y, CardinalDirection dir) {
+		final int cx = getChunkCoordinate(x);
+		final int cy = getChunkCoordinate(y);
+		final int lx = x - cx * chunkSize;
+		final int ly = y - cy * chunkSize;
+		final int nx = lx + dir.getDx();
+		final int ny = ly + dir.getDy();
+		if (0 <= nx && nx < chunkSize && 0 <= ny && ny < chunkSize) {
+			return getChunk(cx, cy).hasWall(lx, ly, dir);
+		}
+		// the move crosses the edge of the chunk, only a door lets one through
+		switch (dir) {
+		case East:
+			return ly != getDoor(cx, cy, true);
+		case West:
+			return ly != getDoor(cx-1, cy, true);
+		case South:
+			return lx != getDoor(cx, cy, false);
+		case North:
+		default:
+			return lx != getDoor(cx, cy-1, false);
+		}
+	}
+
+	/**
+	 * Makes sure the chunk with the given position and its eight neighbors are in memory,
+	 * such that a player at that position does not wait for a chunk to be generated
+	 * when it moves on.
+	 * @param x coordinate of the position
+	 * @param y coordinate of the position
+	 */
+	public void prefetch(int x, int y) {
+		final int cx = getChunkCoordinate(x);
+		final int cy = getChunkCoordinate(y);
+		for (int dy = -1; dy <= 1; dy++) {
+			for (int dx = -1; dx <= 1; dx++) {
+				getChunk(cx+dx, cy+dy);
+			}
+		}
+		// use the chunk of the position last, so it is the last one to be dropped
+		getChunk(cx, cy);
+	}
+
+	/**
+	 * Gives the cells of a chunk, the chunk is generated if it is not in memory.
+	 * @param cx chunk coordinate along the x axis
+	 * @param cy chunk coordinate along the y axis
+	 * @return cells of the chunk with walls all around, do not modify
+	 */
+	public synchronized Cells getChunk(int cx, int cy) {
+		final Long key = ((long) cx << 32) | (cy & 0xffffffffL);
+		Cells chunk = chunks.get(key);
+		if (null == chunk) {
+			chunk = new FrozenCells(generateChunk(cx, cy)); // chunks are only read, keep them compact
+			generatedChunks++;
+			chunks.put(key, chunk);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Gives the coordinate of the chunk that holds the given coordinate.
+	 * @param x coordinate of a position along one axis
+	 * @return chunk coordinate along that axis
+	 */
+	public int getChunkCoordinate(int x) {
+		return Math.floorDiv(x, chunkSize);
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Gives the number of chunks in memory.
+	 * @return number of chunks, at most the bound given to the constructor
+	 */
+	public synchronized int getNumberOfChunks() {
+		return chunks.size();
+	}
+
+	/**
+	 * Gives the number of times a chunk was generated.
+	 * @return number of generated chunks, a chunk that was dropped and generated again counts twice
+	 */
+	public synchronized long getNumberOfGeneratedChunks() {
+		return generatedChunks;
+	}
+
+	/**
+	 * Carves a chunk as a maze of its own.
+	 * @param cx chunk coordinate along the x axis
+	 * @param cy chunk coordinate along the y axis
+	 * @return cells of the chunk
+	 */
+	protected Cells generateChunk(int cx, int cy) {
+		final MazeBuilder chunkBuilder = MazeBuilderParallel.createTileBuilder(builder,
+				SingleRandom.newStream(MazeBuilderParallel.getTileSeed(seed, cx, cy)));
+		chunkBuilder.setWidth(chunkSize);
+		chunkBuilder.setHeight(chunkSize);
+		chunkBuilder.cells = new Cells(chunkSize, chunkSize);
+		chunkBuilder.cells.initialize();
+		chunkBuilder.generatePathways();
+		return chunkBuilder.cells;
+	}
+
+	/**
+	 * Gives the position of the door on an edge of a chunk.
+	 * @param cx chunk coordinate along the x axis
+	 * @param cy chunk coordinate along the y axis
+	 * @param east is true for the edge to chunk (cx+1,cy), false for the edge to chunk (cx,cy+1)
+	 * @return local coordinate of the door along the edge, 0 <= door < chunkSize
+	 */
+	protected int getDoor(int cx, int cy, boolean east) {
+		final long edgeSeed = MazeBuilderParallel.getTileSeed(seed ^ (east ? EAST_DOORS : SOUTH_DOORS), cx, cy);
+		return (int) Math.floorMod(edgeSeed, (long) chunkSize);
+	}
+}
@@ -0,0 +1,170 @@
+package generation;
+
+import java.util.Arrays;
+
+/**
+ * This class keeps a grid of cells in pages for a single writer and any number of readers on other threads.
+ * The writer updates the cells as usual with all methods of Cells and calls publish to make its updates visible.
+ * Readers call getSnapshot and get an immutable view of the cells as of the last publish,
+ * a consistent state that does not change while they work on it, without any locks.
+ *
+ * A snapshot shares all pages with the writer, the writer copies a page the first time
+ * it changes it after a publish (copy on write). Publishing copies the table of pages only,
+ * so frequent publishes of a few updates, e.g. once per frame, are cheap.
+ * Each publish with updates increments a version number, such that readers can tell if there is anything new.
+ *
+ * Subclasses decide what a page is and how cells are placed in pages, see VersionedCells and SeenCells.
+ * A page may be null until it is first changed, readers then take its cells as zero.
+ *
+ * @param <P> type of a page, e.g. an array of cell values
+ * @param <S> type of the snapshots
+ * @author Katson, Andrew
+ */
+public abstract class CopyOnWriteCells<P, S extends CopyOnWriteCells.Snapshot> extends Cells {
+	private final P[] pages; // pages of the writer, some of them shared with the last snapshot
+	private final boolean[] shared; // true if the page belongs to the last snapshot and must be copied before a change
+	private boolean changed; // true if there are updates since the last publish
+	private volatile S snapshot; // the last published state, the only field readers use
+
+	/**
+	 * Constructor
+	 * @param w width
+	 * @param h height
+	 * @param pages initial pages of the writer, the first snapshot shares them
+	 */
+	protected CopyOnWriteCells(int w, int h, P[] pages) {
+		super(w, h, false);
+		this.pages = pages;
+		shared = new boolean[pages.length];
+		Arrays.fill(shared, true);
+		snapshot = createSnapshot(pages.clone(), 0);
+	}
+
+	/**
+	 * Creates a snapshot on the given pages. Called from the constructor as well,
+	 * so it must only use its arguments and the width and height of Cells.
+	 * @param pages of the snapshot, never changed
+	 * @param version number of publishes with updates before this one
+	 * @return snapshot
+	 */
+	protected abstract S createSnapshot(P[] pages, long version);
+
+	/**
+	 * Creates a page whose cells are all zero, for a page that is null so far.
+	 * @param p number of the page
+	 * @return page
+	 */
+	protected abstract P createPage(int p);
+
+	/**
+	 * Copies a page before the writer changes it.
+	 * @param page to copy
+	 * @return copy
+	 */
+	protected abstract P copyPage(P page);
+
+	/**
+	 * Makes all updates since the last publish visible to readers.
+	 * To be called by the writer only.
+	 * @return the new snapshot, or the last one if there were no updates
+	 */
+	public S publish() {
+		if (!changed)
+			return snapshot;
+		final S result = createSnapshot(pages.clone(), snapshot.getVersion() + 1);
+		Arrays.fill(shared, true);
+		changed = false;
+		snapshot = result; // volatile write, readers see the pages of the snapshot as they are now
+		return result;
+	}
+
+	/**
+	 * Gives the cells as of the last publish, may be called from any thread.
+	 * @return an immutable view of the cells
+	 */
+	public S getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Gives a page of the writer to read from.
+	 * @param p number of the page
+	 * @return page, may be null if it was never changed
+	 */
+	protected final P getPage(int p) {
+		return pages[p];
+	}
+
+	/**
+	 * Gives a page the writer may change, creates it if it is null
+	 * and copies it first if it belongs to the last snapshot.
+	 * @param p number of the page
+	 * @return page
+	 */
+	protected final P writablePage(int p) {
+		if (null == pages[p])
+			pages[p] = createPage(p);
+		else if (shared[p])
+			pages[p] = copyPage(pages[p]);
+		shared[p] = false;
+		changed = true;
+		return pages[p];
+	}
+
+	@Override
+	protected boolean hasMaskedBitsTrue(int x, int y, int bitmask) {
+		return (getValueOfCell(x, y) & bitmask) != 0;
+	}
+
+	@Override
+	protected boolean hasMaskedBitsFalse(int x, int y, int bitmask) {
+		return (getValueOfCell(x, y) & bitmask) == 0;
+	}
+
+	/**
+	 * An immutable view of the cells as of a publish.
+	 * All queries of Cells work on it, all updates throw an UnsupportedOperationException.
+	 */
+	public abstract static class Snapshot extends Cells {
+		private final long version;
+
+		/**
+		 * Constructor
+		 * @param w width
+		 * @param h height
+		 * @param version number of publishes with updates before this one
+		 */
+		protected Snapshot(int w, int h, long version) {
+			super(w, h, false);
+			this.version = version;
+		}
+
+		/**
+		 * Gives the version of the snapshot, 0 for the cells before the first update.
+		 * @return version, a later snapshot has a larger version
+		 */
+		public long getVersion() {
+			return version;
+		}
+
+		@Override
+		protected void setBitToZero(int x, int y, int bitmask) {
+			throw new UnsupportedOperationException("CopyOnWriteCells: a snapshot is read only");
+		}
+
+		@Override
+		protected void setBitToOne(int x, int y, int bitmask) {
+			throw new UnsupportedOperationException("CopyOnWriteCells: a snapshot is read only");
+		}
+
+		@Override
+		protected boolean hasMaskedBitsTrue(int x, int y, int bitmask) {
+			return (getValueOfCell(x, y) & bitmask) != 0;
+		}
+
+		@Override
+		protected boolean hasMaskedBitsFalse(int x, int y, int bitmask) {
+			return (getValueOfCell(x, y) & bitmask) == 0;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package generation;
+
+/**
+ * Disjoint-set (union-find) data structure over the integer elements 0,1,...,n-1.
+ * Each element starts out in a set of its own. Sets can be merged with union and
+ * the set an element belongs to is identified by its representative obtained with find.
+ *
+ * The implementation operates on primitive arrays only. It uses union by rank
+ * to keep trees flat and path compression on find, such that a sequence of
+ * operations runs in nearly constant amortized time per operation.
+ *
+ * It is used by MazeBuilderKruskal to keep track of spanning trees of cells
+ * where a cell at position (x,y) is mapped to element x*height+y.
+ *
+ * @author Katson, Andrew
+ */
+public class DisjointSets {
+	private final int[] parent; // parent[i] is the parent of element i, a representative is its own parent
+	private final int[] rank; // rank[i] is an upper bound for the height of the tree rooted at i
+	private int count; // current number of disjoint sets
+
+	/**
+	 * Constructor, puts each element in a set of its own.
+	 * @param size is the number of elements
+	 * @precondition 0 <= size
+	 */
+	public DisjointSets(int size) {
+		parent = new int[size];
+		rank = new int[size];
+		reset();
+	}
+
+	/**
+	 * Puts each element back in a set of its own.
+	 * Allows to reuse the arrays instead of allocating a new instance.
+	 */
+	public void reset() {
+		for (int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+			rank[i] = 0;
+		}
+		count = parent.length;
+	}
+
+	/**
+	 * Gives the representative of the set that contains the given element.
+	 * Compresses the path such that all elements visited on the way point
+	 * directly to the representative afterwards.
+	 * @param i is the element, 0 <= i < size
+	 * @return the representative of the set that contains i
+	 */
+	public int find(int i) {
+		// first pass: locate the root
+		int root = i;
+		while (parent[root] != root) {
+			root = parent[root];
+		}
+		// second pass: let every element on the path point to the root
+		while (parent[i] != root) {
+			int next = parent[i];
+			parent[i] = root;
+			i = next;
+		}
+		return root;
+	}
+
+	/**
+	 * Merges the sets that contain the given elements.
+	 * The root with the smaller rank is attached to the root with the larger rank.
+	 * @param i is an element, 0 <= i < size
+	 * @param j is an element, 0 <= j < size
+	 * @return true if two different sets were merged, false if i and j already were in the same set
+	 */
+	public boolean union(int i, int j) {
+		int rootI = find(i);
+		int rootJ = find(j);
+		if (rootI == rootJ)
+			return false;
+		if (rank[rootI] < rank[rootJ]) {
+			parent[rootI] = rootJ;
+		}
+		else if (rank[rootI] > rank[rootJ]) {
+			parent[rootJ] = rootI;
+		}
+		else {
+			parent[rootJ] = rootI;
+			rank[rootI]++;
+		}
+		count--;
+		return true;
+	}
+
+	/**
+	 * Tells if the given elements belong to the same set.
+	 * @param i is an element, 0 <= i < size
+	 * @param j is an element, 0 <= j < size
+	 * @return true if i and j have the same representative, false otherwise
+	 */
+	public boolean connected(int i, int j) {
+		return find(i) == find(j);
+	}
+
+	/**
+	 * Gives the number of elements.
+	 * @return the number of elements
+	 */
+	public int size() {
+		return parent.length;
+	}
+
+	/**
+	 * Gives the current number of disjoint sets.
+	 * @return the number of sets, which is 1 once all elements are merged into a single set
+	 */
+	public int getNumberOfSets() {
+		return count;
+	}
+}
@@ -163,70 +163,47 @@ public class Distance {
 
 	/**
 	 * Computes distances to the given position (ax,ay) for all cells in array dists.
+	 * Cells are visited in breadth first order, so each cell receives its final value
+	 * when it is reached for the first time. Positions are kept in an int array as x*height+y,
+	 * each position enters it at most once.
 	 * @param cells provide information on walls between positions
 	 * @param ax, position, x coordinate
 	 * @param ay, position, y coordinate
+	 * @param cancellation is checked every CancellationToken.CHECKPOINT_INTERVAL positions
 	 */
-	private void computeDists(Cells cells, int ax, int ay) {
-		int x, y;
+	private void computeDists(Cells cells, int ax, int ay, CancellationToken cancellation) {
 		// initialize the distance array with a value for infinity 
 		setAllDistanceValues(INFINITY) ;
 		// set the final distance at the exit position
 		dists[ax][ay] = 1;
-		// distribute values from this position to get started
-		pushDistanceValuesDFS2(cells, ax, ay);
-		int toDoCounter = countInfinity();
-		int progress; // used to recognize fixpoint, no progress, then stop
-		// go over this array as long as we can find something to do
-		// MEMO: there are likely to be much smarter ways to distribute distances in a breadth first manner...
-		// why not push identified cells with infinite distance on a "work to do" heap
-		// TODO: limit iterations to upperbound which is #cells == width * height
-		// in each iteration at least one cell should benefit from neighbor
-		// in each iteration at least one cell should receive its final value
-		// TODO: do a final checkup for enclosed areas left over with Max Int
-		do {
-			// check all entries in the distance array
-			for (x = 0; x != width; x++) {
-				for (y = 0; y != height; y++) 
-				{
-					if (dists[x][y] == INFINITY) {
-						continue;
-					}
-					// if the distance is not infinite, 
-					// let's see if the cell has a neighbor that we can update and 
-					// perform a depth first search on.
-					pushDistanceValuesDFS2(cells, x, y);
+		final int[] queue = new int[width * height];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = ax * height + ay;
+		while (head < tail) {
+			if (0 == (head & CancellationToken.CHECKPOINT_INTERVAL-1))
+				cancellation.checkpoint();
+			final int x = queue[head] / height;
+			final int y = queue[head] % height;
+			head++;
+			final int nextDistance = dists[x][y] + 1; // distance of a neighbor
+			for (int d = 0; d < 4; d++) {
+				if (!cells.hasNoWall(x, y, CardinalDirection.fromIndex(d)))
+					continue;
+				final int nextX = x + CardinalDirection.DX[d];
+				final int nextY = y + CardinalDirection.DY[d];
+				// check if cell at (nextX,nextY) is within bounds and not reached yet
+				if ((0 <= nextX && nextX < width) && (0 <= nextY && nextY < height)
+						&& dists[nextX][nextY] == INFINITY) {
+					dists[nextX][nextY] = nextDistance;
+					queue[tail++] = nextX * height + nextY;
 				}
 			}
-			progress = toDoCounter - countInfinity();
-			toDoCounter -= progress; // update to current value
-		} while (0 < progress);
+		}
 		assert (0 == countInfinity()) : 
 			"All positions should have a finite distance to the exit";
-		// the computation is not good enough to have truly minimum values
-		saturateDistances(cells);
-	}
-	/**
-	 * Follows a path as far as possible to push small distance values
-	 * into the maze
-	 * @param cells needed for checking walls, read only
-	 * @param sx starting position
-	 * @param sy starting position
-	 */
-	private void pushDistanceValuesDFS2(Cells cells, int sx, int sy) {
-		while (true) {
-			CardinalDirection nextn = updateNeighborDistancesAndDirection(cells, sx, sy);
-			if (nextn == null)
-				break; // exit the loop if we cannot find another cell to proceed with
-			// update coordinates for next cell
-			int[] dir = nextn.getDirection();
-			sx += dir[0];
-			sy += dir[1];
-			// follow the nextn node on a depth-first-search path
-		}
 	}
 
-	
 	/**
 	 * Sets all values in dists to given value
 	 * @param value
@@ -253,83 +230,27 @@ public class Distance {
 		return result;
 	}
 	/**
-	 * Updates distance values for adjacent cells that are reachable
-	 * if value can be reduced to current distance plus 1. 
-	 * @param cells
-	 * @param currentX x coordinate of current position
-	 * @param currentY y coordinate of current position
-	 * @return direction for a neighbor that has been updated or null if there is none
-	 */
-	private CardinalDirection updateNeighborDistancesAndDirection(Cells cells, int currentX, int currentY) {
-		CardinalDirection result = null; // returns null by default
-		int nextDistance = dists[currentX][currentY] + 1; // distance of a neighbor
-		int[] dir;
-		int nextX;
-		int nextY;
-		// check all four directions, update distance as needed
-		for (CardinalDirection cd: CardinalDirection.values()) {
-			// check for reachable neighbors
-			if (cells.hasNoWall(currentX, currentY, cd)) {
-				// check if neighbor is on board
-				dir = cd.getDirection();
-				nextX = currentX+dir[0];
-				nextY = currentY+dir[1];
-				// check if cell at (nextX,nextY) is within bounds
-				if ((0 <= nextX && nextX < width) && (0 <= nextY && nextY < height)) {
-					// check if neigbor's distance needs update
-					if (dists[nextX][nextY] > nextDistance) {
-						// update the neighbor's distance value
-						// mark that cell as the next one
-						dists[nextX][nextY] = nextDistance;
-						result = cd;
-					}
-				}
-			}
-		}
-		return result;
-	}
-	
-	/**
-	 * Fixpoint iteration on distance matrix.
+	 * Compute distances for given cells object of a maze
+	 * @param cells with maze
+	 * @return exit position somewhere on the  border
 	 */
-	private void saturateDistances(Cells cells) {
-		boolean progress = false; 
-		int count = 0;
-		int[] dir = null;
-		CardinalDirection nextn;
-		do {
-			progress = false; // reset termination criterion
-			// go through all positions
-			// check if we can update a neighbor to 
-			// a shorter distance, if so we made progress
-			for (int x = 0; x < width; x++) {
-				for (int y = 0; y < height; y++) {
-					nextn = 	updateNeighborDistancesAndDirection(cells, x, y);
-					if (null != nextn) {
-						progress = true; // something changed
-						// follow neighbor on a depth-first-search path
-						dir = nextn.getDirection();
-						pushDistanceValuesDFS2(cells, x+dir[0], y+dir[1]);		
-					}
-				}
-			}
-			count++;
-		} while (progress);
-		//System.out.println("Distance.saturate: #iterations needed " + count);
+	public int[] computeDistances(Cells cells) {
+		return computeDistances(cells, new CancellationToken());
 	}
 	/**
 	 * Compute distances for given cells object of a maze
 	 * @param cells with maze
+	 * @param cancellation is checked regularly, the computation stops with a CancellationException once it is cancelled
 	 * @return exit position somewhere on the  border
 	 */
-	public int[] computeDistances(Cells cells) {
+	public int[] computeDistances(Cells cells, CancellationToken cancellation) {
 		// compute temporary distances for a starting point (x,y) = (width/2,height/2) 
 		// which is located in the center of the maze
-		computeDists(cells, width/2, height/2);
+		computeDists(cells, width/2, height/2, cancellation);
 		// figure out which position is the furthest on the border to find an exit position
 		exitposition = getPositionWithMaxDistanceOnBorder();
 		// recompute distances for an exit point (x,y) = (remotex,remotey)
-		computeDists(cells, exitposition[0], exitposition[1]);
+		computeDists(cells, exitposition[0], exitposition[1], cancellation);
 
 		return exitposition ;
 	}
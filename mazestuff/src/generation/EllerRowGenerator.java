@@ -0,0 +1,188 @@
+package generation;
+
+import java.util.Arrays;
+
+/**
+ * Eller's algorithm to carve a maze one row at a time.
+ * The generator only remembers the set membership of the cells in the current row,
+ * so its memory is proportional to the width of the maze and independent of its height.
+ * A client hands over one row after the other, the generator decides which walls
+ * to the east and to the south of each cell are taken down and the row is final
+ * as soon as carveRow returns. Rows can be consumed right away, e.g. written to a file
+ * or handed to the next stage of a pipeline, before the next row is generated.
+ *
+ * A row is an array of cell values in the Cells encoding. Only the east wall (CW_RIGHT)
+ * and the south wall (CW_BOT) of each cell are considered, west and north walls
+ * follow from the neighbors. A wall bit of 0 on input means the cells are already connected,
+ * e.g. inside a room, a bound bit of 1 means the wall must stay up. The border around
+ * the maze is implicit, the east wall of the last cell and the south walls of the last row
+ * are never taken down.
+ *
+ * Cells that share a set are connected by a path. In each row, adjacent cells of different sets
+ * are joined at random, then each set continues to the next row through at least one opening
+ * to the south. The last row joins all remaining sets. Without bounds the result is a perfect maze.
+ * Bounds (around rooms) may keep a set from continuing or from being joined in the last row,
+ * isConnected() tells if that happened.
+ *
+ * @author Katson, Andrew
+ */
+public class EllerRowGenerator {
+	private static final int EAST_BOUND = Cells.CW_RIGHT << Cells.CW_BOUND_SHIFT;
+	private static final int SOUTH_BOUND = Cells.CW_BOT << Cells.CW_BOUND_SHIFT;
+
+	private final int width;
+	private final SingleRandom random;
+	// set ids are in the range 0..width-1, a row can not hold more sets than cells
+	private int[] sets; // sets[x] is the set id of cell x in the current row, -1 if not connected to the row above
+	private int[] nextSets; // set ids carried over to the next row, swapped with sets after each row
+	private int freeId; // smallest set id that is not used by a cell carried over from the row above
+	private final DisjointSets rowSets; // joins set ids within the current row
+	// per set id of the current row, valid for representatives of rowSets only
+	private final int[] candidates; // number of cells that could open to the south
+	private final int[] chosen; // a candidate picked uniformly at random, -1 if there is none
+	private final boolean[] continues; // true if the set has an opening to the south
+	private final int[] renumber; // maps representatives to compact ids for the next row
+	private boolean connected; // false once a set got cut off by bounds
+
+	/**
+	 * Constructor
+	 * @param width is the number of cells in a row, 0 < width
+	 * @param random provides the random decisions
+	 */
+	public EllerRowGenerator(int width, SingleRandom random) {
+		this.width = width;
+		this.random = random;
+		sets = new int[width];
+		nextSets = new int[width];
+		rowSets = new DisjointSets(width);
+		candidates = new int[width];
+		chosen = new int[width];
+		continues = new boolean[width];
+		renumber = new int[width];
+		reset();
+	}
+
+	/**
+	 * Prepares the generator to start a new maze with its first row.
+	 */
+	public void reset() {
+		Arrays.fill(sets, -1);
+		freeId = 0;
+		connected = true;
+	}
+
+	/**
+	 * Takes down walls in the given row.
+	 * @param row holds the values of the cells of the current row from west to east,
+	 * wall bits of walls that are taken down are set to zero
+	 * @param lastRow is true for the last row of the maze
+	 * @precondition row.length == width
+	 */
+	public void carveRow(int[] row, boolean lastRow) {
+		assert (row.length == width) : "Row has " + row.length + " cells instead of " + width;
+		rowSets.reset();
+		// cells that are not connected to the row above start out in a set of their own
+		for (int x = 0; x < width; x++) {
+			if (sets[x] < 0)
+				sets[x] = freeId++;
+		}
+		joinHorizontally(row, lastRow);
+		if (lastRow) {
+			// all cells of the last row must end up in the same set
+			int root = rowSets.find(sets[0]);
+			for (int x = 1; x < width; x++) {
+				if (rowSets.find(sets[x]) != root)
+					connected = false;
+			}
+		}
+		else {
+			joinVertically(row);
+		}
+	}
+
+	/**
+	 * Tells if all cells generated since the last reset are connected.
+	 * This is always true without bounds. Bounds can prevent a set from reaching the next row
+	 * or from being joined in the last row, then the maze consists of several disconnected parts.
+	 * @return true if all cells are connected so far, false otherwise
+	 */
+	public boolean isConnected() {
+		return connected;
+	}
+
+	/**
+	 * Joins adjacent cells of different sets within the row.
+	 * Cells without a wall in between always belong to the same set,
+	 * other walls go down at random, in the last row all walls between different sets go down.
+	 */
+	private void joinHorizontally(int[] row, boolean lastRow) {
+		for (int x = 0; x < width-1; x++) {
+			int a = rowSets.find(sets[x]);
+			int b = rowSets.find(sets[x+1]);
+			if ((row[x] & Cells.CW_RIGHT) == 0) {
+				rowSets.union(a, b);
+				continue;
+			}
+			if (a == b || (row[x] & EAST_BOUND) != 0)
+				continue;
+			if (lastRow || random.nextIntWithinInterval(0, 1) == 0) {
+				row[x] &= ~Cells.CW_RIGHT;
+				rowSets.union(a, b);
+			}
+		}
+	}
+
+	/**
+	 * Opens walls to the south such that each set continues in the next row
+	 * and computes the set ids for the next row.
+	 */
+	private void joinVertically(int[] row) {
+		Arrays.fill(candidates, 0);
+		Arrays.fill(chosen, -1);
+		Arrays.fill(continues, false);
+		for (int x = 0; x < width; x++) {
+			int r = rowSets.find(sets[x]);
+			if ((row[x] & Cells.CW_BOT) == 0) {
+				continues[r] = true;
+				continue;
+			}
+			if ((row[x] & SOUTH_BOUND) != 0)
+				continue;
+			// keep one candidate per set chosen uniformly at random (reservoir sampling),
+			// it is opened if no random opening happens for this set
+			if (random.nextIntWithinInterval(0, candidates[r]++) == 0)
+				chosen[r] = x;
+			if (random.nextIntWithinInterval(0, 1) == 0) {
+				row[x] &= ~Cells.CW_BOT;
+				continues[r] = true;
+			}
+		}
+		for (int x = 0; x < width; x++) {
+			int r = rowSets.find(sets[x]);
+			if (!continues[r]) {
+				if (chosen[r] >= 0)
+					row[chosen[r]] &= ~Cells.CW_BOT;
+				else
+					connected = false; // bounds block every way south
+				continues[r] = true;
+			}
+		}
+		// cells below an opening inherit the set, renumbered to keep ids in 0..width-1
+		Arrays.fill(renumber, -1);
+		freeId = 0;
+		for (int x = 0; x < width; x++) {
+			if ((row[x] & Cells.CW_BOT) == 0) {
+				int r = rowSets.find(sets[x]);
+				if (renumber[r] < 0)
+					renumber[r] = freeId++;
+				nextSets[x] = renumber[r];
+			}
+			else {
+				nextSets[x] = -1;
+			}
+		}
+		int[] tmp = sets;
+		sets = nextSets;
+		nextSets = tmp;
+	}
+}
@@ -1,4 +1,9 @@
 package generation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Specifies functionality of a maze factory that produces
  * a maze with a background thread.
@@ -29,13 +34,52 @@ public interface Factory {
 	 */
 	public boolean order(Order order) ;
 	/**
-	 * Cancels the current order if there is any that is not 
-	 * not completed yet.
+	 * Takes an order, waits if the factory can not take 
+	 * further orders right now. Same as order(Order) otherwise.
+	 * @param the order
+	 * @param timeout is the maximum time to wait
+	 * @param unit is the time unit of the timeout
+	 * @return true if order is accepted, false if refused or if the time elapsed
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean order(Order order, long timeout, TimeUnit unit) throws InterruptedException ;
+	/**
+	 * Takes an order and returns a future for the produced maze. 
+	 * The method returns immediately, the future completes 
+	 * when the maze is delivered. The given order is notified 
+	 * about progress and delivery as for order(Order).
+	 * If the order is refused, the future completes exceptionally 
+	 * with a RejectedExecutionException. Cancelling the future 
+	 * cancels the order.
+	 * @param the order
+	 * @return future for the maze
+	 */
+	public CompletableFuture<MazeConfiguration> orderAsync(Order order) ;
+	/**
+	 * Same as orderAsync(Order) but in addition publishes the 
+	 * progress of the production in percent to the given subscriber. 
+	 * The subscriber is completed on delivery and receives an 
+	 * error if the order is refused, cancelled or fails. 
+	 * Values may be dropped if the subscriber does not keep up.
+	 * @param the order
+	 * @param progress subscribes to progress values, may be null
+	 * @return future for the maze
+	 */
+	public CompletableFuture<MazeConfiguration> orderAsync(Order order, Flow.Subscriber<? super Integer> progress) ;
+	/**
+	 * Cancels all orders that are not completed yet.
 	 */
 	public void cancel() ;
 	/**
-	 * Wait till order is fulfilled. This method returns after
-	 * the produced maze has been delivered. 
+	 * Cancels the given order if it is not completed yet.
+	 * The order will not be delivered.
+	 * @param the order
+	 * @return true if the order was cancelled, false if it is unknown or completed
+	 */
+	public boolean cancel(Order order) ;
+	/**
+	 * Wait till orders are fulfilled. This method returns after
+	 * the produced mazes have been delivered or cancelled. 
 	 * This method can be used to have a more synchronous behavior
 	 * which is helpful for testing for example.
 	 */
@@ -0,0 +1,96 @@
+package generation;
+
+/**
+ * This class keeps the cells of a finished maze in a compact, immutable form.
+ * Each cell takes 4 bits for its walls, 16 cells to a long, plus one bit in a separate bitset
+ * for the room flag, 5 bits per cell instead of 16 in Cells.
+ * The exit is a missing wall on the border, so it is part of the walls.
+ *
+ * After generation, play only asks for walls, the exit and rooms, so the visited flags
+ * and the bounds that protect the border and rooms during generation are dropped:
+ * cells count as visited and have no bounds.
+ * All queries of Cells work on it, all updates throw an UnsupportedOperationException.
+ * The log of deleted walls, see Cells.deepdebugWall, is taken over, so it can still be saved
+ * after a maze is frozen, e.g. for a maze from the MazePool.
+ * All fields are final, so frozen cells can be shared across threads without synchronization,
+ * e.g. by the MazePool or the chunks of a ChunkedMaze.
+ *
+ * @author Katson, Andrew
+ */
+public class FrozenCells extends Cells {
+	private static final int WALL_BITS = 4; // CW_TOP, CW_BOT, CW_LEFT and CW_RIGHT are the 4 lowest bits of the encoding
+	private static final int CELLS_PER_WORD = Long.SIZE / WALL_BITS;
+
+	private final int width;
+	private final int height;
+	private final long[] walls; // 4 bits per cell, cell i is at bit 4*(i%16) of word i/16
+	private final long[] rooms; // bit i is set if cell i is in a room
+
+	/**
+	 * Constructor that copies the walls and room flags of the given cells.
+	 * Cell i is cell (x,y) with i = x*height+y, the same order as in Cells.
+	 * @param cells of a finished maze
+	 * @precondition cells != null
+	 */
+	public FrozenCells(Cells cells) {
+		super(cells.getWidth(), cells.getHeight(), false);
+		width = cells.getWidth();
+		height = cells.getHeight();
+		final int cellCount = width * height;
+		walls = new long[(cellCount + CELLS_PER_WORD - 1) / CELLS_PER_WORD];
+		rooms = new long[(cellCount + Long.SIZE - 1) / Long.SIZE];
+		int i = 0;
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++, i++) {
+				final int value = cells.getValueOfCell(x, y);
+				walls[i / CELLS_PER_WORD] |= (long) (value & CW_ALL) << (WALL_BITS * (i % CELLS_PER_WORD));
+				if (0 != (value & CW_IN_ROOM))
+					rooms[i >>> 6] |= 1L << i;
+			}
+		}
+		// the grading of project 2 saves the log of the delivered maze, see StateGenerating.deliver
+		traceWall = cells.traceWall;
+	}
+
+	@Override
+	public int getValueOfCell(int x, int y) {
+		final int i = index(x, y);
+		final int value = (int) (walls[i / CELLS_PER_WORD] >>> (WALL_BITS * (i % CELLS_PER_WORD))) & CW_ALL;
+		return (0 != (rooms[i >>> 6] & (1L << i))) ? value | CW_IN_ROOM : value;
+	}
+
+	////////////////// low level methods operating on bits and bitmasks //////////////////////////////////////////
+	@Override
+	protected void setBitToZero(int x, int y, int bitmask) {
+		throw new UnsupportedOperationException("FrozenCells: cells are read only");
+	}
+
+	@Override
+	protected void setBitToOne(int x, int y, int bitmask) {
+		throw new UnsupportedOperationException("FrozenCells: cells are read only");
+	}
+
+	@Override
+	protected boolean hasMaskedBitsTrue(int x, int y, int bitmask) {
+		return (getValueOfCell(x, y) & bitmask) != 0;
+	}
+
+	@Override
+	protected boolean hasMaskedBitsFalse(int x, int y, int bitmask) {
+		return (getValueOfCell(x, y) & bitmask) == 0;
+	}
+
+	/**
+	 * Gives the position of a cell.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @precondition 0 <= x < width, 0 <= y < height
+	 * @return index
+	 * @throws ArrayIndexOutOfBoundsException for a position out of range, as in Cells
+	 */
+	private int index(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height)
+			throw new ArrayIndexOutOfBoundsException("FrozenCells: position out of range: " + x + ", " + y);
+		return x * height + y;
+	}
+}
@@ -0,0 +1,183 @@
+package generation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class keeps a grid of cells outside of the Java heap in a memory mapped file.
+ * Each cell is a short with the encoding of Cells, in the same x*height+y order,
+ * so the file is read and written by the operating system page by page as cells are used.
+ * Mazes can thus be larger than the heap, and the cells cause no work for the garbage collector.
+ *
+ * All queries and updates of Cells work on top of it, including the iterator over sequences of walls,
+ * so builders and robots can use it in place of Cells.
+ *
+ * A maze of MazeBuilder.MAX_CELLS cells takes up to 2 GB, which fits into a single mapping.
+ * A file given to the constructor keeps the cells after the application ends, so a maze
+ * can be opened again. Temporary files are deleted when the cells are closed, which is up to the owner
+ * of the cells: MazeContainer closes them when the maze is frozen or disposed, MazeBuilder when
+ * an order is cancelled. Temporary files that are still open when the application ends are deleted then.
+ * The mapping itself is released by the garbage collector once the object is no longer used.
+ *
+ * @author Katson, Andrew
+ */
+public class MappedCells extends Cells {
+	static final String PREFIX = "cells"; // file name prefix of temporary files
+	static final String SUFFIX = ".cells"; // file name extension of temporary files
+	// temporary files that are not closed yet, deleted when the application ends
+	private static final Set<File> OPEN_TEMPORARIES = ConcurrentHashMap.newKeySet();
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (File file : OPEN_TEMPORARIES) {
+					file.delete();
+				}
+			}
+		}));
+	}
+
+	private final int width;
+	private final int height;
+	private final File file; // holds the cells
+	private final boolean temporary; // true if the file is deleted on close
+	private final MappedByteBuffer buffer; // two bytes per cell
+
+	/**
+	 * Constructor that maps the given file. If the file has the size of a maze
+	 * of the given dimensions, its cells are kept, otherwise all cells are zero as for new Cells.
+	 * @param file holds the cells, it is created if it does not exist
+	 * @param w width
+	 * @param h height
+	 * @throws IOException if the file can not be mapped
+	 * @precondition 0 < w, 0 < h, w*h <= MazeBuilder.MAX_CELLS
+	 */
+	public MappedCells(File file, int w, int h) throws IOException {
+		this(file, w, h, false);
+	}
+
+	/**
+	 * Constructor
+	 * @param file holds the cells
+	 * @param w width
+	 * @param h height
+	 * @param temporary is true if the file is deleted on close
+	 * @throws IOException if the file can not be mapped
+	 */
+	private MappedCells(File file, int w, int h, boolean temporary) throws IOException {
+		super(w, h, false);
+		if ((long) w * h > MazeBuilder.MAX_CELLS)
+			throw new IllegalArgumentException("MappedCells: too many cells for a single mapping: " + w + "x" + h);
+		width = w;
+		height = h;
+		this.file = file;
+		this.temporary = temporary;
+		final long size = 2L * w * h;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			if (raf.length() != size) {
+				// a file of a different size is not a maze of these dimensions, start over with zeros
+				raf.setLength(0);
+				raf.setLength(size);
+			}
+			// the mapping stays valid after the channel is closed
+			buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+		buffer.order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Creates cells in a temporary file in the given directory.
+	 * @param directory holds the file
+	 * @param w width
+	 * @param h height
+	 * @return cells with all values zero as for new Cells
+	 * @throws IOException if the file can not be created or mapped
+	 */
+	public static MappedCells createTemporary(File directory, int w, int h) throws IOException {
+		final File file = File.createTempFile(PREFIX, SUFFIX, directory);
+		OPEN_TEMPORARIES.add(file);
+		try {
+			return new MappedCells(file, w, h, true);
+		} catch (IOException | RuntimeException e) {
+			OPEN_TEMPORARIES.remove(file);
+			file.delete();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gives the file that holds the cells.
+	 * @return file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Writes changed cells to the file.
+	 */
+	public void flush() {
+		buffer.force();
+	}
+
+	/**
+	 * Deletes a temporary file. The cells must not be used afterwards.
+	 * Other files are flushed and kept. Closing twice has no further effect.
+	 */
+	public void close() {
+		if (temporary) {
+			file.delete();
+			OPEN_TEMPORARIES.remove(file);
+		}
+		else
+			flush();
+	}
+
+	@Override
+	public int getValueOfCell(int x, int y) {
+		return buffer.getShort(offset(x, y));
+	}
+
+	////////////////// low level methods operating on bits and bitmasks //////////////////////////////////////////
+	@Override
+	protected void setBitToZero(int x, int y, int bitmask) {
+		final int offset = offset(x, y);
+		buffer.putShort(offset, (short) (buffer.getShort(offset) & ~bitmask));
+	}
+
+	@Override
+	protected void setBitToOne(int x, int y, int bitmask) {
+		final int offset = offset(x, y);
+		buffer.putShort(offset, (short) (buffer.getShort(offset) | bitmask));
+	}
+
+	@Override
+	protected boolean hasMaskedBitsTrue(int x, int y, int bitmask) {
+		return (buffer.getShort(offset(x, y)) & bitmask) != 0;
+	}
+
+	@Override
+	protected boolean hasMaskedBitsFalse(int x, int y, int bitmask) {
+		return (buffer.getShort(offset(x, y)) & bitmask) == 0;
+	}
+
+	/**
+	 * Gives the position of a cell in the buffer.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @precondition 0 <= x < width, 0 <= y < height
+	 * @return byte offset
+	 * @throws ArrayIndexOutOfBoundsException for a position out of range, as in Cells
+	 */
+	private int offset(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height)
+			throw new ArrayIndexOutOfBoundsException("MappedCells: position out of range: " + x + ", " + y);
+		return (x * height + y) << 1;
+	}
+}
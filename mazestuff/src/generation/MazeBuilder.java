@@ -2,6 +2,11 @@ package generation;
 
 import gui.Constants;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
 
 /**
  * This class has the responsibility to create a maze of given dimensions (width, height) 
@@ -32,16 +37,19 @@ public class MazeBuilder implements Runnable {
 
 	// class internal local variables
 	protected SingleRandom random ; // random number stream, used to make randomized decisions, e.g for direction to go
+	protected CancellationToken cancellation = new CancellationToken(); // checked in long running loops to stop early
+	private File cellsDirectory; // holds memory mapped files for the cells, null to keep the cells on the heap
+	private int journalCapacity; // number of changes a journal of the cells keeps, 0 for no journal
 	Order order; // describes what is wanted, e.g. a perfect maze or not
 
 	//Testing variables TODO
 	public static BSPBuilder bTest;
 	public static BSPNode rootTest;
 	// constants
-	static final long SLEEP_INTERVAL = 100 ; //constant used for brief breaks to recognize interrupted signal, unit is millisecond
 	static final int MAX_TRIES = 250 ; // room generation: max number of tries to find a random location for a room
 	static final int MIN_ROOM_DIMENSION = 3; // room generation: min dimension
 	static final int MAX_ROOM_DIMENSION = 8; // room generation: max dimension
+	static final int MAX_CELLS = Integer.MAX_VALUE / 2; // largest number of cells such that two walls per cell fit in an int array
 
 	/**
 	 * Constructor for a randomized maze generation
@@ -67,6 +75,14 @@ public class MazeBuilder implements Runnable {
 			random = SingleRandom.getRandom();
 		}
 	}
+	/**
+	 * Constructor for a builder that carves part of a larger maze, e.g. a tile or a chunk,
+	 * with the given random number stream. It prints no message, as there may be many of them.
+	 * @param random is the random number stream of the part
+	 */
+	MazeBuilder(SingleRandom random){
+		this.random = random;
+	}
 
 	/**
 	 * Sets internal fields according to given order
@@ -74,24 +90,53 @@ public class MazeBuilder implements Runnable {
 	 */
 	public void buildOrder(Order order) {
 		this.order = order;
-		int skill = order.getSkillLevel() ;
-		// derive parameters
-		width = Constants.SKILL_X[skill];
-		height = Constants.SKILL_Y[skill];
+		// derive parameters, by default the order takes them from the skill level
+		width = order.getWidth();
+		height = order.getHeight();
 		// only algorithm without rooms guarantees a perfect maze
 		// rooms can result in loops, so for a perfect maze, set room number to 0
-		rooms = order.isPerfect() ? 0 : Constants.SKILL_ROOMS[skill];
-		expectedPartiters = Constants.SKILL_PARTCT[skill];
+		rooms = order.isPerfect() ? 0 : order.getRooms();
+		expectedPartiters = order.getExpectedPartiters();
 		// instantiate data structures
-		cells = new Cells(width,height) ;
+		cells = createCells() ;
+		if (0 < journalCapacity)
+			cells.setJournal(new CellsJournal(width, height, journalCapacity)) ;
 		dists = new Distance(width,height) ;
 	}
+	/**
+	 * Creates the cells for the maze, in a memory mapped file if a directory for cells is set.
+	 * If the file can not be mapped, the cells are kept on the heap.
+	 * @return cells of the current width and height
+	 */
+	private Cells createCells() {
+		if (null != cellsDirectory) {
+			try {
+				return MappedCells.createTemporary(cellsDirectory, width, height) ;
+			} catch (IOException e) {
+				dbg("can not map cells in " + cellsDirectory + ", keeping them on the heap: " + e) ;
+			}
+		}
+		return new Cells(width,height) ;
+	}
+	/**
+	 * Tells if a maze of the given dimensions can be built.
+	 * Walls are encoded with PackedWall, which limits the coordinates,
+	 * and builders keep up to two walls per cell in an int array, which limits the number of cells.
+	 * @param width of the maze
+	 * @param height of the maze
+	 * @return true if 0 < width, height <= PackedWall.MAX_COORDINATE+1 and width*height <= MAX_CELLS
+	 */
+	public static boolean isValidSize(int width, int height) {
+		return 0 < width && width <= PackedWall.MAX_COORDINATE + 1
+				&& 0 < height && height <= PackedWall.MAX_COORDINATE + 1
+				&& (long) width * height <= MAX_CELLS;
+	}
 	/**
 	 * Main method to run construction of a new maze in a thread of its own.
 	 * This method is called by the MazeFactory to generate a maze.
 	 */
 	public void run() {
-		// try-catch block to recognize if thread is interrupted
+		// try-catch block to recognize if the order is cancelled or the thread is interrupted
 		try {
 			// create an initial invalid maze where all walls and borders are up
 			cells.initialize();
@@ -99,23 +144,25 @@ public class MazeBuilder implements Runnable {
 			if (rooms > 0)
 				generateRooms();
 			
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			cancellation.checkpoint(); // test if notified to stop
 
 			// put pathways into the maze, determine its starting and end position and calculate distances
+			// the generation loops check for cancellation themselves
 			generate();
 
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			cancellation.checkpoint(); // test if notified to stop
 
 			final int colchange = random.nextIntWithinInterval(0, 255); // used in the constructor for Segments  class Seg
 			final BSPBuilder b = new BSPBuilder(order, dists, cells, width, height, colchange, expectedPartiters) ;
+			b.setCancellationToken(cancellation);
 			BSPNode root = b.generateBSPNodes(); // takes a long time, updates progressbar, 
 			//variables used for testing TODO
 			bTest = b;
 			rootTest = root;
 			// it also internally checks for cancel requests
-			// and throws an interrupted exception if that happens
+			// and throws a cancellation exception if that happens
 
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			cancellation.checkpoint(); // test if notified to stop
 
 			// communicate results back to MazeController
 			MazeConfiguration mazeConfig = new MazeContainer();
@@ -130,12 +177,15 @@ public class MazeBuilder implements Runnable {
             // reset order and other fields for safe repeated operation and garbage collection
 			reset() ;
 		}
-		catch (InterruptedException ex) {
+		catch (InterruptedException | CancellationException ex) {
 			// if user cancels a lengthy maze generation, we need to stop and 
 			// clean up internal data structures
 			// exception mechanism is basically used to exit method in a controlled way
 			// 
-			dbg("Catching signal to stop") ;
+			dbg("Catching signal to stop, " + cancellation.getStopLatency(TimeUnit.MICROSECONDS) + " us after cancel") ;
+			// the maze is not delivered, so nobody else deletes the file of mapped cells
+			if (cells instanceof MappedCells)
+				((MappedCells) cells).close() ;
 			// reset order and other fields for safe repeated operation and garbage collection
 			reset();
 		}
@@ -170,6 +220,7 @@ public class MazeBuilder implements Runnable {
 		int tries = 0 ;
 		int result = 0 ;
 		while (tries < MAX_TRIES && result <= rooms) {
+			cancellation.checkpoint();
 			if (placeRoom())
 				result++ ;
 			else
@@ -210,7 +261,7 @@ public class MazeBuilder implements Runnable {
 			return false ;
 		// since the area is available, mark it for this room and remove all walls
 		// from this on it is clear that we can place the room on the maze
-		cells.markAreaAsRoom(rw, rh, rx, ry, rxl, ryl); 
+		cells.markAreaAsRoom(rw, rh, rx, ry, rxl, ryl, random); 
 		return true;
 	}
 
@@ -226,7 +277,7 @@ public class MazeBuilder implements Runnable {
 		// the search algorithms starts at some random point
 		generatePathways(); 
 
-		final int[] remote = dists.computeDistances(cells) ;
+		final int[] remote = dists.computeDistances(cells, cancellation) ;
 
 		// identify cell with the greatest distance
 		final int[] pos = dists.getStartPosition();
@@ -255,21 +306,22 @@ public class MazeBuilder implements Runnable {
 		CardinalDirection origcd = cd;
 		
 		cells.setCellAsVisited(x, y); 
-		Wall wall = new Wall(x, y, cd);
+		int wall;
 		while (true) { 
-			wall.setWall(x, y, cd);
+			cancellation.checkpoint();
+			wall = PackedWall.pack(x, y, cd);
 			if (!cells.canGo(wall)) {
 				cd = cd.rotateClockwise();
 				if (origcd == cd) {				
 					if (x == firstx && y == firsty)
 						break; 			
-					int[] dxy = origcds[x][y].getDirection();
-					x -= dxy[0];
-					y -= dxy[1];
+					final CardinalDirection back = origcds[x][y];
+					x -= back.getDx();
+					y -= back.getDy();
 					if (null == origcds[x][y]) {
 						// Happens at starting position
 						assert (x == firstx && y == firsty) : "catching null elsewhere than starting position" ;
-						cd = cd.randomDirection() ;
+						cd = cd.randomDirection(random) ;
 					}
 					else
 						cd = origcds[x][y] ;
@@ -278,12 +330,11 @@ public class MazeBuilder implements Runnable {
 				}
 			} else {
 				cells.deleteWall(wall);
-				int[] dxy = cd.getDirection();
-				x += dxy[0];
-				y += dxy[1];
+				x += cd.getDx();
+				y += cd.getDy();
 				cells.setCellAsVisited(x, y);
 				origcds[x][y] = cd;
-				cd = cd.randomDirection();
+				cd = cd.randomDirection(random);
 				origcd = cd;
 			}
 		}
@@ -324,6 +375,41 @@ public class MazeBuilder implements Runnable {
 		}
 	}
 	*/
+	/**
+	 * Computes the parts of the maze that are connected so far, by pathways or inside rooms.
+	 * @return disjoint sets over all cells, cell (x,y) is element y*width+x
+	 */
+	protected DisjointSets getConnectedComponents() {
+		final DisjointSets components = new DisjointSets(width * height);
+		for (int y = 0; y < height; y++) {
+			cancellation.checkpoint();
+			for (int x = 0; x < width; x++) {
+				if (x < width-1 && cells.hasNoWall(x, y, CardinalDirection.East))
+					components.union(y * width + x, y * width + x+1);
+				if (y < height-1 && cells.hasNoWall(x, y, CardinalDirection.South))
+					components.union(y * width + x, (y+1) * width + x);
+			}
+		}
+		return components;
+	}
+	/**
+	 * Takes down walls between different parts of the maze in a single pass over the maze
+	 * till all cells are connected. Bounds stay up.
+	 * @param components parts of the maze as given by getConnectedComponents, updated as walls go down
+	 */
+	protected void connectComponents(DisjointSets components) {
+		for (int y = 0; y < height && components.getNumberOfSets() > 1; y++) {
+			cancellation.checkpoint();
+			for (int x = 0; x < width; x++) {
+				int wall = PackedWall.pack(x, y, CardinalDirection.East);
+				if (x < width-1 && cells.wallExists(wall) && components.union(y * width + x, y * width + x+1))
+					cells.deleteWall(wall);
+				wall = PackedWall.pack(x, y, CardinalDirection.South);
+				if (y < height-1 && cells.wallExists(wall) && components.union(y * width + x, (y+1) * width + x))
+					cells.deleteWall(wall);
+			}
+		}
+	}
 	/**
 	 * Provides the sign of a given integer number
 	 * @param num
@@ -353,6 +439,38 @@ public class MazeBuilder implements Runnable {
 	protected void setWidth(int w) {
 		this.width = w;
 	}
+	/**
+	 * Sets the random number stream for the next order.
+	 * The factory gives each order a stream of its own such that builders
+	 * that run at the same time do not share the single instance.
+	 * @param random is the random number stream
+	 */
+	void setRandom(SingleRandom random) {
+		this.random = random;
+	}
+	/**
+	 * Sets the token that tells the builder to stop working on the next order.
+	 * @param cancellation is cancelled by the factory if the order is cancelled
+	 */
+	void setCancellationToken(CancellationToken cancellation) {
+		this.cancellation = cancellation;
+	}
+	/**
+	 * Sets the directory for memory mapped files that hold the cells of the next mazes,
+	 * see MappedCells.
+	 * @param cellsDirectory holds the files, null to keep the cells on the heap
+	 */
+	void setCellsDirectory(File cellsDirectory) {
+		this.cellsDirectory = cellsDirectory;
+	}
+	/**
+	 * Sets up a journal that records the generation of the next mazes, see CellsJournal.
+	 * The delivered cells carry the journal.
+	 * @param journalCapacity number of changes the journal keeps, 0 for no journal
+	 */
+	void setJournalCapacity(int journalCapacity) {
+		this.journalCapacity = journalCapacity;
+	}
 	/**
 	 * Return the SingleRandom object TODO
 	 * @return 
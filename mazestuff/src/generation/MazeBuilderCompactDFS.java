@@ -0,0 +1,129 @@
+package generation;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is built with a randomized depth-first search as in MazeBuilder, but with
+ * compact data structures such that memory and time per cell stay the same for large mazes.
+ * The direction that leads back to the parent cell is stored with 2 bits per cell in a byte array
+ * instead of a matrix of CardinalDirection references. These directions form the stack of the search:
+ * backtracking follows them from the current cell towards the starting position.
+ * At each cell the unvisited neighbors are collected in a bit mask and one of them is picked
+ * with a single random number instead of rotating through directions one by one.
+ *
+ * @author Katson, Andrew
+ */
+public class MazeBuilderCompactDFS extends MazeBuilder implements Runnable {
+
+	protected byte[] backtrack; // 2 bits per cell, ordinal of the direction in which a cell was entered
+
+	public MazeBuilderCompactDFS() {
+		super();
+		System.out.println("MazeBuilderCompactDFS uses a depth-first search to generate maze.");
+	}
+
+	public MazeBuilderCompactDFS(boolean det) {
+		super(det);
+		System.out.println("MazeBuilderCompactDFS uses a depth-first search to generate maze.");
+	}
+
+	/**
+	 * Constructor for a tile or chunk builder, see MazeBuilderParallel and ChunkedMaze, that prints no message.
+	 * @param random is the random number stream of the tile or chunk
+	 */
+	MazeBuilderCompactDFS(SingleRandom random) {
+		super(random);
+	}
+
+	/**
+	 * This method generates pathways into the maze by a randomized depth-first search starting
+	 * at a random position in the top row. The search enters a random unvisited neighbor of the
+	 * current cell, taking down the wall in between, and backtracks if there is none.
+	 * The search is over when it is back at the starting position with no unvisited neighbor left.
+	 */
+	@Override
+	protected void generatePathways() {
+		backtrack = new byte[(width * height + 3) / 4];
+		int x = random.nextIntWithinInterval(0, width-1);
+		int y = 0;
+		final int firstx = x;
+		final int firsty = y;
+
+		cells.setCellAsVisited(x, y);
+		while (true) {
+			cancellation.checkpoint();
+			final int options = getUnvisitedNeighbors(x, y);
+			if (0 != options) {
+				final int d = pickDirection(options);
+				cells.deleteWall(PackedWall.pack(x, y, d));
+				x += CardinalDirection.DX[d];
+				y += CardinalDirection.DY[d];
+				cells.setCellAsVisited(x, y);
+				setBacktrackDirection(x, y, d);
+			}
+			else {
+				if (x == firstx && y == firsty)
+					break;
+				final int d = getBacktrackDirection(x, y);
+				x -= CardinalDirection.DX[d];
+				y -= CardinalDirection.DY[d];
+			}
+		}
+	}
+
+	/**
+	 * Collects the directions in which the search can proceed from the given cell.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @return bit mask, bit i is set if the neighbor in direction with ordinal i is not visited and not behind a border
+	 */
+	protected int getUnvisitedNeighbors(int x, int y) {
+		int options = 0;
+		for (int d = 0; d < 4; d++) {
+			if (cells.canGo(PackedWall.pack(x, y, d)))
+				options |= 1 << d;
+		}
+		return options;
+	}
+
+	/**
+	 * Picks one of the directions in the given bit mask uniformly at random.
+	 * @param options bit mask of directions as given by getUnvisitedNeighbors, options != 0
+	 * @return ordinal of the chosen direction
+	 */
+	protected int pickDirection(int options) {
+		int k = random.nextIntWithinInterval(0, Integer.bitCount(options) - 1);
+		// drop the k lowest set bits, the lowest remaining bit is the chosen one
+		for (; k > 0; k--) {
+			options &= options - 1;
+		}
+		return Integer.numberOfTrailingZeros(options);
+	}
+
+	/**
+	 * Stores the direction in which the search entered a cell.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param d ordinal of the direction, 0 <= d <= 3
+	 */
+	protected void setBacktrackDirection(int x, int y, int d) {
+		final int i = y * width + x;
+		final int shift = (i & 3) << 1;
+		backtrack[i >> 2] = (byte) ((backtrack[i >> 2] & ~(3 << shift)) | (d << shift));
+	}
+
+	/**
+	 * Gives the direction in which the search entered a cell.
+	 * Going the opposite way leads back to the cell it came from.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @return ordinal of the direction, 0 <= d <= 3
+	 */
+	protected int getBacktrackDirection(int x, int y) {
+		final int i = y * width + x;
+		return (backtrack[i >> 2] >> ((i & 3) << 1)) & 3;
+	}
+}
@@ -0,0 +1,103 @@
+package generation;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is built with Eller's algorithm.
+ * The maze is generated row by row from top to bottom, only the sets of the cells
+ * in the current row are kept in memory, see EllerRowGenerator.
+ * A finished row is final and can be passed on to a RowListener while the rows below
+ * do not exist yet. Borders are left alone so that the maze remains enclosed and rooms keep their walls.
+ *
+ * @author Katson, Andrew
+ */
+public class MazeBuilderEller extends MazeBuilder implements Runnable {
+
+	/**
+	 * Receives rows of the maze as soon as they are finished.
+	 */
+	public interface RowListener {
+		/**
+		 * Called once per row in increasing order of y.
+		 * All walls of cells (x,y) with 0 <= x < width are final at this point.
+		 * @param cells holds the maze, rows below y are not generated yet
+		 * @param y is the row that is finished
+		 */
+		void rowCompleted(Cells cells, int y);
+	}
+
+	private RowListener rowListener; // optional, null if nobody is interested in finished rows
+
+	public MazeBuilderEller() {
+		super();
+		System.out.println("MazeBuilderEller uses Eller's algorithm to generate maze.");
+	}
+
+	public MazeBuilderEller(boolean det) {
+		super(det);
+		System.out.println("MazeBuilderEller uses Eller's algorithm to generate maze.");
+	}
+
+	/**
+	 * Constructor for a tile or chunk builder, see MazeBuilderParallel and ChunkedMaze, that prints no message.
+	 * @param random is the random number stream of the tile or chunk
+	 */
+	MazeBuilderEller(SingleRandom random) {
+		super(random);
+	}
+
+	/**
+	 * Sets the listener that is notified each time a row is finished.
+	 * @param listener is notified of finished rows, null to remove the current listener
+	 */
+	public void setRowListener(RowListener listener) {
+		rowListener = listener;
+	}
+
+	/**
+	 * This method generates pathways into the maze by using Eller's algorithm to generate a spanning tree for an undirected graph.
+	 * The cells are the nodes of the graph and the spanning tree. An edge represents that one can move from one cell to an adjacent cell.
+	 * So an edge implies that its nodes are adjacent cells in the maze and that there is no wall separating these cells in the maze.
+	 * Each row is copied into a buffer, carved by the EllerRowGenerator and the walls that went down are deleted in cells.
+	 */
+	@Override
+	protected void generatePathways() {
+		final EllerRowGenerator generator = new EllerRowGenerator(width, random);
+		final int[] row = new int[width];
+		for (int y = 0; y < height; y++) {
+			cancellation.checkpoint();
+			for (int x = 0; x < width; x++) {
+				row[x] = cells.getValueOfCell(x, y);
+			}
+			generator.carveRow(row, y == height-1);
+			for (int x = 0; x < width; x++) {
+				int before = cells.getValueOfCell(x, y);
+				if (isTakenDown(before, row[x], Cells.CW_RIGHT))
+					cells.deleteWall(PackedWall.pack(x, y, CardinalDirection.East));
+				if (isTakenDown(before, row[x], Cells.CW_BOT))
+					cells.deleteWall(PackedWall.pack(x, y, CardinalDirection.South));
+				cells.setCellAsVisited(x, y);
+			}
+			if (null != rowListener)
+				rowListener.rowCompleted(cells, y);
+		}
+		// rooms can cut off sets, this can not happen for a perfect maze
+		// joining the parts afterwards needs memory per cell, so it is only done if necessary
+		if (!generator.isConnected())
+			connectComponents(getConnectedComponents());
+	}
+
+	/**
+	 * Tells if the generator took down a wall.
+	 * @param before is the cell value before the row was carved
+	 * @param after is the cell value after the row was carved
+	 * @param bit is the wall bit, CW_RIGHT or CW_BOT
+	 * @return true if the wall was up before and is down after carving
+	 */
+	private boolean isTakenDown(int before, int after, int bit) {
+		return (before & bit) != 0 && (after & bit) == 0;
+	}
+}
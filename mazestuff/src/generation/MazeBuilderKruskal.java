@@ -1,5 +1,5 @@
 package generation;
-import java.util.ArrayList;
+import java.util.Arrays;
 import generation.CardinalDirection;
 import generation.Cells.*;
 
@@ -20,7 +20,7 @@ import generation.Cells.*;
 
 public class MazeBuilderKruskal extends MazeBuilder implements Runnable{
 	
-	protected int[][] mazeBoard;
+	protected DisjointSets cellTrees; // spanning trees of cells that are connected so far
 	
 	public MazeBuilderKruskal() {
 		super();
@@ -31,21 +31,32 @@ public class MazeBuilderKruskal extends MazeBuilder implements Runnable{
 		super(det);
 		System.out.println("MazeBuilderPrim uses Kruskal's algorithm to generate maze.");
 	}
+
+	/**
+	 * Constructor for a tile or chunk builder, see MazeBuilderParallel and ChunkedMaze, that prints no message.
+	 * @param random is the random number stream of the tile or chunk
+	 */
+	MazeBuilderKruskal(SingleRandom random) {
+		super(random);
+	}
 	
 	/**
-	 * Initializes the mazeBoard with separate values for each position
-	 * @return a filled out mazeBoard
+	 * Initializes the spanning trees such that each cell forms a tree of its own
+	 * @return disjoint sets with one set per cell of the maze
 	 */
-	protected int[][] initMazeBoard(){
-		mazeBoard = new int[this.width][this.height];
-		int cellValCounter = 0; //counter to give a value to each cell of the maze
-		for(int row = 0; row < this.width; row++) { //iterate over rows
-			for(int col = 0; col < this.height; col++) { //iterate over cols
-				mazeBoard[row][col] = cellValCounter;
-				cellValCounter++;
-			}
-		}
-		return mazeBoard;
+	protected DisjointSets initCellTrees(){
+		cellTrees = new DisjointSets(this.width * this.height);
+		return cellTrees;
+	}
+	
+	/**
+	 * Maps a cell position to its element in the disjoint sets of spanning trees
+	 * @param row
+	 * @param col
+	 * @return the index of the cell, cells are numbered column by column starting with 0 at (0,0)
+	 */
+	protected int getCellIndex(int row, int col) {
+		return row * this.height + col;
 	}
 	
 	/**
@@ -55,27 +66,26 @@ public class MazeBuilderKruskal extends MazeBuilder implements Runnable{
 	 */
 	@Override
 	protected void generatePathways() {
-		// create an initial list of all walls that could be removed
-		// those walls lead to adjacent cells that are not part of the spanning tree yet.
-		final ArrayList<Wall> candidates = new ArrayList<Wall>();
-		getListOfWalls(candidates);
+		// create an initial array of all walls that could be removed, each wall is listed exactly once
+		// in order to have a randomized algorithm, the array is shuffled once and then processed in order
+		final int[] candidates = getListOfWalls();
+		shuffleWalls(candidates);
 		
-		//fill out a board to represent the maze cells as we combine them
-		mazeBoard = initMazeBoard();
+		//put each cell in a spanning tree of its own, trees are merged as walls are removed
+		cellTrees = initCellTrees();
 		
-		Wall curWall;
+		int curWall;
 		// we need to consider each candidate wall and consider it only once
-		while(!candidates.isEmpty()){ //TODO make sure that all the candidate walls are used or removed
-			// in order to have a randomized algorithm,
-			// we randomly select and extract a wall from our candidate set
-			// this also reduces the set to make sure we terminate the loop
-			curWall = extractWallFromCandidateSetRandomly(candidates);
-			
+		// once a single tree remains, no further wall can be taken down
+		for (int i = 0; i < candidates.length && cellTrees.getNumberOfSets() > 1; i++) {
+			if (0 == (i & CancellationToken.CHECKPOINT_INTERVAL-1))
+				cancellation.checkpoint();
+			curWall = candidates[i];
 			//get the x and y of the selected cell and the neighboring cell that share the wall
-			int row1 = curWall.getX();
-			int col1 = curWall.getY();
-			int row2 = curWall.getNeighborX();
-			int col2 = curWall.getNeighborY();
+			int row1 = PackedWall.getX(curWall);
+			int col1 = PackedWall.getY(curWall);
+			int row2 = PackedWall.getNeighborX(curWall);
+			int col2 = PackedWall.getNeighborY(curWall);
 			
 			// check if wall leads to a new cell that is not connected to the spanning tree yet
 			if (!checkIfSameTree(row1, col1, row2, col2))
@@ -85,151 +95,80 @@ public class MazeBuilderKruskal extends MazeBuilder implements Runnable{
 			}
 		}
 	}
+	
 	/**
-	 * Pick a random position in the list of candidates, remove the candidate from the list and return it
-	 * @param candidates
-	 * @return candidate from the list, randomly chosen
+	 * Shuffles the given walls in place with the Fisher-Yates algorithm
+	 * such that each permutation is equally likely
+	 * @param walls - array of walls encoded with PackedWall
 	 */
-	protected Wall extractWallFromCandidateSetRandomly(final ArrayList<Wall> candidates) {
-		return candidates.remove(random.nextIntWithinInterval(0, candidates.size()-1)); 
+	protected void shuffleWalls(int[] walls) {
+		for (int i = walls.length-1; i > 0; i--) {
+			if (0 == (i & CancellationToken.CHECKPOINT_INTERVAL-1))
+				cancellation.checkpoint();
+			int j = random.nextIntWithinInterval(0, i);
+			int tmp = walls[i];
+			walls[i] = walls[j];
+			walls[j] = tmp;
+		}
 	}
 	
-	
-	
 	/**
-	 * Gets a list of all walls that could be removed from the maze based on walls towards new cells
-	 * @param walls - list that will have the different walls that can be removed
-	 * 
+	 * Gets an array of all walls that could be removed from the maze.
+	 * Each internal wall is listed exactly once, from the cell on its left (East wall)
+	 * or the cell above it (South wall), walls marked as borders are left out.
+	 * @return array with the walls that can be removed, encoded with PackedWall
 	 */
-	protected void getListOfWalls(ArrayList<Wall> walls) {
-		if (!walls.isEmpty())
-			walls.clear();
+	protected int[] getListOfWalls() {
+		int[] walls = new int[2 * this.width * this.height];
+		int count = 0;
+		int wall;
 		//iterate over all the rows
 		for (int row = 0; row < this.width; row++) {
+			cancellation.checkpoint();
 		//iterate over all the columns
 			for(int col = 0; col < this.height; col++) {
-				for (CardinalDirection cd : CardinalDirection.values()) {
-					Wall newWall = new Wall(row, col, cd);
-					if (cells.wallExists(newWall) && !isWallDuplicate(newWall, walls)) // if there is a wall between the cells and the wall has not been stored
-					{
-						walls.add(newWall);
-					}
-				}
+				wall = PackedWall.pack(row, col, CardinalDirection.East);
+				if (row < this.width-1 && cells.wallExists(wall)) // if there is a wall between the cells
+					walls[count++] = wall;
+				wall = PackedWall.pack(row, col, CardinalDirection.South);
+				if (col < this.height-1 && cells.wallExists(wall))
+					walls[count++] = wall;
 			}
 		}
+		return Arrays.copyOf(walls, count);
 	}
 	
-
 	/**
 	 * @param row1
 	 * @param col1
 	 * @param row2
 	 * @param col2
-	 * @return true if the board positions have the same value (are connected)
+	 * @return true if the board positions belong to the same spanning tree (are connected)
 	 */
 	protected boolean checkIfSameTree(int row1, int col1, int row2, int col2) {
-		
-		if(mazeBoard[row1][col1] == mazeBoard[row2][col2]) {
-			return true;
-		}
-		
-		return false;
+		return cellTrees.connected(getCellIndex(row1, col1), getCellIndex(row2, col2));
 	}
 	
 	/**
-	 * Checks if the wall is a duplicate
-	 * @param checkWall - the Wall being checked to see if it is a duplicate
-	 * @param listWalls - the current list of stored Walls 
-	 * @return true if the wall is already stored in the ArrayList of walls
-	 */
-	
-	protected boolean isWallDuplicate(Wall checkWall, ArrayList<Wall> listWalls) {
-		if(listWalls == null) {
-			return false;
-		}
-		for (Wall storedWall : listWalls) {
-			if (storedWall.sameWall(checkWall) || storedWall.equals(checkWall)) {
-				return true;
-			}
-		}
-		
-		return false;
-	}
-	
-	/**
-	 * Merge the two spanning trees by changing the values stored in one to be the same as the values stored
-	 * in the other so that all the cells are the in the same tree (have the same value)
+	 * Merge the two spanning trees that contain the given cells so that all the cells are in the same tree
+	 * (have the same ID). Merging is done by union by rank on the disjoint sets of cells 
+	 * and does not need to visit the other cells of the trees.
 	 * @param row1 
 	 * @param col1 
 	 * @param row2 
 	 * @param col2 
 	 */
 	protected void mergeCellTree(int row1, int col1, int row2, int col2) {
-		int newNumId = getCellTreeID(row1, col1); //Id value associated with the Tree to be kept as the main one
-		int oldNumId = getCellTreeID(row2, col2); //Id value associated with the Tree to be merged
-		
-		for(int row = 0; row < this.width; row++) {
-			for(int col = 0; col < this.height; col++) {
-				if(oldNumId == getCellTreeID(row,col)) { //if the cell belongs to the tree being merged
-					setCellTreeID(row, col, newNumId); //set the cell to have the same Id as the main tree's
-				}
-			}
-		}
+		cellTrees.union(getCellIndex(row1, col1), getCellIndex(row2, col2));
 	}
 	
 	/**
 	 * @param row
 	 * @param col
-	 * @return the ID of the cell in the Maze Board that associates it with a tree
+	 * @return the ID of the tree the cell belongs to, cells in the same tree have the same ID
 	 */
 	protected int getCellTreeID(int row, int col) {
-		return mazeBoard[row][col];
-	}
-	/**
-	 * @param row
-	 * @param col
-	 * @param newID
-	 * 
-	 */
-	protected void setCellTreeID(int row, int col, int newID) {
-		mazeBoard[row][col] = newID;
-	}
-	
-	
-	////////////////////////////////SPECIAL TESTING METHODS//////////////////////
-	/**
-	 * Testing version of getListOfWalls. 
-	 * Gets a list of all walls that could be removed from the maze based on walls towards new cells
-	 * @param walls - list that will have the different walls that can be removed
-	 * 
-	 */
-	protected void getListOfWallsStatic(ArrayList<Wall> walls) {
-		if (!walls.isEmpty())
-			walls.clear();
-		//iterate over all the rows
-		for (int row = 0; row < this.width; row++) {
-		//iterate over all the columns
-			for(int col = 0; col < this.height; col++) {
-				for (CardinalDirection cd : CardinalDirection.values()) {
-					Wall newWall = new Wall(row, col, cd);
-					if (wallExists(newWall) && !isWallDuplicate(newWall, walls)) // if there is a wall between the cells
-					{
-						walls.add(newWall);
-					}
-				}
-			}
-		}
-	}
-	
-	/**
-	 * Helper method for testing
-	 * The call to wallExists in Cells was not working for testing the getListOfWalls method alone 
-	 * because the cells object became null when entering the method and wallExists is not static
-	 */
-	private boolean wallExists(Wall wall) {
-		Cells workAround = new Cells(this.width, this.height);
-		return workAround.wallExists(wall);
+		return cellTrees.find(getCellIndex(row, col));
 	}
 	
 }
-
@@ -0,0 +1,413 @@
+package generation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import generation.Order.Builder;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is split into rectangular tiles that are carved concurrently on a ForkJoinPool.
+ * Each tile is carved with the algorithm given in the order, as if it was a maze of its own:
+ * the tile gets a copy of its cells with bounds around it and a builder with its own random number stream.
+ * The walls the tile builder took down are then deleted in the maze.
+ * Each tile without rooms is a spanning tree, so a final pass of Kruskal's algorithm over
+ * the walls on the tile boundaries with one set per tile joins the tiles into one perfect maze.
+ * Rooms can span tiles or cut tiles into parts, so with rooms the final pass tracks sets of cells
+ * and remaining parts are joined as in MazeBuilderEller.
+ *
+ * The seed of each tile stream is derived from a seed drawn from the builder's stream and
+ * the coordinates of the tile, so the maze does not depend on how tiles are scheduled.
+ * By default the number of tiles grows with the parallelism of the pool. In deterministic
+ * mode the tiles only depend on the maze dimensions, then a maze is the same for any
+ * number of threads, including a single one, as long as the builder's stream starts with the same seed.
+ * If the cells have a journal, each tile records its changes in a journal of its own and
+ * the tile journals are appended in tile order once all tiles are carved, so the journal of
+ * a deterministic maze does not depend on how tiles are scheduled either and can be compared.
+ * The builder measures the time spent in tiles and the elapsed time of the concurrent phase,
+ * their ratio is reported as the parallelism of the tile phase, see getTileParallelism.
+ *
+ * @author Katson, Andrew
+ */
+public class MazeBuilderParallel extends MazeBuilder implements Runnable {
+	static final int TILE_DIMENSION = 32; // minimum number of cells along each side of a tile
+	static final int TILES_PER_THREAD = 4; // more tiles than threads balance the load if tiles take different times
+	static final int DETERMINISTIC_TILES = 64; // maximum number of tiles in deterministic mode, as for 16 threads
+
+	private final ForkJoinPool pool; // carves the tiles
+	private int tileDimension; // minimum tile size
+	private boolean deterministic; // true if tiles do not depend on the parallelism of the pool
+	private long seed; // tile streams are derived from this seed and the tile coordinates
+	private int tilesX, tilesY; // number of tiles in each direction
+	private long[] tileNanos; // time spent to carve each tile
+	private boolean[] tileHasRoom; // true if a tile contains a cell of a room
+	private int[] tileOfColumn; // tile index along the x axis for each x coordinate
+	private int[] tileOfRow; // tile index along the y axis for each y coordinate
+	private long elapsedNanos; // elapsed time to carve all tiles
+	private CellsJournal[] tileJournals; // changes of each tile while they are carved, null if the cells have no journal
+
+	public MazeBuilderParallel() {
+		super();
+		pool = ForkJoinPool.commonPool();
+		tileDimension = TILE_DIMENSION;
+		System.out.println("MazeBuilderParallel carves tiles in parallel to generate maze.");
+	}
+
+	public MazeBuilderParallel(boolean det) {
+		super(det);
+		deterministic = det;
+		pool = ForkJoinPool.commonPool();
+		tileDimension = TILE_DIMENSION;
+		System.out.println("MazeBuilderParallel carves tiles in parallel to generate maze.");
+	}
+
+	/**
+	 * Constructor with option to make maze generation deterministic or random
+	 * and a pool to carve tiles on.
+	 * @param det is true for deterministic generation
+	 * @param pool carves the tiles
+	 */
+	public MazeBuilderParallel(boolean det, ForkJoinPool pool) {
+		super(det);
+		deterministic = det;
+		this.pool = pool;
+		tileDimension = TILE_DIMENSION;
+		System.out.println("MazeBuilderParallel carves tiles in parallel to generate maze.");
+	}
+
+	/**
+	 * Sets the deterministic mode. In deterministic mode the tiles only depend on the maze dimensions,
+	 * so the maze only depends on the random number stream and not on the pool it is carved on.
+	 * @param deterministic is true for deterministic mode
+	 */
+	protected void setDeterministic(boolean deterministic) {
+		this.deterministic = deterministic;
+	}
+
+	/**
+	 * Sets the minimum number of cells along each side of a tile.
+	 * Tiles get larger if the maze would otherwise be split into many more tiles than the pool has threads,
+	 * and they are sized evenly, so actual tiles can be slightly larger.
+	 * @param tileDimension 0 < tileDimension
+	 */
+	protected void setTileDimension(int tileDimension) {
+		this.tileDimension = tileDimension;
+	}
+
+	/**
+	 * This method generates pathways into the maze by carving tiles in parallel with the builder algorithm
+	 * given in the order and joining the tiles by taking down walls on the tile boundaries.
+	 */
+	@Override
+	protected void generatePathways() {
+		// each tile costs a copy of its cells and a builder, so only split as much as the pool can use
+		final int maxTiles = deterministic ? DETERMINISTIC_TILES : TILES_PER_THREAD * pool.getParallelism();
+		final int side = Math.max(tileDimension, (int) Math.ceil(Math.sqrt((double) width * height / maxTiles)));
+		tilesX = Math.max(1, Math.round((float) width / side));
+		tilesY = Math.max(1, Math.round((float) height / side));
+		final int tiles = tilesX * tilesY;
+		tileNanos = new long[tiles];
+		tileHasRoom = new boolean[tiles];
+		seed = ((long) random.nextInt() << 32) ^ (random.nextInt() & 0xffffffffL);
+
+		// tiles record into journals of their own, records of concurrent tiles would interleave in the journal of the maze
+		final CellsJournal journal = cells.getJournal();
+		tileJournals = (null == journal) ? null : new CellsJournal[tiles];
+		cells.setJournal(null);
+		final long start = System.nanoTime();
+		try {
+			pool.invoke(new CarveTiles(0, tiles));
+		} finally {
+			cells.setJournal(journal);
+		}
+		elapsedNanos = System.nanoTime() - start;
+		if (null != journal) {
+			for (CellsJournal tileJournal : tileJournals) {
+				journal.append(tileJournal);
+			}
+			tileJournals = null;
+		}
+		dbg("parallel generation carved " + tiles + " tiles in " + elapsedNanos / 1000000
+				+ " ms, tiles took " + getTileNanos() / 1000000 + " ms in total, tile parallelism " + getTileParallelism());
+
+		tileOfColumn = getTileIndices(tilesX, width);
+		tileOfRow = getTileIndices(tilesY, height);
+		boolean anyRoom = false;
+		for (boolean hasRoom : tileHasRoom) {
+			anyRoom |= hasRoom;
+		}
+		if (!anyRoom) {
+			// each tile is connected, it is sufficient to track which tiles are joined
+			joinTiles(new DisjointSets(tiles), true);
+		}
+		else {
+			final DisjointSets components = getConnectedComponents();
+			joinTiles(components, false);
+			// rooms can cut tiles into parts that the tile boundaries do not join
+			if (components.getNumberOfSets() > 1)
+				connectComponents(components);
+		}
+	}
+
+	/**
+	 * Maps coordinates along one axis to tile indices.
+	 * @param tileCount is the number of tiles along that axis
+	 * @param length is the number of cells along that axis
+	 * @return array with the tile index for each coordinate
+	 */
+	private static int[] getTileIndices(int tileCount, int length) {
+		final int[] result = new int[length];
+		for (int t = 0; t < tileCount; t++) {
+			for (int i = getTileStart(t, tileCount, length); i < getTileStart(t+1, tileCount, length); i++) {
+				result[i] = t;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gives the first coordinate of a tile.
+	 * @param tile is the index of the tile along one axis
+	 * @param tileCount is the number of tiles along that axis
+	 * @param length is the number of cells along that axis
+	 * @return the coordinate of the first cell of the tile, length for tile == tileCount
+	 */
+	protected static int getTileStart(int tile, int tileCount, int length) {
+		return (int) ((long) tile * length / tileCount);
+	}
+
+	/**
+	 * Carves a single tile with its own builder and deletes the walls it took down in the maze.
+	 * Tiles are disjoint, so tiles can be carved concurrently.
+	 * The changes to the maze are recorded in the journal of the tile if the maze has a journal.
+	 * @param tile is the index of the tile, 0 <= tile < tilesX*tilesY
+	 */
+	protected void carveTile(int tile) {
+		final long start = System.nanoTime();
+		final int tx = tile % tilesX;
+		final int ty = tile / tilesX;
+		final int x0 = getTileStart(tx, tilesX, width);
+		final int y0 = getTileStart(ty, tilesY, height);
+		final int w = getTileStart(tx+1, tilesX, width) - x0;
+		final int h = getTileStart(ty+1, tilesY, height) - y0;
+
+		// copy the cells of the tile, the tile boundary acts as the border of a maze
+		final int[][] values = new int[w][h];
+		for (int x = 0; x < w; x++) {
+			cancellation.checkpoint();
+			for (int y = 0; y < h; y++) {
+				int value = cells.getValueOfCell(x0+x, y0+y);
+				if (0 == x)
+					value |= Cells.CW_LEFT << Cells.CW_BOUND_SHIFT;
+				if (w-1 == x)
+					value |= Cells.CW_RIGHT << Cells.CW_BOUND_SHIFT;
+				if (0 == y)
+					value |= Cells.CW_TOP << Cells.CW_BOUND_SHIFT;
+				if (h-1 == y)
+					value |= Cells.CW_BOT << Cells.CW_BOUND_SHIFT;
+				if (0 != (value & Cells.CW_IN_ROOM))
+					tileHasRoom[tile] = true;
+				values[x][y] = value;
+			}
+		}
+		final MazeBuilder tileBuilder = createTileBuilder(SingleRandom.newStream(getTileSeed(seed, x0, y0)));
+		// tiles are carved on threads of the pool that are not interrupted on cancel, the token reaches them
+		tileBuilder.cancellation = cancellation;
+		tileBuilder.setWidth(w);
+		tileBuilder.setHeight(h);
+		tileBuilder.cells = new Cells(values);
+		tileBuilder.generatePathways();
+
+		final CellsJournal journal = (null == tileJournals) ? null : new CellsJournal(width, height);
+		// walls on the tile boundary stay up, they are handled by joinTiles
+		for (int x = 0; x < w; x++) {
+			cancellation.checkpoint();
+			for (int y = 0; y < h; y++) {
+				if (x < w-1 && tileBuilder.cells.hasNoWall(x, y, CardinalDirection.East)
+						&& cells.hasWall(x0+x, y0+y, CardinalDirection.East))
+					deleteTileWall(PackedWall.pack(x0+x, y0+y, CardinalDirection.East), journal);
+				if (y < h-1 && tileBuilder.cells.hasNoWall(x, y, CardinalDirection.South)
+						&& cells.hasWall(x0+x, y0+y, CardinalDirection.South))
+					deleteTileWall(PackedWall.pack(x0+x, y0+y, CardinalDirection.South), journal);
+				if (null != journal)
+					journal.record(CellsJournal.VISIT, 0, PackedWall.pack(x0+x, y0+y, 0));
+				cells.setCellAsVisited(x0+x, y0+y);
+			}
+		}
+		if (null != journal)
+			tileJournals[tile] = journal;
+		tileNanos[tile] = System.nanoTime() - start;
+	}
+
+	/**
+	 * Deletes a wall inside a tile, the cells of the maze have no journal while tiles are carved.
+	 * @param wall packed wall
+	 * @param journal of the tile, null if changes are not recorded
+	 */
+	private void deleteTileWall(int wall, CellsJournal journal) {
+		if (null != journal)
+			journal.record(CellsJournal.DELETE_WALL, 0, wall);
+		cells.deleteWall(wall);
+	}
+
+	/**
+	 * Derives the seed of a tile stream from the seed of the maze and the position of the tile.
+	 * Nearby positions give unrelated seeds as the value is scrambled as in SplitMix64.
+	 * @param seed is the seed of the maze
+	 * @param x coordinate of the upper left cell of the tile
+	 * @param y coordinate of the upper left cell of the tile
+	 * @return seed for the random number stream of the tile
+	 */
+	protected static long getTileSeed(long seed, int x, int y) {
+		long z = seed + (((long) x << 32) | (y & 0xffffffffL)) * 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Creates a builder for a tile according to the builder algorithm given in the order.
+	 * @param random is the random number stream of the tile
+	 * @return a builder whose generatePathways method can carve a tile
+	 */
+	protected MazeBuilder createTileBuilder(SingleRandom random) {
+		return createTileBuilder(order.getBuilder(), random);
+	}
+
+	/**
+	 * Creates a builder for a tile with the given algorithm.
+	 * Tile builders print nothing, a maze may have many tiles.
+	 * @param builder is the algorithm
+	 * @param random is the random number stream of the tile
+	 * @return a builder whose generatePathways method can carve a tile
+	 */
+	static MazeBuilder createTileBuilder(Builder builder, SingleRandom random) {
+		switch (builder) {
+		case Prim:
+			return new MazeBuilderPrim(random);
+		case Kruskal:
+			return new MazeBuilderKruskal(random);
+		case Eller:
+			return new MazeBuilderEller(random);
+		case DFS:
+		default:
+			return new MazeBuilderCompactDFS(random);
+		}
+	}
+
+	/**
+	 * Joins the tiles with Kruskal's algorithm over the walls on the tile boundaries.
+	 * Walls are considered in random order, a wall goes down if it separates different parts of the maze.
+	 * @param components parts of the maze, updated as walls go down
+	 * @param byTile is true if components has one element per tile, false if it has one element per cell
+	 */
+	protected void joinTiles(DisjointSets components, boolean byTile) {
+		final int[] walls = new int[(tilesX-1) * height + (tilesY-1) * width];
+		int n = 0;
+		for (int tx = 1; tx < tilesX; tx++) {
+			final int x = getTileStart(tx, tilesX, width) - 1;
+			for (int y = 0; y < height; y++) {
+				walls[n++] = PackedWall.pack(x, y, CardinalDirection.East);
+			}
+		}
+		for (int ty = 1; ty < tilesY; ty++) {
+			final int y = getTileStart(ty, tilesY, height) - 1;
+			for (int x = 0; x < width; x++) {
+				walls[n++] = PackedWall.pack(x, y, CardinalDirection.South);
+			}
+		}
+		// shuffle in place, Fisher-Yates
+		for (int i = walls.length - 1; i > 0; i--) {
+			if (0 == (i & CancellationToken.CHECKPOINT_INTERVAL-1))
+				cancellation.checkpoint();
+			final int j = random.nextIntWithinInterval(0, i);
+			final int tmp = walls[i];
+			walls[i] = walls[j];
+			walls[j] = tmp;
+		}
+		for (int i = 0; i < walls.length && components.getNumberOfSets() > 1; i++) {
+			if (0 == (i & CancellationToken.CHECKPOINT_INTERVAL-1))
+				cancellation.checkpoint();
+			final int wall = walls[i];
+			final int cell = getElement(PackedWall.getX(wall), PackedWall.getY(wall), byTile);
+			final int neighbor = getElement(PackedWall.getNeighborX(wall), PackedWall.getNeighborY(wall), byTile);
+			if (cells.wallExists(wall) && components.union(cell, neighbor))
+				cells.deleteWall(wall);
+		}
+	}
+
+	/**
+	 * Gives the element for a cell in the disjoint sets used by joinTiles.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param byTile is true for one element per tile, false for one element per cell
+	 * @return the index of the tile or the cell
+	 */
+	private int getElement(int x, int y, boolean byTile) {
+		return byTile ? tileOfRow[y] * tilesX + tileOfColumn[x] : y * width + x;
+	}
+
+	/**
+	 * @return the number of tiles of the last generated maze
+	 */
+	public int getNumberOfTiles() {
+		return tilesX * tilesY;
+	}
+
+	/**
+	 * @return the sum of the times spent to carve each tile of the last generated maze, in nanoseconds
+	 */
+	public long getTileNanos() {
+		long sum = 0;
+		for (long nanos : tileNanos) {
+			sum += nanos;
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the elapsed time to carve all tiles of the last generated maze, in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Gives the parallelism of the tile phase, the average number of tiles carved at the same time.
+	 * Divided by the parallelism of the pool it is the parallel efficiency of the tile phase.
+	 * This is not the speedup of the builder: it only covers carving the tiles, including the copy
+	 * of their cells, but not joinTiles and the rest of the build, and it compares against the same
+	 * tiles and not against a sequential builder, which carves a single maze without tile boundaries.
+	 * @return time spent in tiles divided by elapsed time of the tile phase
+	 */
+	public double getTileParallelism() {
+		return elapsedNanos > 0 ? (double) getTileNanos() / elapsedNanos : 1.0;
+	}
+
+	/**
+	 * Carves a range of tiles, splits the range in halves to spread the work across the pool.
+	 */
+	private class CarveTiles extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from, to; // tiles from..to-1
+
+		CarveTiles(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				carveTile(from);
+				return;
+			}
+			final int middle = (from + to) >>> 1;
+			invokeAll(new CarveTiles(from, middle), new CarveTiles(middle, to));
+		}
+	}
+}
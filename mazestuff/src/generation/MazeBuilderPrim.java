@@ -1,7 +1,5 @@
 package generation;
 
-import java.util.ArrayList;
-
 /**
   * This class has the responsibility to create a maze of given dimensions (width, height) 
  * together with a solution based on a distance matrix.
@@ -30,24 +28,38 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 		System.out.println("MazeBuilderPrim uses Prim's algorithm to generate maze.");
 	}
 
+	/**
+	 * Constructor for a tile or chunk builder, see MazeBuilderParallel and ChunkedMaze, that prints no message.
+	 * @param random is the random number stream of the tile or chunk
+	 */
+	MazeBuilderPrim(SingleRandom random) {
+		super(random);
+	}
+
 	/**
 	 * This method generates pathways into the maze by using Prim's algorithm to generate a spanning tree for an undirected graph.
 	 * The cells are the nodes of the graph and the spanning tree. An edge represents that one can move from one cell to an adjacent cell.
 	 * So an edge implies that its nodes are adjacent cells in the maze and that there is no wall separating these cells in the maze. 
+	 * Candidate walls are kept in a WallFrontier such that a random extraction takes constant time.
+	 * The sequence of extracted walls only depends on the random number stream, so a deterministic 
+	 * builder (seed is set) produces the same maze on each run.
 	 */
 	@Override
 	protected void generatePathways() {
 		// pick initial position (x,y) at some random position on the maze
 		int x = random.nextIntWithinInterval(0, width-1);
 		int y = random.nextIntWithinInterval(0, height-1);
+		// the initial position is the first cell of the spanning tree, no wall may lead back to it
+		cells.setCellAsVisited(x, y);
 		// create an initial list of all walls that could be removed
 		// those walls lead to adjacent cells that are not part of the spanning tree yet.
-		final ArrayList<Wall> candidates = new ArrayList<Wall>();
+		final WallFrontier candidates = new WallFrontier(2 * (width + height));
 		updateListOfWalls(x, y, candidates);
 		
-		Wall curWall;
+		int curWall;
 		// we need to consider each candidate wall and consider it only once
 		while(!candidates.isEmpty()){
+			cancellation.checkpoint();
 			// in order to have a randomized algorithm,
 			// we randomly select and extract a wall from our candidate set
 			// this also reduces the set to make sure we terminate the loop
@@ -58,8 +70,8 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 				// delete wall from maze, note that this takes place from both directions
 				cells.deleteWall(curWall);
 				// update current position
-				x = curWall.getNeighborX();
-				y = curWall.getNeighborY();
+				x = PackedWall.getNeighborX(curWall);
+				y = PackedWall.getNeighborY(curWall);
 				
 				cells.setCellAsVisited(x, y); // the flag is never reset, so this ensure we never go to (x,y) again
 				updateListOfWalls(x, y, candidates); // checks to see if it has walls to new cells, if it does it adds them to the list
@@ -68,27 +80,27 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 		}
 	}
 	/**
-	 * Pick a random position in the list of candidates, remove the candidate from the list and return it
+	 * Pick a random position in the set of candidates, remove the candidate from the set and return it
 	 * @param candidates
-	 * @return candidate from the list, randomly chosen
+	 * @return candidate from the set, randomly chosen
 	 */
-	private Wall extractWallFromCandidateSetRandomly(final ArrayList<Wall> candidates) {
-		return candidates.remove(random.nextIntWithinInterval(0, candidates.size()-1)); 
+	private int extractWallFromCandidateSetRandomly(final WallFrontier candidates) {
+		return candidates.extractRandomly(random); 
 	}
 	
 
 	/**
-	 * Updates a list of all walls that could be removed from the maze based on walls towards new cells
+	 * Updates a set of all walls that could be removed from the maze based on walls towards new cells
 	 * @param x
 	 * @param y
 	 */
-	private void updateListOfWalls(int x, int y, ArrayList<Wall> walls) {
-		Wall wall = new Wall(x, y, CardinalDirection.East) ;
-		for (CardinalDirection cd : CardinalDirection.values()) {
-			wall.setWall(x, y, cd);
+	private void updateListOfWalls(int x, int y, WallFrontier walls) {
+		int wall;
+		for (int d = 0; d < 4; d++) {
+			wall = PackedWall.pack(x, y, d);
 			if (cells.canGo(wall)) // 
 			{
-				walls.add(new Wall(x, y, cd));
+				walls.add(wall);
 			}
 		}
 	}
@@ -0,0 +1,320 @@
+package generation;
+
+import java.awt.Color;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * This class stores finished mazes on disk such that a deterministic order
+ * that was produced before can be delivered without generating the maze again.
+ * A maze is stored in a file of its own whose name is a hash of everything
+ * the maze depends on: the seed, skill level, dimensions, rooms, expected number of partitioning
+ * iterations (it shapes the BSP tree), builder algorithm,
+ * perfect and parallel flags and the version of the file format.
+ *
+ * The file holds the cells, the distances, the starting position and the BSP tree
+ * in a compact binary format, as the XML format of MazeFileWriter is too slow to read for large mazes.
+ * The total size of the files is bounded, if it is exceeded the least recently used files are deleted.
+ * A cache hit touches the file, so the modification time tells when it was used last.
+ *
+ * Files are written to a temporary file first and then renamed, so a reader
+ * never sees a partially written maze, also not if the application dies while storing.
+ *
+ * @author Katson, Andrew
+ */
+public class MazeCache {
+	static final int MAGIC = 0x4d415a45; // "MAZE", marks the beginning of a file
+	static final int FORMAT_VERSION = 2; // part of the key, files of an older format are never read
+	static final long DEFAULT_MAX_BYTES = 256L << 20; // bound on the total size of all files if not specified
+	static final String SUFFIX = ".maze"; // file name extension of cached mazes
+	static final int HEADER_BYTES = 5 * 4; // MAGIC, width, height and starting position
+	static final int CELL_BYTES = 2 * 4; // value and distance of a cell
+	static final int SEG_BYTES = 6 * 4 + 2; // a segment in a leaf of the BSP tree
+
+	private final File directory; // holds the files
+	private final long maxBytes; // bound on the total size of all files
+
+	/**
+	 * Constructor with a default size limit.
+	 * @param directory holds the files, it is created if it does not exist
+	 */
+	public MazeCache(File directory) {
+		this(directory, DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * Constructor
+	 * @param directory holds the files, it is created if it does not exist
+	 * @param maxBytes is the bound on the total size of all files, 0 <= maxBytes
+	 */
+	public MazeCache(File directory, long maxBytes) {
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		directory.mkdirs();
+	}
+
+	/**
+	 * Computes the key of the maze for a deterministic order.
+	 * @param seed is the seed of the random number stream the maze is generated with
+	 * @param order specifies the maze
+	 * @return key, a hexadecimal string that is a valid file name
+	 */
+	public static String getKey(long seed, Order order) {
+		final String inputs = "v" + FORMAT_VERSION + " seed=" + seed + " skill=" + order.getSkillLevel()
+				+ " width=" + order.getWidth() + " height=" + order.getHeight() + " rooms=" + order.getRooms()
+				+ " partiters=" + order.getExpectedPartiters() + " builder=" + order.getBuilder()
+				+ " perfect=" + order.isPerfect() + " parallel=" + order.isParallel();
+		try {
+			final byte[] hash = MessageDigest.getInstance("SHA-256").digest(inputs.getBytes(StandardCharsets.UTF_8));
+			final StringBuilder key = new StringBuilder();
+			for (byte b : hash) {
+				key.append(String.format("%02x", b));
+			}
+			return key.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Loads the maze for the given key.
+	 * @param key as given by getKey
+	 * @return the maze, null if there is none or it can not be read
+	 */
+	public synchronized MazeConfiguration load(String key) {
+		final File file = getFile(key);
+		if (!file.isFile())
+			return null;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			final MazeConfiguration config = read(in, file.length());
+			// mark the file as recently used
+			file.setLastModified(System.currentTimeMillis());
+			return config;
+		} catch (IOException e) {
+			System.out.println("MazeCache.load: dropping unreadable file " + file + ": " + e);
+			file.delete();
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the maze for the given key and deletes least recently used files as necessary.
+	 * Failures are reported but otherwise ignored, the maze is simply not cached.
+	 * @param key as given by getKey
+	 * @param config is the maze
+	 */
+	public synchronized void store(String key, MazeConfiguration config) {
+		final File file = getFile(key);
+		File temp = null;
+		try {
+			temp = File.createTempFile("store", ".tmp", directory);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				write(out, config);
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			System.out.println("MazeCache.store: can not store maze in " + file + ": " + e);
+			if (null != temp)
+				temp.delete();
+			return;
+		}
+		evict();
+	}
+
+	/**
+	 * Gives the total size of all files.
+	 * @return size in bytes
+	 */
+	public synchronized long getSize() {
+		long size = 0;
+		for (File file : listFiles()) {
+			size += file.length();
+		}
+		return size;
+	}
+
+	/**
+	 * Gives the file for a key.
+	 * @param key
+	 * @return the file that holds or will hold the maze
+	 */
+	private File getFile(String key) {
+		return new File(directory, key + SUFFIX);
+	}
+
+	/**
+	 * Lists the files of cached mazes.
+	 * @return files, empty if the directory can not be read
+	 */
+	private File[] listFiles() {
+		final File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+		return (null == files) ? new File[0] : files;
+	}
+
+	/**
+	 * Deletes least recently used files till the total size is within the bound.
+	 */
+	private void evict() {
+		final File[] files = listFiles();
+		long size = 0;
+		for (File file : files) {
+			size += file.length();
+		}
+		if (size <= maxBytes)
+			return;
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+		for (int i = 0; i < files.length && size > maxBytes; i++) {
+			final long length = files[i].length();
+			if (files[i].delete())
+				size -= length;
+		}
+	}
+
+	/**
+	 * Writes a maze in the binary format.
+	 * @param out
+	 * @param config
+	 * @throws IOException
+	 */
+	static void write(DataOutputStream out, MazeConfiguration config) throws IOException {
+		final int width = config.getWidth();
+		final int height = config.getHeight();
+		final int[] start = config.getStartingPosition();
+		out.writeInt(MAGIC);
+		out.writeInt(width);
+		out.writeInt(height);
+		out.writeInt(start[0]);
+		out.writeInt(start[1]);
+		final Cells cells = config.getMazecells();
+		final int[][] dists = config.getMazedists().getDists();
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				out.writeInt(cells.getValueOfCell(x, y));
+				out.writeInt(dists[x][y]);
+			}
+		}
+		writeNode(out, config.getRootnode());
+	}
+
+	/**
+	 * Writes a BSP tree in preorder, the bounds of the nodes are not written
+	 * as they are computed from the segments when the tree is read.
+	 * @param out
+	 * @param node is the root of the tree
+	 * @throws IOException
+	 */
+	private static void writeNode(DataOutputStream out, BSPNode node) throws IOException {
+		out.writeBoolean(node.isIsleaf());
+		if (node.isIsleaf()) {
+			final ArrayList<Seg> segs = ((BSPLeaf) node).getSlist();
+			out.writeInt(segs.size());
+			for (Seg seg : segs) {
+				out.writeInt(seg.getStartPositionX());
+				out.writeInt(seg.getStartPositionY());
+				out.writeInt(seg.getExtensionX());
+				out.writeInt(seg.getExtensionY());
+				out.writeInt(seg.getDistance());
+				out.writeInt(seg.getColor().getRGB());
+				out.writeBoolean(seg.isSeen());
+				out.writeBoolean(seg.isPartition());
+			}
+		}
+		else {
+			final BSPBranch branch = (BSPBranch) node;
+			out.writeInt(branch.getX());
+			out.writeInt(branch.getY());
+			out.writeInt(branch.getDx());
+			out.writeInt(branch.getDy());
+			writeNode(out, branch.getLeftBranch());
+			writeNode(out, branch.getRightBranch());
+		}
+	}
+
+	/**
+	 * Reads a maze in the binary format.
+	 * Counts are checked against the length of the data before anything is allocated,
+	 * so a damaged file gives an IOException and not an OutOfMemoryError.
+	 * @param in
+	 * @param length is the number of bytes of the data, e.g. the length of the file
+	 * @return the maze
+	 * @throws IOException if the data is not a maze in this format
+	 */
+	static MazeConfiguration read(DataInputStream in, long length) throws IOException {
+		if (MAGIC != in.readInt())
+			throw new IOException("not a maze file");
+		final int width = in.readInt();
+		final int height = in.readInt();
+		final int startx = in.readInt();
+		final int starty = in.readInt();
+		if (!MazeBuilder.isValidSize(width, height) || (long) width * height * CELL_BYTES > length - HEADER_BYTES)
+			throw new IOException("invalid dimensions " + width + "x" + height);
+		final int[][] values = new int[width][height];
+		final int[][] dists = new int[width][height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				values[x][y] = in.readInt();
+				dists[x][y] = in.readInt();
+			}
+		}
+		final MazeConfiguration config = new MazeContainer();
+		config.setWidth(width);
+		config.setHeight(height);
+		config.setMazecells(new Cells(values));
+		config.setMazedists(new Distance(dists));
+		config.setRootnode(readNode(in, length));
+		config.setStartingPosition(startx, starty);
+		return config;
+	}
+
+	/**
+	 * Reads a BSP tree in preorder.
+	 * @param in
+	 * @param length is the number of bytes of the data, bounds the number of segments
+	 * @return the root of the tree
+	 * @throws IOException
+	 */
+	private static BSPNode readNode(DataInputStream in, long length) throws IOException {
+		if (in.readBoolean()) {
+			final int n = in.readInt();
+			if (n < 0 || (long) n * SEG_BYTES > length)
+				throw new IOException("invalid number of segments " + n);
+			final ArrayList<Seg> segs = new ArrayList<Seg>(n);
+			for (int i = 0; i < n; i++) {
+				final int x = in.readInt();
+				final int y = in.readInt();
+				final int dx = in.readInt();
+				final int dy = in.readInt();
+				final int dist = in.readInt();
+				// the color is set explicitly, as in MazeFileReader
+				final Seg seg = new Seg(x, y, dx, dy, dist, 0);
+				seg.setColor(new Color(in.readInt()));
+				seg.setSeen(in.readBoolean());
+				seg.setPartition(in.readBoolean());
+				segs.add(seg);
+			}
+			return new BSPLeaf(segs);
+		}
+		final int x = in.readInt();
+		final int y = in.readInt();
+		final int dx = in.readInt();
+		final int dy = in.readInt();
+		final BSPNode left = readNode(in, length);
+		final BSPNode right = readNode(in, length);
+		return new BSPBranch(x, y, dx, dy, left, right);
+	}
+}
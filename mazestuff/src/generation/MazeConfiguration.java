@@ -46,6 +46,20 @@ public interface MazeConfiguration {
 	 */
 	void setMazecells(Cells mazecells);
 
+	/**
+	 * Replaces the cells of a finished maze by a compact, immutable copy, see FrozenCells.
+	 * Walls, the exit and rooms stay the same, visited flags and bounds are dropped,
+	 * and the cells can no longer be changed. Freezing frozen cells has no effect.
+	 */
+	void freeze();
+
+	/**
+	 * Releases what the cells hold outside of the heap, e.g. deletes the temporary file of MappedCells.
+	 * To be called when a maze is discarded, the maze must not be used afterwards.
+	 * Freezing releases the same, as frozen cells are a copy.
+	 */
+	void dispose();
+
 	/**
 	 * Gets a distance object for this maze to describe 
 	 * for each position how many steps it is towards the exit.
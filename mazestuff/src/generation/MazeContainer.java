@@ -56,6 +56,29 @@ public class MazeContainer implements MazeConfiguration {
 		this.mazecells = mazecells;
 	}
 
+	@Override
+	public void freeze() {
+		if (null != mazecells && !(mazecells instanceof FrozenCells)) {
+			final Cells cells = mazecells;
+			mazecells = new FrozenCells(cells);
+			close(cells);
+		}
+	}
+
+	@Override
+	public void dispose() {
+		close(mazecells);
+	}
+
+	/**
+	 * Closes mapped cells, which deletes their temporary file.
+	 * @param cells may be null
+	 */
+	private static void close(Cells cells) {
+		if (cells instanceof MappedCells)
+			((MappedCells) cells).close();
+	}
+
 	/**
 	 * Gives the distance. 
 	 * Warning, returns direct access to internal field.
@@ -129,17 +152,15 @@ public class MazeContainer implements MazeConfiguration {
 		// find best candidate
 		int dnext = getDistanceToExit(x, y) ;
 		int[] result = new int[2] ;
-		int[] dir;
 		for (CardinalDirection cd: CardinalDirection.values()) {
 			if (hasWall(x, y, cd)) 
 				continue; // there is a wall
 			// no wall, let's check the distance
-			dir = cd.getDirection();
-			int dn = getDistanceToExit(x+dir[0], y+dir[1]);
+			int dn = getDistanceToExit(x+cd.getDx(), y+cd.getDy());
 			if (dn < dnext) {
 				// update neighbor position with min distance
-				result[0] = x+dir[0] ;
-				result[1] = y+dir[1] ;
+				result[0] = x+cd.getDx() ;
+				result[1] = y+cd.getDy() ;
 				dnext = dn ;
 			}	
 		}
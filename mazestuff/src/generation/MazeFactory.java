@@ -3,99 +3,177 @@ package generation;
 import generation.Factory;
 import generation.Order;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 
 /**
- * This class encapsulates how a maze is generated. 
- * It takes orders to produce a maze, delegates it to the matching maze builder 
- * that computes and delivers the maze. This class operates the worker thread
+ * This class encapsulates how a maze is generated.
+ * It takes orders to produce a maze, delegates it to the matching maze builder
+ * that computes and delivers the maze. This class operates a pool of worker threads
  * to do the computation in the background. The maze builder classes contribute
- * a run method to execute on the worker thread.
+ * a run method to execute on a worker thread.
+ *
+ * Accepted orders wait in a queue till a worker is available. The number of orders
+ * that are queued or in production is bounded. If the bound is reached, order(Order)
+ * refuses further orders and order(Order, long, TimeUnit) waits for an order to complete.
+ * Each order can be cancelled individually. Cancelling an order cancels the CancellationToken
+ * of its builder, which stops within a few milliseconds, so the worker is free for the next order.
+ *
+ * Orders can also be placed with orderAsync, the maze is then delivered to the order
+ * and completes a CompletableFuture. Progress is published to an optional Flow.Subscriber.
+ * Cancelling the future cancels the order.
+ *
+ * Each order gets a random number stream of its own that is passed to its builder,
+ * so builders that run at the same time do not compete for a shared generator.
+ * For deterministic generation each stream starts with the same seed, so an order
+ * always results in the same maze, no matter how many workers there are or
+ * which other orders are in production.
+ *
+ * A deterministic factory can be given a MazeCache. An order is then first looked up in the cache
+ * and delivered from disk if it was produced before, otherwise the maze is generated and stored.
  */
 public class MazeFactory implements Factory {
+	static final int DEFAULT_WORKERS = 1; // number of worker threads if not specified
+	static final int DEFAULT_QUEUE_CAPACITY = 16; // number of orders that can wait for a worker if not specified
+	static final int DETERMINISTIC_SEED = 3; // seed of the random number stream of each order for deterministic generation
+
 	// generation can be deterministic, i.e. same maze is generated each time for a given size
 	private boolean deterministic;
-	// factory keeps track of the current order, takes at most one order at a time
-	private Order currentOrder;
-	// factory has a MazeBuilder to do the work
+	// random number streams of orders are split from this one for randomized generation
+	private final SingleRandom streams;
+	// finished mazes on disk, only used for deterministic generation, null if there is none
+	private MazeCache cache;
+	// holds memory mapped files for the cells of mazes, null to keep the cells on the heap
+	private File cellsDirectory;
+	// number of changes a journal of the cells of each maze keeps, 0 for no journal
+	private int journalCapacity;
+	// factory has a MazeBuilder per order to do the work
 	// note that subclasses are instantiated for specific algorithms such as Prim's
-	// according to the given order
+	// according to the given order, this is the builder of the most recently accepted order
 	private MazeBuilder builder;
-	// 
-	private Thread buildThread; // computations are performed in own separated thread with this.run()
-	
+	//
+	private final ExecutorService workers; // computations are performed by a pool of worker threads
+	private final Semaphore capacity; // one permit per order that is queued or in production
+	private final Map<Order, Future<?>> outstanding; // orders that are queued or in production
+
 	//////////////////////// Constructor ////////////////////////////////////////
 	/**
 	 * Constructor for a randomized maze generation
 	 */
 	public MazeFactory(){
-		// nothing to do
+		this(false);
 	}
 	/**
 	 * Constructor with option to make maze generation deterministic or random
 	 */
 	public MazeFactory(boolean deterministic){
+		this(deterministic, DEFAULT_WORKERS, DEFAULT_QUEUE_CAPACITY);
+	}
+	/**
+	 * Constructor with option to make maze generation deterministic or random
+	 * and to configure the worker pool.
+	 * @param deterministic is true if the same maze should be generated each time for a given order
+	 * @param workers is the number of mazes that are produced concurrently, 0 < workers
+	 * @param queueCapacity is the number of accepted orders that can wait for a worker, 0 <= queueCapacity
+	 */
+	public MazeFactory(boolean deterministic, int workers, int queueCapacity){
 		this.deterministic = deterministic;
+		this.streams = SingleRandom.getRandom().split();
+		this.workers = Executors.newFixedThreadPool(workers, new WorkerThreadFactory());
+		this.capacity = new Semaphore(workers + queueCapacity);
+		this.outstanding = new ConcurrentHashMap<Order, Future<?>>();
 	}
-	
+
 	//////////////////////// Factory interface //////////////////////////////////
 	@Override
 	public boolean order(Order order) {
-		// check if factory is busy
-		if (null != buildThread && buildThread.isAlive()) {
-			// order is currently processed, don't queue, just refuse
-			System.out.println("MazeFactory.order: refusing to take order, too busy with current order");
+		// check if factory is at its limit
+		if (!capacity.tryAcquire()) {
+			// queue is full, don't wait, just refuse
+			System.out.println("MazeFactory.order: refusing to take order, queue is full");
 			return false;
 		}
-		// idle, so accept order
-		currentOrder = order;
-		// set builder according to order
-		switch (order.getBuilder()) {
-		case DFS :
-			builder = deterministic? new MazeBuilder(true) : new MazeBuilder();
-			buildOrder();
-			break;
-		case Prim:
-			builder = deterministic? new MazeBuilderPrim(true) : new MazeBuilderPrim();
-			buildOrder();
-			break;
-		case Kruskal:
-			builder = deterministic ? new MazeBuilderKruskal(true) : new MazeBuilderKruskal();
-			buildOrder();
-			break;
-		default:
-			System.out.println("MazeFactory.order: missing implementation for requested algorithm: " + order.getBuilder());
+		return accept(order);
+	}
+	@Override
+	public boolean order(Order order, long timeout, TimeUnit unit) throws InterruptedException {
+		// wait for an order to complete if factory is at its limit
+		if (!capacity.tryAcquire(timeout, unit)) {
+			System.out.println("MazeFactory.order: refusing to take order, queue is still full after waiting");
 			return false;
 		}
-		return true ;
+		return accept(order);
+	}
+	@Override
+	public CompletableFuture<MazeConfiguration> orderAsync(Order order) {
+		return orderAsync(order, null);
+	}
+	@Override
+	public CompletableFuture<MazeConfiguration> orderAsync(Order order, Flow.Subscriber<? super Integer> progress) {
+		final AsyncOrder asyncOrder = new AsyncOrder(order, progress);
+		if (!order(asyncOrder)) {
+			asyncOrder.productionDone(new RejectedExecutionException("MazeFactory.orderAsync: order refused"));
+		}
+		return asyncOrder.result;
 	}
 	@Override
 	public void cancel() {
 		System.out.println("MazeFactory.cancel: called");
-		if (null != buildThread) {
-			buildThread.interrupt() ;
-			buildThread = null; // allow for next order to get through
+		if (outstanding.isEmpty()) {
+			System.out.println("MazeFactory.cancel: no order to cancel");
 		}
-		else {
-			System.out.println("MazeFactory.cancel: no thread to cancel");
+		for (Future<?> production : new ArrayList<Future<?>>(outstanding.values())) {
+			production.cancel(true); // interrupts the worker, clean up happens in interrupt handling in run method
 		}
-		// clean up happens in interrupt handling in run method
 		builder = null;
-		currentOrder = null;
+	}
+	@Override
+	public boolean cancel(Order order) {
+		final Future<?> production = outstanding.get(order);
+		if (null == production) {
+			System.out.println("MazeFactory.cancel: order is not queued or in production");
+			return false;
+		}
+		// clean up happens in interrupt handling in run method
+		return production.cancel(true);
 	}
 	@Override
 	public void waitTillDelivered() {
-		if (null != buildThread) {
+		if (outstanding.isEmpty()) {
+			System.out.println("MazeBuilder.waitTillDelivered: no order to wait for");
+		}
+		for (Future<?> production : new ArrayList<Future<?>>(outstanding.values())) {
 			try {
-				buildThread.join();
-			} catch (Exception e) { 
-				System.out.println("MazeBuilder.wailTillDelivered: join synchronization with builder thread lead to an exception") ;
+				production.get();
+			} catch (CancellationException e) {
+				// cancelled orders are not delivered, nothing to wait for
+			} catch (ExecutionException e) {
+				System.out.println("MazeBuilder.waitTillDelivered: builder failed with an exception: " + e.getCause());
+			} catch (InterruptedException e) {
+				System.out.println("MazeBuilder.waitTillDelivered: interrupted while waiting for builder");
+				Thread.currentThread().interrupt();
+				break;
 			}
 		}
-		else {
-			System.out.println("MazeBuilder.waitTillDelivered: no thread to wait for");
-		}
 		builder = null;
-		currentOrder = null;
 	}
 	/**
 	 * Get the MazeBuilder for testing TODO
@@ -104,18 +182,406 @@ public class MazeFactory implements Factory {
 	public MazeBuilder getMazeBuilder() {
 		return this.builder;
 	}
+	/**
+	 * Gives the number of orders that are accepted but not yet delivered or cancelled.
+	 * @return number of orders that are queued or in production
+	 */
+	public int getNumberOfOutstandingOrders() {
+		return outstanding.size();
+	}
+	/**
+	 * Stops the worker threads. Outstanding orders are cancelled
+	 * and no further orders can be placed.
+	 */
+	public void shutdown() {
+		cancel();
+		workers.shutdownNow();
+	}
+
+
+	/**
+	 * Sets the cache of finished mazes on disk. It is only used for deterministic generation,
+	 * as randomized orders give a different maze each time.
+	 * @param cache holds finished mazes, null to generate each maze
+	 */
+	public void setMazeCache(MazeCache cache) {
+		this.cache = cache;
+	}
+	/**
+	 * Sets a directory for the cells of mazes. Builders then keep the cells outside of the heap
+	 * in memory mapped files in that directory, see MappedCells, which is meant for mazes larger than the heap.
+	 * @param cellsDirectory holds the files, null to keep the cells on the heap
+	 */
+	public void setCellsDirectory(File cellsDirectory) {
+		this.cellsDirectory = cellsDirectory;
+	}
+	/**
+	 * Records the generation of each maze in a journal, see CellsJournal.
+	 * The journal of a delivered maze is given by getMazecells().getJournal(),
+	 * a journal with no dropped records replays the generation from the start.
+	 * Mazes loaded from a MazeCache have no journal.
+	 * @param journalCapacity number of changes a journal keeps, 0 or less for no journal
+	 */
+	public void setJournalCapacity(int journalCapacity) {
+		this.journalCapacity = journalCapacity;
+	}
 
-	
 	///////////////////////// private methods ///////////////////////////////////
 	/**
-	 * Provide the builder with necessary input and start its execution
+	 * Sets up the builder for an order and queues it for production.
+	 * Assumes that a permit for the order has been acquired.
+	 * @param order
+	 * @return true if the order is queued, false if the requested algorithm is not available
+	 */
+	private boolean accept(Order order) {
+		if (!MazeBuilder.isValidSize(order.getWidth(), order.getHeight())) {
+			System.out.println("MazeFactory.order: invalid maze size " + order.getWidth() + "x" + order.getHeight());
+			capacity.release();
+			return false;
+		}
+		final MazeBuilder orderBuilder = createBuilder(order);
+		if (null == orderBuilder) {
+			capacity.release();
+			return false;
+		}
+		orderBuilder.setRandom(createRandom());
+		orderBuilder.setCancellationToken(new CancellationToken());
+		orderBuilder.setCellsDirectory(cellsDirectory);
+		orderBuilder.setJournalCapacity(journalCapacity);
+		builder = orderBuilder;
+		if (deterministic && null != cache) {
+			buildOrder(order, orderBuilder, cache, MazeCache.getKey(DETERMINISTIC_SEED, order));
+		}
+		else {
+			buildOrder(order, orderBuilder);
+		}
+		return true;
+	}
+	/**
+	 * Creates a builder according to the given order.
+	 * @param order
+	 * @return the builder, null if there is no implementation for the requested algorithm
+	 */
+	private MazeBuilder createBuilder(Order order) {
+		// parallel generation carves tiles with the requested algorithm
+		if (order.isParallel()) {
+			final MazeBuilderParallel parallelBuilder = new MazeBuilderParallel();
+			// the same maze for any number of threads
+			parallelBuilder.setDeterministic(deterministic);
+			return parallelBuilder;
+		}
+		// set builder according to order
+		switch (order.getBuilder()) {
+		case DFS :
+			return new MazeBuilderCompactDFS();
+		case Prim:
+			return new MazeBuilderPrim();
+		case Kruskal:
+			return new MazeBuilderKruskal();
+		case Eller:
+			return new MazeBuilderEller();
+		default:
+			System.out.println("MazeFactory.order: missing implementation for requested algorithm: " + order.getBuilder());
+			return null;
+		}
+	}
+	/**
+	 * Creates the random number stream for an order.
+	 * @return a stream that starts with the same seed for deterministic generation, a new independent stream otherwise
 	 */
-	private void buildOrder() { 
-		if (null == builder)
-			return;
+	private SingleRandom createRandom() {
+		if (deterministic) {
+			return SingleRandom.newStream(DETERMINISTIC_SEED);
+		}
+		// orders may be placed by several threads, the stream to split from is not thread safe
+		synchronized (streams) {
+			return streams.split();
+		}
+	}
+	/**
+	 * Queue the execution of the builder.
+	 * The worker provides the builder with its input, so cells and distances
+	 * are only allocated once the order is taken from the queue, and placing an order does not block.
+	 */
+	private void buildOrder(final Order order, final MazeBuilder orderBuilder) {
 		System.out.println("MazeFactory.buildOrder: started") ;
-		builder.buildOrder(currentOrder);
-		buildThread = new Thread(builder);
-		buildThread.start();
+		final Production production = new Production(order, new Runnable() {
+			@Override
+			public void run() {
+				orderBuilder.buildOrder(order);
+				orderBuilder.run();
+			}
+		}, orderBuilder.cancellation);
+		outstanding.put(order, production);
+		workers.execute(production);
+	}
+	/**
+	 * Queues an order that is delivered from the cache if possible.
+	 * The worker looks up the maze and only runs the builder if it is not in the cache.
+	 * A generated maze is stored before it is delivered, as the order may change it.
+	 */
+	private void buildOrder(final Order order, final MazeBuilder orderBuilder, final MazeCache mazeCache, final String key) {
+		System.out.println("MazeFactory.buildOrder: started, looking up maze in cache") ;
+		final Production production = new Production(order, new Runnable() {
+			@Override
+			public void run() {
+				final MazeConfiguration cached = mazeCache.load(key);
+				if (null == cached) {
+					orderBuilder.buildOrder(new CachingOrder(order, mazeCache, key));
+					orderBuilder.run();
+				}
+				else if (!orderBuilder.cancellation.isCancelled()) {
+					// no generation stages, the maze is complete
+					order.updateProgress(100);
+					order.deliver(cached);
+				}
+			}
+		}, orderBuilder.cancellation);
+		outstanding.put(order, production);
+		workers.execute(production);
+	}
+
+	/**
+	 * Production of a single order on a worker thread.
+	 * Once it is done, delivered or cancelled, the order makes room for the next order.
+	 * The room is made before waiting threads are woken up, so after waitTillDelivered
+	 * the factory accepts orders again.
+	 */
+	private class Production extends FutureTask<Void> {
+		private final Order order;
+		private final CancellationToken cancellation; // tells the builder to stop
+		private final AtomicBoolean finished = new AtomicBoolean(); // makes sure room is made only once
+
+		Production(Order order, Runnable work, CancellationToken cancellation) {
+			super(work, null);
+			this.order = order;
+			this.cancellation = cancellation;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			// the token also reaches work the builder handed to other threads
+			cancellation.cancel();
+			return super.cancel(mayInterruptIfRunning);
+		}
+
+		@Override
+		protected void set(Void result) {
+			finish();
+			super.set(result);
+		}
+
+		@Override
+		protected void setException(Throwable t) {
+			finish();
+			super.setException(t);
+		}
+
+		@Override
+		protected void done() {
+			// only needed if the order is cancelled, otherwise set or setException made room already
+			finish();
+			if (order instanceof AsyncOrder) {
+				Throwable failure = null;
+				try {
+					get();
+				} catch (ExecutionException e) {
+					failure = e.getCause();
+				} catch (CancellationException | InterruptedException e) {
+					// not delivered, no failure to report
+				}
+				((AsyncOrder) order).productionDone(failure);
+			}
+		}
+
+		/**
+		 * Removes the order from the outstanding orders and releases its permit.
+		 */
+		private void finish() {
+			if (finished.compareAndSet(false, true)) {
+				outstanding.remove(order, this);
+				capacity.release();
+			}
+		}
+	}
+
+	/**
+	 * Order that stores the maze in the cache before it is delivered to the given order.
+	 */
+	private static class CachingOrder implements Order {
+		private final Order order; // specifies the maze and receives it
+		private final MazeCache cache;
+		private final String key; // key of the maze in the cache
+
+		CachingOrder(Order order, MazeCache cache, String key) {
+			this.order = order;
+			this.cache = cache;
+			this.key = key;
+		}
+
+		@Override
+		public int getSkillLevel() {
+			return order.getSkillLevel();
+		}
+		@Override
+		public Builder getBuilder() {
+			return order.getBuilder();
+		}
+		@Override
+		public boolean isPerfect() {
+			return order.isPerfect();
+		}
+		@Override
+		public boolean isParallel() {
+			return order.isParallel();
+		}
+		@Override
+		public int getWidth() {
+			return order.getWidth();
+		}
+		@Override
+		public int getHeight() {
+			return order.getHeight();
+		}
+		@Override
+		public int getRooms() {
+			return order.getRooms();
+		}
+		@Override
+		public int getExpectedPartiters() {
+			return order.getExpectedPartiters();
+		}
+		@Override
+		public void deliver(MazeConfiguration mazeConfig) {
+			cache.store(key, mazeConfig);
+			order.deliver(mazeConfig);
+		}
+		@Override
+		public void updateProgress(int percentage) {
+			order.updateProgress(percentage);
+		}
+	}
+
+	/**
+	 * Order placed with orderAsync. Forwards to the given order and in addition
+	 * completes a future on delivery and publishes progress.
+	 */
+	private class AsyncOrder implements Order {
+		private final Order order; // specifies the maze, receives progress and delivery as usual
+		private final SubmissionPublisher<Integer> progress; // null if there is no subscriber
+		final CompletableFuture<MazeConfiguration> result;
+		private volatile MazeConfiguration delivered; // set on delivery, the future completes when the production is done
+		private int published = -1; // last value offered to the subscriber, guarded by this
+
+		AsyncOrder(Order order, Flow.Subscriber<? super Integer> subscriber) {
+			this.order = order;
+			if (null != subscriber) {
+				progress = new SubmissionPublisher<Integer>();
+				progress.subscribe(subscriber);
+			}
+			else {
+				progress = null;
+			}
+			result = new CompletableFuture<MazeConfiguration>() {
+				@Override
+				public boolean cancel(boolean mayInterruptIfRunning) {
+					final boolean cancelled = super.cancel(mayInterruptIfRunning);
+					if (cancelled)
+						MazeFactory.this.cancel(AsyncOrder.this);
+					return cancelled;
+				}
+			};
+		}
+
+		@Override
+		public int getSkillLevel() {
+			return order.getSkillLevel();
+		}
+		@Override
+		public Builder getBuilder() {
+			return order.getBuilder();
+		}
+		@Override
+		public boolean isPerfect() {
+			return order.isPerfect();
+		}
+		@Override
+		public boolean isParallel() {
+			return order.isParallel();
+		}
+		@Override
+		public int getWidth() {
+			return order.getWidth();
+		}
+		@Override
+		public int getHeight() {
+			return order.getHeight();
+		}
+		@Override
+		public int getRooms() {
+			return order.getRooms();
+		}
+		@Override
+		public int getExpectedPartiters() {
+			return order.getExpectedPartiters();
+		}
+		@Override
+		public void deliver(MazeConfiguration mazeConfig) {
+			order.deliver(mazeConfig);
+			delivered = mazeConfig;
+			if (null != progress)
+				progress.close();
+		}
+		@Override
+		public void updateProgress(int percentage) {
+			order.updateProgress(percentage);
+			if (null == progress)
+				return;
+			// builders may estimate beyond 100, e.g. BSPBuilder with more partitioning iterations than expected,
+			// subscribers get a value in [0,100] only if it is larger than the one before
+			final int value = Math.max(0, Math.min(100, percentage));
+			synchronized (this) {
+				if (value <= published)
+					return;
+				published = value;
+				// progress is informative, drop values a slow subscriber can not keep up with
+				// instead of blocking the builder
+				progress.offer(value, null);
+			}
+		}
+
+		/**
+		 * Completes the future once the factory is done with the order, such that
+		 * the factory has room for another order when the future completes.
+		 * @param failure is the exception thrown by the builder, null if the order was delivered or cancelled
+		 */
+		void productionDone(Throwable failure) {
+			if (null != delivered) {
+				result.complete(delivered);
+				return; // the progress stream is closed already
+			}
+			if (null == failure)
+				failure = new CancellationException("MazeFactory: order cancelled before delivery");
+			// the future may be cancelled already, then it stays as it is
+			result.completeExceptionally(failure);
+			if (null != progress)
+				progress.closeExceptionally(failure);
+		}
+	}
+
+	/**
+	 * Creates daemon worker threads such that an idle factory does not keep the application alive.
+	 */
+	private static class WorkerThreadFactory implements ThreadFactory {
+		private static final AtomicInteger factoryCount = new AtomicInteger();
+		private final int factoryNumber = factoryCount.incrementAndGet();
+		private final AtomicInteger threadCount = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r, "MazeFactory-" + factoryNumber + "-worker-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
 	}
 }
@@ -0,0 +1,287 @@
+package generation;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import generation.Order.Builder;
+import gui.Constants;
+
+/**
+ * This class keeps mazes that are generated ahead of time such that an order
+ * can be served immediately instead of waiting for the factory.
+ * Mazes are kept per key of skill level, builder algorithm and perfect flag, together with
+ * the dimensions, rooms and partitioning iterations for orders that do not take them from the skill level.
+ * Each time a maze is taken for a key, the pool orders replacements from its factory
+ * in the background till there are a given number of mazes ready for that key.
+ *
+ * The memory of ready mazes is bounded by the total number of cells.
+ * If the bound is exceeded, the oldest maze of the key that was used least recently is dropped.
+ *
+ * The pool ignores the parallel flag of an order, a maze generated in tiles
+ * is no different for the player than one generated in a single piece.
+ * A maze is handed out only once. Ready mazes are frozen, see FrozenCells, so they take
+ * less memory and can not be changed.
+ *
+ * @author Katson, Andrew
+ */
+public class MazePool {
+	static final int DEFAULT_MAZES_PER_KEY = 1; // number of mazes kept ready per key if not specified
+	static final long DEFAULT_MAX_CELLS = 1 << 22; // bound on the total number of cells of ready mazes if not specified
+
+	private final Factory factory; // produces the mazes in the background
+	private final int mazesPerKey; // number of mazes to keep ready per key
+	private final long maxCells; // bound on the total number of cells of ready mazes
+	// ready mazes per key, iteration order is from least recently to most recently used key
+	private final LinkedHashMap<Key, ArrayDeque<MazeConfiguration>> ready;
+	private final Map<Key, Integer> pending; // number of mazes in production per key
+	private long cellCount; // total number of cells of ready mazes
+
+	/**
+	 * Constructor for a pool with default settings.
+	 * @param factory produces the mazes, it should not be used for other orders
+	 * as cancelling all its orders would cancel the refills as well
+	 */
+	public MazePool(Factory factory) {
+		this(factory, DEFAULT_MAZES_PER_KEY, DEFAULT_MAX_CELLS);
+	}
+
+	/**
+	 * Constructor
+	 * @param factory produces the mazes, it should not be used for other orders
+	 * @param mazesPerKey is the number of mazes to keep ready per key, 0 < mazesPerKey
+	 * @param maxCells is the bound on the total number of cells of ready mazes, 0 <= maxCells
+	 */
+	public MazePool(Factory factory, int mazesPerKey, long maxCells) {
+		this.factory = factory;
+		this.mazesPerKey = mazesPerKey;
+		this.maxCells = maxCells;
+		ready = new LinkedHashMap<Key, ArrayDeque<MazeConfiguration>>(16, 0.75f, true);
+		pending = new HashMap<Key, Integer>();
+	}
+
+	/**
+	 * Takes a ready maze for the given order and orders a replacement.
+	 * The method returns immediately, the order is not notified.
+	 * @param order specifies the maze
+	 * @return a maze as specified, null if none is ready
+	 */
+	public synchronized MazeConfiguration take(Order order) {
+		final Key key = new Key(order);
+		final ArrayDeque<MazeConfiguration> mazes = ready.get(key);
+		MazeConfiguration result = null;
+		if (null != mazes && !mazes.isEmpty()) {
+			result = mazes.removeFirst();
+			cellCount -= getCells(result);
+		}
+		refill(key);
+		return result;
+	}
+
+	/**
+	 * Orders mazes for the given key in the background till the number of mazes per key are ready.
+	 * @param skillLevel of the mazes
+	 * @param builder algorithm of the mazes
+	 * @param perfect is true for mazes without rooms
+	 */
+	public synchronized void prefill(int skillLevel, Builder builder, boolean perfect) {
+		refill(Key.forSkill(skillLevel, builder, perfect));
+	}
+
+	/**
+	 * Gives the number of mazes that are ready for the given key.
+	 * @param skillLevel of the mazes
+	 * @param builder algorithm of the mazes
+	 * @param perfect is true for mazes without rooms
+	 * @return number of ready mazes
+	 */
+	public synchronized int getNumberOfReadyMazes(int skillLevel, Builder builder, boolean perfect) {
+		// ready.get would count as a use of the key, so search instead
+		final Key key = Key.forSkill(skillLevel, builder, perfect);
+		for (Map.Entry<Key, ArrayDeque<MazeConfiguration>> entry : ready.entrySet()) {
+			if (entry.getKey().equals(key))
+				return entry.getValue().size();
+		}
+		return 0;
+	}
+
+	/**
+	 * Gives the total number of cells of all ready mazes.
+	 * @return number of cells
+	 */
+	public synchronized long getNumberOfCells() {
+		return cellCount;
+	}
+
+	/**
+	 * Orders as many mazes as are missing for the given key.
+	 * @param key
+	 */
+	private void refill(Key key) {
+		final ArrayDeque<MazeConfiguration> mazes = ready.get(key);
+		final int available = (null == mazes) ? 0 : mazes.size();
+		// a refused order completes right away and calls produced on this thread,
+		// so count it as pending before it is placed
+		for (int missing = mazesPerKey - available - pending.getOrDefault(key, 0); missing > 0; missing--) {
+			pending.put(key, pending.getOrDefault(key, 0) + 1);
+			factory.orderAsync(new PoolOrder(key)).whenComplete((config, failure) -> produced(key, config));
+		}
+	}
+
+	/**
+	 * Adds a maze that the factory produced for the given key.
+	 * @param key
+	 * @param config is the maze, null if the production failed or was cancelled
+	 */
+	private synchronized void produced(Key key, MazeConfiguration config) {
+		pending.put(key, pending.get(key) - 1);
+		if (null == config)
+			return;
+		// ready mazes are only read, keep them compact
+		config.freeze();
+		ArrayDeque<MazeConfiguration> mazes = ready.get(key);
+		if (null == mazes) {
+			mazes = new ArrayDeque<MazeConfiguration>();
+			ready.put(key, mazes);
+		}
+		mazes.addLast(config);
+		cellCount += getCells(config);
+		evict();
+	}
+
+	/**
+	 * Drops mazes till the total number of cells is within the bound.
+	 * The oldest maze of the least recently used key goes first.
+	 */
+	private void evict() {
+		final Iterator<ArrayDeque<MazeConfiguration>> keys = ready.values().iterator();
+		while (cellCount > maxCells && keys.hasNext()) {
+			final ArrayDeque<MazeConfiguration> mazes = keys.next();
+			while (cellCount > maxCells && !mazes.isEmpty()) {
+				final MazeConfiguration config = mazes.removeFirst();
+				cellCount -= getCells(config);
+				config.dispose();
+			}
+			if (mazes.isEmpty())
+				keys.remove();
+		}
+	}
+
+	/**
+	 * Gives the number of cells of a maze, which is what its memory is proportional to.
+	 * @param config is the maze
+	 * @return number of cells
+	 */
+	private static long getCells(MazeConfiguration config) {
+		return (long) config.getWidth() * config.getHeight();
+	}
+
+	/**
+	 * Identifies the kind of maze an order asks for.
+	 */
+	private static final class Key {
+		private final int skillLevel;
+		private final Builder builder;
+		private final boolean perfect;
+		private final int width;
+		private final int height;
+		private final int rooms;
+		private final int partiters;
+
+		Key(Order order) {
+			this(order.getSkillLevel(), order.getBuilder(), order.isPerfect(),
+					order.getWidth(), order.getHeight(), order.getRooms(), order.getExpectedPartiters());
+		}
+
+		Key(int skillLevel, Builder builder, boolean perfect, int width, int height, int rooms, int partiters) {
+			this.skillLevel = skillLevel;
+			this.builder = builder;
+			this.perfect = perfect;
+			this.width = width;
+			this.height = height;
+			this.rooms = rooms;
+			this.partiters = partiters;
+		}
+
+		/**
+		 * Gives the key for an order that takes its parameters from the skill level.
+		 */
+		static Key forSkill(int skillLevel, Builder builder, boolean perfect) {
+			return new Key(skillLevel, builder, perfect, Constants.SKILL_X[skillLevel], Constants.SKILL_Y[skillLevel],
+					Constants.SKILL_ROOMS[skillLevel], Constants.SKILL_PARTCT[skillLevel]);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other)
+				return true;
+			if (!(other instanceof Key))
+				return false;
+			final Key o = (Key) other;
+			return skillLevel == o.skillLevel && builder == o.builder && perfect == o.perfect
+					&& width == o.width && height == o.height && rooms == o.rooms && partiters == o.partiters;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = (skillLevel * 31 + builder.ordinal()) * 2 + (perfect ? 1 : 0);
+			hash = (hash * 31 + width) * 31 + height;
+			return (hash * 31 + rooms) * 31 + partiters;
+		}
+	}
+
+	/**
+	 * Order for a maze that goes into the pool. The pool collects the maze from the future
+	 * that the factory returns, so delivery and progress need no handling here.
+	 */
+	private static final class PoolOrder implements Order {
+		private final Key key;
+
+		PoolOrder(Key key) {
+			this.key = key;
+		}
+
+		@Override
+		public int getSkillLevel() {
+			return key.skillLevel;
+		}
+		@Override
+		public Builder getBuilder() {
+			return key.builder;
+		}
+		@Override
+		public boolean isPerfect() {
+			return key.perfect;
+		}
+		@Override
+		public boolean isParallel() {
+			return false;
+		}
+		@Override
+		public int getWidth() {
+			return key.width;
+		}
+		@Override
+		public int getHeight() {
+			return key.height;
+		}
+		@Override
+		public int getRooms() {
+			return key.rooms;
+		}
+		@Override
+		public int getExpectedPartiters() {
+			return key.partiters;
+		}
+		@Override
+		public void deliver(MazeConfiguration mazeConfig) {
+			// the pool takes the maze from the future
+		}
+		@Override
+		public void updateProgress(int percentage) {
+			// nobody waits for a maze in the pool
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package generation;
 
+import gui.Constants;
 
 /**
  * An order describes functionality needed to order a maze from
@@ -21,7 +22,7 @@ public interface Order {
 	Builder getBuilder() ;
 	/**
 	 * Lists all maze generation algorithms that are supported
-	 * by the maze factory (Eller needs to be implemented for P2)
+	 * by the maze factory
 	 * @author pk
 	 *
 	 */
@@ -32,6 +33,42 @@ public interface Order {
 	 * there are no rooms as rooms can imply loops
 	 */
 	boolean isPerfect() ;
+	/**
+	 * Describes if the maze should be generated in parallel, i.e.
+	 * the maze is split into tiles that are carved concurrently 
+	 * with the requested builder algorithm and then joined
+	 */
+	boolean isParallel() ;
+	/**
+	 * Gives the width of the maze, i.e. the number of cells along the x axis.
+	 * By default it is derived from the skill level, an order can ask for
+	 * any width up to PackedWall.MAX_COORDINATE+1 instead.
+	 */
+	default int getWidth() {
+		return Constants.SKILL_X[getSkillLevel()];
+	}
+	/**
+	 * Gives the height of the maze, i.e. the number of cells along the y axis.
+	 * By default it is derived from the skill level, an order can ask for
+	 * any height up to PackedWall.MAX_COORDINATE+1 instead.
+	 */
+	default int getHeight() {
+		return Constants.SKILL_Y[getSkillLevel()];
+	}
+	/**
+	 * Gives the number of rooms to place in the maze, not used for a perfect maze.
+	 * By default it is derived from the skill level.
+	 */
+	default int getRooms() {
+		return Constants.SKILL_ROOMS[getSkillLevel()];
+	}
+	/**
+	 * Gives the expected number of partitioning iterations of the BSP tree,
+	 * which is used to report progress. By default it is derived from the skill level.
+	 */
+	default int getExpectedPartiters() {
+		return Constants.SKILL_PARTCT[getSkillLevel()];
+	}
 	/**
 	 * Delivers the produced maze. 
 	 * This method is called by the factory to provide the 
@@ -12,6 +12,12 @@ public class OrderStub implements Order {
 	private MazeConfiguration mazeConfig;
 	private int skill;
 	private boolean perfect;
+	private boolean parallel;
+	private boolean sized; // true if the dimensions are given, false if they are taken from the skill level
+	private int width;
+	private int height;
+	private int rooms;
+	private int partiters;
 	int percentDone;
 	
 	/**
@@ -26,6 +32,37 @@ public class OrderStub implements Order {
 		this.perfect = perfect;
 		this.builder = build;
 	}
+	
+	/**
+	 * Constructor
+	 * @param skill - the skill level of the maze
+	 * @param perfect - whether it is perfect or not 
+	 * @param build - the builder for the maze
+	 * @param parallel - whether the maze is generated in parallel tiles
+	 * 
+	 */
+	public OrderStub(int skill, boolean perfect, Builder build, boolean parallel) {
+		this(skill, perfect, build);
+		this.parallel = parallel;
+	}
+	/**
+	 * Constructor for a maze whose parameters are not taken from the skill level
+	 * @param width - the number of cells along the x axis
+	 * @param height - the number of cells along the y axis
+	 * @param rooms - the number of rooms, not used for a perfect maze
+	 * @param partiters - the expected number of partitioning iterations
+	 * @param perfect - whether it is perfect or not 
+	 * @param build - the builder for the maze
+	 * 
+	 */
+	public OrderStub(int width, int height, int rooms, int partiters, boolean perfect, Builder build) {
+		this(0, perfect, build);
+		this.sized = true;
+		this.width = width;
+		this.height = height;
+		this.rooms = rooms;
+		this.partiters = partiters;
+	}
 	/**
 	 * Gives the required skill level, range of values 0,1,2,...,15
 	 */
@@ -48,6 +85,37 @@ public class OrderStub implements Order {
 	public boolean isPerfect() {
 		return this.perfect;
 	}
+	/**
+	 * Describes if the maze should be generated in parallel
+	 */
+	public boolean isParallel() {
+		return this.parallel;
+	}
+	/**
+	 * Gives the width, derived from the skill level unless given to the constructor
+	 */
+	public int getWidth() {
+		return sized ? width : Order.super.getWidth();
+	}
+	/**
+	 * Gives the height, derived from the skill level unless given to the constructor
+	 */
+	public int getHeight() {
+		return sized ? height : Order.super.getHeight();
+	}
+	/**
+	 * Gives the number of rooms, derived from the skill level unless given to the constructor
+	 */
+	public int getRooms() {
+		return sized ? rooms : Order.super.getRooms();
+	}
+	/**
+	 * Gives the expected number of partitioning iterations,
+	 * derived from the skill level unless given to the constructor
+	 */
+	public int getExpectedPartiters() {
+		return sized ? partiters : Order.super.getExpectedPartiters();
+	}
 	/**
 	 * Delivers the produced maze. 
 	 * This method is called by the factory to provide the 
@@ -0,0 +1,108 @@
+package generation;
+
+/**
+ * Encodes a wall, i.e. a cell position (x,y) plus a direction, into a single integer.
+ * This is the primitive counterpart of the Wall class. Maze builders can keep
+ * packed walls in int arrays and hand them to Cells without allocating a Wall object
+ * for each candidate wall.
+ *
+ * Layout of the 32 bits, from high to low:
+ * x coordinate (15 bits), y coordinate (15 bits), direction (2 bits, the ordinal of CardinalDirection).
+ * Hence coordinates are limited to 0 <= x,y <= MAX_COORDINATE.
+ *
+ * Same as for a Wall, the neighbor position is only valid for internal walls.
+ */
+public final class PackedWall {
+	/** largest x or y coordinate that can be encoded */
+	public static final int MAX_COORDINATE = (1 << 15) - 1;
+	private static final int DIRECTION_BITS = 2;
+	private static final int Y_SHIFT = DIRECTION_BITS;
+	private static final int X_SHIFT = Y_SHIFT + 15;
+	private static final int DIRECTION_MASK = (1 << DIRECTION_BITS) - 1;
+
+	/**
+	 * No instances, class only provides static methods.
+	 */
+	private PackedWall() {
+	}
+
+	/**
+	 * Encodes the wall at position (x,y) in the given direction.
+	 * @param x is the x coordinate, 0 <= x <= MAX_COORDINATE
+	 * @param y is the y coordinate, 0 <= y <= MAX_COORDINATE
+	 * @param cd is the direction of the wall in the cell
+	 * @return packed wall
+	 */
+	public static int pack(int x, int y, CardinalDirection cd) {
+		return pack(x, y, cd.ordinal());
+	}
+	/**
+	 * Encodes the wall at position (x,y) in the direction with the given index.
+	 * @param x is the x coordinate, 0 <= x <= MAX_COORDINATE
+	 * @param y is the y coordinate, 0 <= y <= MAX_COORDINATE
+	 * @param direction is the ordinal of the direction, 0 <= direction <= 3
+	 * @return packed wall
+	 */
+	public static int pack(int x, int y, int direction) {
+		assert (0 <= x && x <= MAX_COORDINATE && 0 <= y && y <= MAX_COORDINATE) : "Coordinates out of range: " + x + ", " + y;
+		return (x << X_SHIFT) | (y << Y_SHIFT) | direction;
+	}
+	/**
+	 * @param wall packed wall
+	 * @return the x coordinate of the cell
+	 */
+	public static int getX(int wall) {
+		return wall >>> X_SHIFT;
+	}
+	/**
+	 * @param wall packed wall
+	 * @return the y coordinate of the cell
+	 */
+	public static int getY(int wall) {
+		return (wall >>> Y_SHIFT) & MAX_COORDINATE;
+	}
+	/**
+	 * @param wall packed wall
+	 * @return the ordinal of the direction of the wall in its cell
+	 */
+	public static int getDirectionIndex(int wall) {
+		return wall & DIRECTION_MASK;
+	}
+	/**
+	 * @param wall packed wall
+	 * @return the direction of the wall in its cell
+	 */
+	public static CardinalDirection getDirection(int wall) {
+		return CardinalDirection.fromIndex(wall & DIRECTION_MASK);
+	}
+	/**
+	 * @param wall packed wall
+	 * @return the dx value for the direction of the wall
+	 */
+	public static int getDx(int wall) {
+		return CardinalDirection.DX[wall & DIRECTION_MASK];
+	}
+	/**
+	 * @param wall packed wall
+	 * @return the dy value for the direction of the wall
+	 */
+	public static int getDy(int wall) {
+		return CardinalDirection.DY[wall & DIRECTION_MASK];
+	}
+	/**
+	 * Computes the x coordinate of the adjacent cell on the other side of the wall.
+	 * @param wall packed wall
+	 * @return the x coordinate of the adjacent cell
+	 */
+	public static int getNeighborX(int wall) {
+		return getX(wall) + getDx(wall);
+	}
+	/**
+	 * Computes the y coordinate of the adjacent cell on the other side of the wall.
+	 * @param wall packed wall
+	 * @return the y coordinate of the adjacent cell
+	 */
+	public static int getNeighborY(int wall) {
+		return getY(wall) + getDy(wall);
+	}
+}
@@ -0,0 +1,164 @@
+package generation;
+
+/**
+ * This class keeps the walls the player has seen so far for a single writer and any number of readers,
+ * see CopyOnWriteCells for how updates are published to readers.
+ * During play, FirstPersonDrawer adds the walls it draws with addWallsForSegment, which only sets
+ * north and west walls, and MapDrawer reads them through snapshots.
+ *
+ * Only the north and west walls are kept, 2 bits per cell, in square chunks of CHUNK_SIZE x CHUNK_SIZE cells.
+ * A chunk is allocated the first time a wall in it is seen, such that memory grows with the part
+ * of the maze the player has seen and not with the size of the maze.
+ * Setting any other bit throws an UnsupportedOperationException.
+ *
+ * @author Katson, Andrew
+ */
+public class SeenCells extends CopyOnWriteCells<long[], SeenCells.Snapshot> {
+	static final int CHUNK_SHIFT = 5;
+	static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; // number of cells per side of a chunk, 2 bits for each of its rows fill a long
+	private static final int SEEN_BITS = CW_TOP | CW_LEFT;
+
+	private final int width;
+	private final int height;
+	private final int chunksY; // number of chunks in a column of chunks
+	private int allocated; // number of chunks that are not null
+
+	/**
+	 * Constructor
+	 * @param w width
+	 * @param h height
+	 * @precondition 0 < w, 0 < h
+	 */
+	public SeenCells(int w, int h) {
+		// chunk cx*chunksY+cy, null if nothing was seen in it, word x holds column x of the chunk
+		super(w, h, new long[chunks(w) * chunks(h)][]);
+		width = w;
+		height = h;
+		chunksY = chunks(h);
+	}
+
+	/**
+	 * Gives the number of chunks along a side.
+	 * @param length of the side in cells
+	 * @return number of chunks
+	 */
+	private static int chunks(int length) {
+		return (length + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+	}
+
+	/**
+	 * Gives the number of chunks that hold seen walls, e.g. to check memory use.
+	 * @return number of chunks, at most one per CHUNK_SIZE x CHUNK_SIZE cells
+	 */
+	public int getNumberOfChunks() {
+		return allocated;
+	}
+
+	@Override
+	protected Snapshot createSnapshot(long[][] chunks, long version) {
+		return new Snapshot(getWidth(), getHeight(), chunks, version);
+	}
+
+	@Override
+	protected long[] createPage(int c) {
+		allocated++;
+		return new long[CHUNK_SIZE];
+	}
+
+	@Override
+	protected long[] copyPage(long[] chunk) {
+		return chunk.clone();
+	}
+
+	@Override
+	public int getValueOfCell(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height)
+			throw new ArrayIndexOutOfBoundsException("SeenCells: position out of range: " + x + ", " + y);
+		return valueOf(getPage(chunkIndex(x, y, chunksY)), x, y);
+	}
+
+	////////////////// low level methods operating on bits and bitmasks //////////////////////////////////////////
+	@Override
+	protected void setBitToZero(int x, int y, int bitmask) {
+		if (0 == (getValueOfCell(x, y) & bitmask))
+			return; // nothing to clear, avoids copying the chunk
+		writablePage(chunkIndex(x, y, chunksY))[x & (CHUNK_SIZE - 1)] &= ~shiftedBits(y, bitmask);
+	}
+
+	@Override
+	protected void setBitToOne(int x, int y, int bitmask) {
+		if (0 != (bitmask & ~SEEN_BITS))
+			throw new UnsupportedOperationException("SeenCells: only north and west walls are kept");
+		if (bitmask == (getValueOfCell(x, y) & bitmask))
+			return; // seen before, avoids copying the chunk
+		writablePage(chunkIndex(x, y, chunksY))[x & (CHUNK_SIZE - 1)] |= shiftedBits(y, bitmask);
+	}
+
+	/**
+	 * Gives the index of the chunk that holds a cell.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param chunksY number of chunks in a column of chunks
+	 * @return index
+	 */
+	private static int chunkIndex(int x, int y, int chunksY) {
+		return (x >>> CHUNK_SHIFT) * chunksY + (y >>> CHUNK_SHIFT);
+	}
+
+	/**
+	 * Gives the bits of a cell in the word of its column, CW_TOP at bit 2*y, CW_LEFT at bit 2*y+1.
+	 * @param y coordinate of cell
+	 * @param bitmask of CW_TOP and CW_LEFT
+	 * @return bits in the word
+	 */
+	private static long shiftedBits(int y, int bitmask) {
+		final long bits = (bitmask & CW_TOP) | ((bitmask & CW_LEFT) >>> 1);
+		return bits << (2 * (y & (CHUNK_SIZE - 1)));
+	}
+
+	/**
+	 * Gives the north and west walls of a cell.
+	 * @param chunk that holds the cell, may be null
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @return CW_TOP and CW_LEFT bits of the cell
+	 */
+	private static int valueOf(long[] chunk, int x, int y) {
+		if (null == chunk)
+			return 0;
+		final int bits = (int) (chunk[x & (CHUNK_SIZE - 1)] >>> (2 * (y & (CHUNK_SIZE - 1)))) & 3;
+		return (bits & CW_TOP) | ((bits << 1) & CW_LEFT);
+	}
+
+	/**
+	 * An immutable view of the seen walls as of a publish.
+	 */
+	public static final class Snapshot extends CopyOnWriteCells.Snapshot {
+		private final int width;
+		private final int height;
+		private final int chunksY;
+		private final long[][] chunks; // never changed, the writer copies a chunk before it changes it
+
+		/**
+		 * Constructor
+		 * @param w width
+		 * @param h height
+		 * @param chunks of the cells
+		 * @param version number of publishes with updates before this one
+		 */
+		private Snapshot(int w, int h, long[][] chunks, long version) {
+			super(w, h, version);
+			width = w;
+			height = h;
+			chunksY = chunks(h);
+			this.chunks = chunks;
+		}
+
+		@Override
+		public int getValueOfCell(int x, int y) {
+			if (x < 0 || x >= width || y < 0 || y >= height)
+				throw new ArrayIndexOutOfBoundsException("SeenCells: position out of range: " + x + ", " + y);
+			return valueOf(chunks[chunkIndex(x, y, chunksY)], x, y);
+		}
+	}
+}
@@ -460,8 +460,8 @@ public class Seg {
              // difference between beginning of segment and y
              // difference between end of segment and x
              // difference between end of segment and y
-            int dotStart = calculateDot(se.getStartPositionX() - x, se.getStartPositionY() - y);
-            int dotEnd = calculateDot(se.getEndPositionX() - x, se.getEndPositionY() - y);
+            long dotStart = calculateDot(se.getStartPositionX() - x, se.getStartPositionY() - y);
+            long dotEnd = calculateDot(se.getEndPositionX() - x, se.getEndPositionY() - y);
             // update splits if necessary
             if (BSPBuilder.getSign(dotStart) != BSPBuilder.getSign(dotEnd)) {
                 if (dotStart == 0)
@@ -491,7 +491,8 @@ public class Seg {
      * @param df1y
      * @return
      */
-    private int calculateDot(int df1x, int df1y) {
-        return df1x * dy + df1y * (-dx);
+    private long calculateDot(int df1x, int df1y) {
+        // coordinates are scaled by MAP_UNIT, products exceed the int range for large mazes
+        return (long) df1x * dy + (long) df1y * (-dx);
     }
 }
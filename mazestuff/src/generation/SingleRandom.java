@@ -1,6 +1,7 @@
 package generation;
 
 import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * This class implements the generation of pseudo random numbers with a single instance of a random number generator.
@@ -8,12 +9,19 @@ import java.util.Random;
  * This happens when getRandom is called for the first time. Any subsequent call to setSeed resets the seed of the existing generator.
  * Design implements Singleton pattern.
  * 
+ * Besides the single instance, there are independent streams of random numbers, see newStream and split.
+ * A stream belongs to a single maze order and is not shared between threads, 
+ * so concurrent builders do not compete for the single instance and each stream
+ * is reproducible from its seed.
+ * 
  * @author Kemper
  *
  */
 public final class SingleRandom {
 	/**  internal internal random number generator. This should NOT be made accessible. */
 	private transient final Random generator;
+	/** internal generator of an independent stream, null for the single instance which uses generator instead. */
+	private transient final SplittableRandom stream;
 	/** the single instance of this class. */
 	private static SingleRandom instance = null ;
 	/** optional: a seed value can be set to be able to reproduce a sequence of random numbers. */
@@ -27,6 +35,15 @@ public final class SingleRandom {
 	 */
 	private SingleRandom() {
 		generator = validSeed ? new Random(theSeed) : new Random();
+		stream = null;
+	}
+	/**
+	 * Constructor for an independent stream, see newStream and split.
+	 * @param stream is the generator of the stream
+	 */
+	private SingleRandom(SplittableRandom stream) {
+		generator = null;
+		this.stream = stream;
 	}
 
 	/**
@@ -45,6 +62,29 @@ public final class SingleRandom {
 		}
 		return instance;
 	}
+	/**
+	 * Delivers a new random number generator that is independent of the single instance.
+	 * It is meant for a worker thread that would otherwise compete with other threads
+	 * for the single instance. Its sequence only depends on the given seed.
+	 * A stream is not thread safe, it must be used by one thread at a time.
+	 * @param seed is the seed value for the new generator
+	 * @return a new random number generator
+	 */
+	static SingleRandom newStream(long seed) {
+		return new SingleRandom(new SplittableRandom(seed));
+	}
+	/**
+	 * Delivers a new independent stream that is derived from this generator.
+	 * Splitting a stream consumes values of that stream only, so a stream and 
+	 * all streams split from it are reproducible from its seed.
+	 * @return a new random number generator
+	 */
+	SingleRandom split() {
+		if (null == stream) {
+			return newStream(generator.nextLong());
+		}
+		return new SingleRandom(stream.split());
+	}
 	/**
 	 * Gets the seed back
 	 * @return the seed of the SingleRandom object
@@ -58,7 +98,7 @@ public final class SingleRandom {
 	 * @return random integer value
 	 */
 	public int nextInt() {
-		return generator.nextInt();
+		return (null == stream) ? generator.nextInt() : stream.nextInt();
 	}
 	/**
 	 * Generate an integer random number in interval [lowerBound,upperBound] 
@@ -70,7 +110,8 @@ public final class SingleRandom {
 		// nextInt(x) delivers uniformly distributed value in [0,x-1]
 		// say d = upperBound-lowerBound, then we want a result lowerBound + uniform(0,d) and uniform(0,d) is delivered by nextInt(d+1)
 		assert(lowerBound <= upperBound) : "parameter error, lowerbound " + lowerBound + "> upper bound" + upperBound ;
-		return lowerBound + generator.nextInt(upperBound - lowerBound + 1) ;
+		final int bound = upperBound - lowerBound + 1;
+		return lowerBound + ((null == stream) ? generator.nextInt(bound) : stream.nextInt(bound)) ;
 	}
 
 	/**
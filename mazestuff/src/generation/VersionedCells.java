@@ -0,0 +1,132 @@
+package generation;
+
+/**
+ * This class keeps a grid of cells for a single writer and any number of readers on other threads,
+ * see CopyOnWriteCells for how updates are published to readers.
+ * SeenCells works the same way for the walls seen during play, but keeps 2 bits per cell in chunks that are allocated on demand.
+ *
+ * Cells are kept in pages of PAGE_SIZE cells in the same x*height+y order as in Cells.
+ *
+ * @author Katson, Andrew
+ */
+public class VersionedCells extends CopyOnWriteCells<short[], VersionedCells.Snapshot> {
+	static final int PAGE_SHIFT = 10;
+	static final int PAGE_SIZE = 1 << PAGE_SHIFT; // number of cells per page, a power of 2
+
+	private final int width;
+	private final int height;
+
+	/**
+	 * Constructor
+	 * @param w width
+	 * @param h height
+	 * @precondition 0 < w, 0 < h, w*h <= MazeBuilder.MAX_CELLS
+	 */
+	public VersionedCells(int w, int h) {
+		super(w, h, createPages(w * h));
+		width = w;
+		height = h;
+	}
+
+	/**
+	 * Creates the pages for the given number of cells, all cells are zero.
+	 * @param cellCount number of cells
+	 * @return pages
+	 */
+	private static short[][] createPages(int cellCount) {
+		final short[][] pages = new short[(cellCount + PAGE_SIZE - 1) >>> PAGE_SHIFT][];
+		for (int p = 0; p < pages.length; p++) {
+			pages[p] = new short[pageLength(cellCount, p)];
+		}
+		return pages;
+	}
+
+	/**
+	 * Gives the number of cells of a page, only the last page may be shorter than PAGE_SIZE.
+	 * @param cellCount number of cells
+	 * @param p number of the page
+	 * @return number of cells
+	 */
+	private static int pageLength(int cellCount, int p) {
+		return Math.min(PAGE_SIZE, cellCount - (p << PAGE_SHIFT));
+	}
+
+	@Override
+	protected Snapshot createSnapshot(short[][] pages, long version) {
+		return new Snapshot(getWidth(), getHeight(), pages, version);
+	}
+
+	@Override
+	protected short[] createPage(int p) {
+		return new short[pageLength(getWidth() * getHeight(), p)];
+	}
+
+	@Override
+	protected short[] copyPage(short[] page) {
+		return page.clone();
+	}
+
+	@Override
+	public int getValueOfCell(int x, int y) {
+		final int i = index(x, y);
+		return getPage(i >>> PAGE_SHIFT)[i & (PAGE_SIZE - 1)];
+	}
+
+	////////////////// low level methods operating on bits and bitmasks //////////////////////////////////////////
+	@Override
+	protected void setBitToZero(int x, int y, int bitmask) {
+		final int i = index(x, y);
+		writablePage(i >>> PAGE_SHIFT)[i & (PAGE_SIZE - 1)] &= ~bitmask;
+	}
+
+	@Override
+	protected void setBitToOne(int x, int y, int bitmask) {
+		final int i = index(x, y);
+		writablePage(i >>> PAGE_SHIFT)[i & (PAGE_SIZE - 1)] |= bitmask;
+	}
+
+	/**
+	 * Gives the position of a cell in the pages.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @precondition 0 <= x < width, 0 <= y < height
+	 * @return index
+	 * @throws ArrayIndexOutOfBoundsException for a position out of range, as in Cells
+	 */
+	private int index(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height)
+			throw new ArrayIndexOutOfBoundsException("VersionedCells: position out of range: " + x + ", " + y);
+		return x * height + y;
+	}
+
+	/**
+	 * An immutable view of the cells as of a publish.
+	 */
+	public static final class Snapshot extends CopyOnWriteCells.Snapshot {
+		private final int width;
+		private final int height;
+		private final short[][] pages; // never changed, the writer copies a page before it changes it
+
+		/**
+		 * Constructor
+		 * @param w width
+		 * @param h height
+		 * @param pages of the cells
+		 * @param version number of publishes with updates before this one
+		 */
+		private Snapshot(int w, int h, short[][] pages, long version) {
+			super(w, h, version);
+			width = w;
+			height = h;
+			this.pages = pages;
+		}
+
+		@Override
+		public int getValueOfCell(int x, int y) {
+			if (x < 0 || x >= width || y < 0 || y >= height)
+				throw new ArrayIndexOutOfBoundsException("VersionedCells: position out of range: " + x + ", " + y);
+			final int i = x * height + y;
+			return pages[i >>> PAGE_SHIFT][i & (PAGE_SIZE - 1)];
+		}
+	}
+}
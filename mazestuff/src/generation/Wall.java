@@ -1,6 +1,5 @@
 package generation;
 
-import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -14,7 +13,7 @@ public class Wall {
 	// Cell location (x,y) pair.
 	private int x;
 	private int y;
-	private int[] d; // direction (dx,dy) pair
+	private CardinalDirection cd; // direction, gives the (dx,dy) pair
 
 	/**
 	 * Constructor, values have same effect has setWall(x,y,cd).
@@ -26,7 +25,7 @@ public class Wall {
 	{
 		this.x = x;
 		this.y = y;
-		d = cd.getDirection();
+		this.cd = cd;
 	}
 	/**
 	 * Sets the internal fields to the given values for a (x,y)
@@ -39,7 +38,7 @@ public class Wall {
 	{
 		this.x = x;
 		this.y = y;
-		d = cd.getDirection();
+		this.cd = cd;
 	}
 	/**
 	 * Get the x coordinate for the current (x,y) position.
@@ -68,7 +67,7 @@ public class Wall {
 		x = random.nextIntWithinInterval(0, width-1) ;
 		y = random.nextIntWithinInterval(0, height - 1);
 		// pick a direction, 
-		d = CardinalDirection.East.randomDirection().getDirection() ;
+		cd = CardinalDirection.East.randomDirection() ;
 	}
 	/**
 	 * Computes the x coordinate of neighboring (adjacent) cell for internal walls.
@@ -77,7 +76,7 @@ public class Wall {
 	 * @return the x coordinate of adjacent cell
 	 */
 	public int getNeighborX() {
-		return x+d[0] ;
+		return x+cd.getDx() ;
 	}
 	/**
 	 * Computes the y coordinate of neighboring (adjacent) cell for internal walls.
@@ -86,7 +85,7 @@ public class Wall {
 	 * @return  the y coordinate of adjacent cell
 	 */
 	public int getNeighborY() {
-		return y+d[1] ;
+		return y+cd.getDy() ;
 	}
 	/**
 	 * Provides the direction for the wall with regard to the 
@@ -94,7 +93,7 @@ public class Wall {
 	 * @return the direction of this wall with regard to its cell location
 	 */
 	public CardinalDirection getDirection() {
-		return CardinalDirection.getDirection(d[0], d[1]) ;
+		return cd ;
 	}
 	
 	/**
@@ -112,7 +111,7 @@ public class Wall {
 		}
 		final Wall comp = (Wall) obj;
 		
-		if(!Arrays.equals(this.d, comp.d)) {
+		if(this.cd != comp.cd) {
 			return false;
 		}
 		if(this.x != comp.x) {
@@ -131,7 +130,7 @@ public class Wall {
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(Arrays.hashCode(d), x, y);
+		return Objects.hash(cd.ordinal(), x, y);
 	}
 	/**
 	 * checks if the two walls are the same
@@ -0,0 +1,92 @@
+package generation;
+
+import java.util.Arrays;
+
+/**
+ * A set of candidate walls for a maze builder, i.e. the frontier of walls that
+ * lead from the current spanning tree to cells that are not connected yet.
+ * Walls are kept in PackedWall encoding in a primitive array that grows as needed.
+ *
+ * Removing a wall at a random position takes constant time: the last wall
+ * is moved into the gap instead of shifting all walls behind it as ArrayList.remove does.
+ * As a consequence the order of the remaining walls changes, but it only depends
+ * on the sequence of operations and random numbers. So with a seed set for the
+ * random number generator the same sequence of extracted walls results on each run.
+ */
+public class WallFrontier {
+	private int[] walls; // walls[0..size-1] hold the candidates in PackedWall encoding
+	private int size; // current number of candidates
+
+	/**
+	 * Constructor
+	 * @param initialCapacity number of walls that fit before the array needs to grow, 0 < initialCapacity
+	 */
+	public WallFrontier(int initialCapacity) {
+		walls = new int[Math.max(1, initialCapacity)];
+		size = 0;
+	}
+
+	/**
+	 * Adds a wall to the frontier.
+	 * @param wall packed wall
+	 */
+	public void add(int wall) {
+		if (size == walls.length)
+			walls = Arrays.copyOf(walls, 2 * walls.length);
+		walls[size++] = wall;
+	}
+
+	/**
+	 * Removes the wall at the given position and returns it.
+	 * The last wall takes its place.
+	 * @param index of the wall, 0 <= index < size()
+	 * @return the removed wall
+	 */
+	public int removeAt(int index) {
+		assert (0 <= index && index < size) : "Index out of range: " + index;
+		int result = walls[index];
+		walls[index] = walls[--size];
+		return result;
+	}
+
+	/**
+	 * Picks a random position in the frontier, removes the wall at that position and returns it.
+	 * @param random provides the random position
+	 * @return the removed wall
+	 * @precondition !isEmpty()
+	 */
+	public int extractRandomly(SingleRandom random) {
+		return removeAt(random.nextIntWithinInterval(0, size-1));
+	}
+
+	/**
+	 * Gives the wall at the given position without removing it.
+	 * @param index of the wall, 0 <= index < size()
+	 * @return the wall at that position
+	 */
+	public int get(int index) {
+		assert (0 <= index && index < size) : "Index out of range: " + index;
+		return walls[index];
+	}
+
+	/**
+	 * @return the number of walls in the frontier
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if there are no walls in the frontier, false otherwise
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all walls, keeps the allocated array for reuse.
+	 */
+	public void clear() {
+		size = 0;
+	}
+}
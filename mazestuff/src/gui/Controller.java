@@ -77,6 +77,10 @@ public class Controller {
      * rooms and the way the generation algorithms work.
      */
     boolean perfect;
+    /**
+     * Specifies if the maze is generated in parallel tiles.
+     */
+    boolean parallel;
     
     public Controller() {
     	states = new State[4];
@@ -89,6 +93,7 @@ public class Controller {
         fileName = null;
         builder = Order.Builder.DFS; // default
         perfect = false; // default
+        parallel = false; // default
     }
     
     public void setFileName(String fileName) {
@@ -100,6 +105,9 @@ public class Controller {
     public void setPerfect(boolean isPerfect) {
         this.perfect = isPerfect; 
     }
+    public void setParallel(boolean isParallel) {
+        this.parallel = isParallel; 
+    }
     public void setMazeConfiguration(MazeConfiguration config) {
     	((StatePlaying)states[2]).setMazeConfiguration(config);
     }
@@ -129,6 +137,7 @@ public class Controller {
         currentState.setSkillLevel(skillLevel);
         currentState.setBuilder(builder); 
         currentState.setPerfect(perfect); 
+        currentState.setParallel(parallel); 
         currentState.start(this, panel);
     }
     /**
@@ -36,6 +36,10 @@ public class DefaultState implements State {
     public void setPerfect(boolean isPerfect) {
         throw new RuntimeException("DefaultState:using unimplemented method"); 
     }
+    @Override
+    public void setParallel(boolean isParallel) {
+        throw new RuntimeException("DefaultState:using unimplemented method"); 
+    }
 
     @Override
     public void setMazeConfiguration(MazeConfiguration config) {
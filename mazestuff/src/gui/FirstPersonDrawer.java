@@ -7,7 +7,7 @@ import gui.Constants.StateGUI;
 import generation.BSPBranch;
 import generation.BSPLeaf;
 import generation.BSPNode;
-import generation.Cells;
+import generation.SeenCells;
 import generation.Seg;
 import java.awt.Color;
 import java.awt.Graphics;
@@ -38,7 +38,7 @@ public class FirstPersonDrawer {
 	private int map_unit = 128;
 	private int step_size = map_unit/4;
 	// map scale may be adjusted by user input, controlled in StatePlaying
-	private Cells seencells ; // cells whose walls are currently visible
+	private SeenCells seencells ; // cells whose walls are currently visible, this class is its only writer
 	// node is determined in MazeBuilder when creating the maze, helps to decide visibility
 	private BSPNode bsp_root ;
 	
@@ -80,10 +80,10 @@ public class FirstPersonDrawer {
 	 * @param height of display
 	 * @param map_unit
 	 * @param step_size
-	 * @param seencells
+	 * @param seencells is updated with the walls that are drawn, published after each redraw
 	 * @param bsp_root
 	 */
-	public FirstPersonDrawer(int width, int height, int map_unit, int step_size, Cells seencells, BSPNode bsp_root) {
+	public FirstPersonDrawer(int width, int height, int map_unit, int step_size, SeenCells seencells, BSPNode bsp_root) {
 		// store given parameter values
 		view_width = width ;
 		view_height = height ;
@@ -137,6 +137,8 @@ public class FirstPersonDrawer {
 			drawrect_ct = drawrect_late_ct = drawrect_segment_ct = 0;
 		//
 		drawAllVisibleSectors(bsp_root);
+		// make the walls seen in this frame visible to readers of seencells, e.g. the map
+		seencells.publish();
 	}
 
 
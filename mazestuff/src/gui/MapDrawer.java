@@ -6,6 +6,7 @@ package gui;
 import gui.Constants.StateGUI;
 import generation.CardinalDirection;
 import generation.Cells;
+import generation.SeenCells;
 import generation.MazeConfiguration;
 import java.awt.Color;
 import java.awt.Graphics;
@@ -37,7 +38,7 @@ public class MapDrawer {
 	 * the FirstPersonDrawer that writes content into it. The MapDrawer only
 	 * reads content to decide which lines to draw and in which color.
 	 */
-	Cells seencells ; 
+	SeenCells seencells ; // read through snapshots, FirstPersonDrawer updates it
 
 	/**
 	 * Contains all necessary information about current maze, i.e.
@@ -65,7 +66,7 @@ public class MapDrawer {
 	 * @param map_scale
 	 * @param c
 	 */
-	public MapDrawer(int width, int height, int map_unit, int step_size, Cells seencells, int map_scale, StatePlaying c){
+	public MapDrawer(int width, int height, int map_unit, int step_size, SeenCells seencells, int map_scale, StatePlaying c){
 		//System.out.println("MapDrawer: constructor called") ;
 		view_width = width ;
 		view_height = height ;
@@ -123,6 +124,8 @@ public class MapDrawer {
 		// dimensions of the maze
 		final int mazew = mazeConfig.getWidth() ;
 		final int mazeh = mazeConfig.getHeight() ;
+		// a consistent view of the walls seen so far that does not change while the map is drawn
+		final Cells seen = seencells.getSnapshot() ;
 		
 		gc.setColor(Color.white);
 		
@@ -157,16 +160,16 @@ public class MapDrawer {
 						mazeConfig.hasWall(x,y, CardinalDirection.North) :
 							mazeConfig.hasWall(x,y-1, CardinalDirection.South));
 
-				gc.setColor(seencells.hasWall(x,y, CardinalDirection.North) ? Color.white : Color.gray);
-				if ((seencells.hasWall(x,y, CardinalDirection.North) || showMaze) && theCondition)
+				gc.setColor(seen.hasWall(x,y, CardinalDirection.North) ? Color.white : Color.gray);
+				if ((seen.hasWall(x,y, CardinalDirection.North) || showMaze) && theCondition)
 					gc.drawLine(nx1, ny1, nx2, ny1);
 				
 				theCondition = (y >= mazeh) ? false : ((x < mazew) ?
 						mazeConfig.hasWall(x,y, CardinalDirection.West) :
 							mazeConfig.hasWall((x-1),y, CardinalDirection.East));
 
-				gc.setColor(seencells.hasWall(x,y, CardinalDirection.West) ? Color.white : Color.gray);
-				if ((seencells.hasWall(x,y, CardinalDirection.West) || showMaze) && theCondition)
+				gc.setColor(seen.hasWall(x,y, CardinalDirection.West) ? Color.white : Color.gray);
+				if ((seen.hasWall(x,y, CardinalDirection.West) || showMaze) && theCondition)
 					gc.drawLine(nx1, ny1, nx1, ny2);
 			}
 		
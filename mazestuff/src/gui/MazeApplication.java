@@ -92,9 +92,9 @@ public class MazeApplication extends JFrame {
 	    // Case 4: Eller algorithm
 	    else if ("Eller".equalsIgnoreCase(parameter))
 	    {
-	    	result = new Controller();
-	    	// TODO: for P2 assignment, please add code to set the builder accordingly
-	        throw new RuntimeException("Don't know anybody named Eller...");
+	        msg = "MazeApplication: generating random maze with Eller's algorithm.";
+	        result = new Controller();
+	        result.setBuilder(Order.Builder.Eller);
 	    }
 	    // Case 5: A WallFollower algorithm
 	    else if("WallFollower".equalsIgnoreCase(parameter))
@@ -190,9 +190,9 @@ public class MazeApplication extends JFrame {
 		    // Case 6: Eller algorithm
 		    else if ("Eller".equalsIgnoreCase(generationAlgo))
 		    {
-		    	result = new Controller();
-		    	// TODO: for P2 assignment, please add code to set the builder accordingly
-		        throw new RuntimeException("Don't know anybody named Eller...");
+		        msg = "MazeApplication: generating random maze with Eller's algorithm.";
+		        result = new Controller();
+		        result.setBuilder(Order.Builder.Eller);
 		    }
 		    // Case 7: a file
 		    else {
@@ -294,11 +294,11 @@ public class MazeApplication extends JFrame {
 	 * The maze will be loaded from that file. 
 	 * This option is useful during development to test with a particular maze.
 	 * 3) A predefined constant string is given to select a maze
-	 * generation algorithm, currently supported is "Prim", "Kruskal".
+	 * generation algorithm, currently supported is "Prim", "Kruskal", "Eller".
 	 *4) A predefined constant string is given to select a maze solving algorithm, 
 	 * currently supported is "Wallfollower" 
 	 * 5) A predefined constant string is given to select a maze
-	 * generation algorithm, currently supported is "Prim", "Kruskal" and a second
+	 * generation algorithm, currently supported is "Prim", "Kruskal", "Eller" and a second
 	 * predefined constant string is given to select a maze solving algorithm, 
 	 * currently supported is "Wallfollower" 
 	 * @param args is optional, first string can be a fixed constant like Prim or
@@ -409,7 +409,11 @@ public class MazeFileReader {
 	}
 
 	private void compareCells(Cells mazecells) {
-		if (!cells.equals(mazecells))
+		if (cells.equals(mazecells))
+			return;
+		if (cells.getWidth() == mazecells.getWidth() && cells.getHeight() == mazecells.getHeight())
+			System.out.println("MazeFileReader.compare cells: mismatch in " + cells.countDifferentCells(mazecells) + " cells");
+		else
 			System.out.println("MazeFileReader.compare cells: mismatch");
 	}
 
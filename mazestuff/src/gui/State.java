@@ -87,5 +87,11 @@ public interface State {
      * @param isPerfect is true if maze must be perfect, false otherwise
      */
     void setPerfect(boolean isPerfect);
+    /**
+     * Specifies if the maze should be generated in parallel,
+     * i.e., in tiles that are carved concurrently and then joined.
+     * @param isParallel is true for parallel generation, false otherwise
+     */
+    void setParallel(boolean isParallel);
 
 }
@@ -8,6 +8,7 @@ import generation.Cells;
 import generation.Factory;
 import generation.MazeConfiguration;
 import generation.MazeFactory;
+import generation.MazePool;
 import generation.Order;
 
 
@@ -29,6 +30,7 @@ import generation.Order;
  * Show the generating screen and the progress during generation
  * Accept input interrupt maze generation and return to title screen  
  * Generate a maze with the maze factory
+ * Take a maze from the pool of mazes generated ahead of time if one is ready
  *
  * This code is refactored code from Maze.java by Paul Falstad, www.falstad.com, Copyright (C) 1998, all rights reserved
  * Paul Falstad granted permission to modify and use code for teaching purposes.
@@ -49,12 +51,17 @@ public class StateGenerating extends DefaultState implements Order {
     private boolean perfect; // selected type of maze, i.e. 
     // perfect == true: no loops, i.e. no rooms
     // perfect == false: maze can support rooms
+    private boolean parallel; // selected mode of generation, true for tiles carved in parallel
    
     // The factory is used to calculate a new maze configuration
     // The maze is computed in a separate thread which makes 
     // communication with the factory slightly more complicated.
     // Check the factory interface for details.
     protected Factory factory;
+    // Mazes generated ahead of time, has a factory of its own
+    // such that cancelling the current order does not cancel refills.
+    // Can be null, then each maze is ordered from the factory.
+    protected MazePool pool;
     // The maze configuration produced by the factory
     //private MazeConfiguration mazeConfig; 
 
@@ -68,9 +75,11 @@ public class StateGenerating extends DefaultState implements Order {
     public StateGenerating() {
         filename = null;
         factory = new MazeFactory() ;
+        pool = new MazePool(new MazeFactory()) ;
         skillLevel = 0; // default size for maze
         builder = Order.Builder.DFS; // default algorithm
         perfect = false; // default: maze can have rooms
+        parallel = false; // default: sequential generation
         percentdone = 0;
         started = false;
     }
@@ -93,6 +102,17 @@ public class StateGenerating extends DefaultState implements Order {
     public void setPerfect(boolean isPerfect) {
         perfect = isPerfect;
     }
+    @Override
+    public void setParallel(boolean isParallel) {
+        parallel = isParallel;
+    }
+    /**
+     * Sets the pool of mazes generated ahead of time.
+     * @param pool provides ready mazes, null to order each maze from the factory
+     */
+    public void setMazePool(MazePool pool) {
+        this.pool = pool;
+    }
     /**
      * Loads maze from file and returns a corresponding maze configuration.
      * @param filename
@@ -136,6 +156,14 @@ public class StateGenerating extends DefaultState implements Order {
             //titleView = new MazeView(this or control);
             // show view
             notifyViewerRedraw();
+            // a maze from the pool is delivered right away, 
+            // the pool refills in the background for the next round
+            MazeConfiguration ready = (null != pool) ? pool.take(this) : null;
+            if (null != ready) {
+                updateProgress(100);
+                deliver(ready);
+                return;
+            }
             // make maze factory produce a maze 
             // operates with background thread
             // method returns immediately, 
@@ -196,6 +224,10 @@ public class StateGenerating extends DefaultState implements Order {
     public boolean isPerfect() {
         return perfect;
     }
+    @Override
+    public boolean isParallel() {
+        return parallel;
+    }
     public int getPercentDone() {
         return percentdone;
     }
@@ -5,7 +5,7 @@ import java.awt.Graphics;
 import gui.Constants.StateGUI;
 import gui.Constants.UserInput;
 import generation.CardinalDirection;
-import generation.Cells;
+import generation.SeenCells;
 import generation.MazeConfiguration;
 
 
@@ -54,7 +54,7 @@ public class StatePlaying extends DefaultState {
     private int angle; // current viewing angle, east == 0 degrees
     //static final int viewz = 50;
     private int walkStep; // counter for intermediate steps within a single step forward or backward
-    private Cells seencells; // a matrix with cells to memorize which cells are visible from the current point of view
+    private SeenCells seencells; // the walls seen so far, only chunks with seen walls take memory
     // the FirstPersonDrawer obtains this information and the MapDrawer uses it for highlighting currently visible walls on the map
     private RangeSet rset;
     // debug stuff
@@ -95,7 +95,8 @@ public class StatePlaying extends DefaultState {
         showSolution = false ;
         mapMode = false;
         // init data structure for visible walls
-        seencells = new Cells(mazeConfig.getWidth()+1,mazeConfig.getHeight()+1) ;
+        // FirstPersonDrawer writes and publishes it, MapDrawer reads snapshots
+        seencells = new SeenCells(mazeConfig.getWidth()+1,mazeConfig.getHeight()+1) ;
         // set the current position and direction consistently with the viewing direction
         setPositionDirectionViewingDirection();
         walkStep = 0; // counts incremental steps during move/rotate operation
@@ -5,7 +5,7 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({ MazeBuilderKruskalTest.class, MazeFactoryTest.class})
+@SuiteClasses({ MazeBuilderKruskalTest.class, DisjointSetsTest.class, PackedWallTest.class, WallFrontierTest.class, MazeBuilderEllerTest.class, MazeBuilderCompactDFSTest.class, MazeBuilderParallelTest.class, MazePoolTest.class, MazeCacheTest.class, ChunkedMazeTest.class, CancellationTokenTest.class, BitboardCellsTest.class, MappedCellsTest.class, VersionedCellsTest.class, CellsJournalTest.class, FrozenCellsTest.class, SeenCellsTest.class, MazeFactoryTest.class})
 public class AllMazeTests {
 
 }
@@ -0,0 +1,169 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests that BitboardCells behaves exactly like Cells, cell by cell and in bulk operations.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class BitboardCellsTest {
+	// dimensions such that columns start at different bits of a word and regions span several words
+	private static final int[][] SIZES = {{1, 1}, {13, 7}, {70, 3}, {5, 130}, {64, 64}};
+
+	/**
+	 * Checks that both representations hold the same values and agree on all queries
+	 * @param expected
+	 * @param actual
+	 */
+	private void assertSameCells(Cells expected, BitboardCells actual) {
+		for (int x = 0; x < expected.getWidth(); x++) {
+			for (int y = 0; y < expected.getHeight(); y++) {
+				assertEquals(expected.getValueOfCell(x, y), actual.getValueOfCell(x, y));
+			}
+		}
+		assertTrue(expected.equals(actual));
+		assertTrue(actual.equals(expected));
+		for (int b = 0; b < BitboardCells.FLAGS; b++) {
+			assertEquals(expected.countMaskedBitsTrue(1 << b), actual.countMaskedBitsTrue(1 << b));
+		}
+		assertEquals(expected.countMaskedBitsTrue(Cells.CW_ALL), actual.countMaskedBitsTrue(Cells.CW_ALL));
+		for (CardinalDirection cd : CardinalDirection.values()) {
+			assertEquals(expected.countWalls(cd), actual.countWalls(cd));
+		}
+		assertEquals(expected.countDeadEnds(), actual.countDeadEnds());
+		assertEquals(expected.countJunctions(), actual.countJunctions());
+		assertEquals(0, expected.countDifferentCells(actual));
+		assertEquals(0, actual.countDifferentCells(expected));
+	}
+
+	/**
+	 * Tests that initialize gives the same cells
+	 */
+	@Test
+	public void testInitialize() {
+		for (int[] size : SIZES) {
+			Cells cells = new Cells(size[0], size[1]);
+			BitboardCells bitboard = new BitboardCells(size[0], size[1]);
+			assertSameCells(cells, bitboard);
+			cells.initialize();
+			bitboard.initialize();
+			assertSameCells(cells, bitboard);
+			assertEquals(size[0] * size[1], bitboard.countMaskedBitsTrue(Cells.CW_VISITED));
+		}
+	}
+
+	/**
+	 * Tests random single cell and region operations against Cells
+	 */
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(42);
+		for (int[] size : SIZES) {
+			int w = size[0];
+			int h = size[1];
+			Cells cells = new Cells(w, h);
+			BitboardCells bitboard = new BitboardCells(w, h);
+			for (int i = 0; i < 500; i++) {
+				int bitmask = random.nextInt(1 << BitboardCells.FLAGS);
+				int rx = random.nextInt(w);
+				int ry = random.nextInt(h);
+				int rxl = rx + random.nextInt(w - rx);
+				int ryl = (random.nextBoolean()) ? h-1 : ry + random.nextInt(h - ry);
+				if (random.nextBoolean())
+					ry = 0; // whole columns are handled as a single range
+				switch (random.nextInt(5)) {
+				case 0:
+					cells.setBitToOne(rx, ry, bitmask);
+					bitboard.setBitToOne(rx, ry, bitmask);
+					break;
+				case 1:
+					cells.setBitToZero(rx, ry, bitmask);
+					bitboard.setBitToZero(rx, ry, bitmask);
+					break;
+				case 2:
+					cells.fillRegion(bitmask, rx, ry, rxl, ryl);
+					bitboard.fillRegion(bitmask, rx, ry, rxl, ryl);
+					break;
+				case 3:
+					cells.clearRegion(bitmask, rx, ry, rxl, ryl);
+					bitboard.clearRegion(bitmask, rx, ry, rxl, ryl);
+					break;
+				default:
+					assertEquals(cells.hasMaskedBitsTrueInRegion(bitmask, rx, ry, rxl, ryl),
+							bitboard.hasMaskedBitsTrueInRegion(bitmask, rx, ry, rxl, ryl));
+					assertEquals(cells.hasMaskedBitsTrue(rx, ry, bitmask), bitboard.hasMaskedBitsTrue(rx, ry, bitmask));
+					assertEquals(cells.hasMaskedBitsFalse(rx, ry, bitmask), bitboard.hasMaskedBitsFalse(rx, ry, bitmask));
+				}
+			}
+			assertSameCells(cells, bitboard);
+		}
+	}
+
+	/**
+	 * Tests that the constructor copies the given values and that a difference is detected
+	 */
+	@Test
+	public void testConstructorWithArrayAndEquals() {
+		int[][] values = new int[9][5];
+		for (int x = 0; x < 9; x++) {
+			for (int y = 0; y < 5; y++) {
+				values[x][y] = (x * 5 + y) * 37 % (1 << BitboardCells.FLAGS);
+			}
+		}
+		BitboardCells bitboard = new BitboardCells(values);
+		assertSameCells(new Cells(values), bitboard);
+		BitboardCells other = new BitboardCells(values);
+		assertEquals(bitboard, other);
+		other.setBitToZero(8, 4, Cells.CW_VISITED);
+		other.setBitToOne(8, 4, Cells.CW_IN_ROOM);
+		assertEquals(values[8][4] & ~Cells.CW_VISITED | Cells.CW_IN_ROOM, other.getValueOfCell(8, 4));
+		if (values[8][4] != other.getValueOfCell(8, 4)) {
+			assertFalse(bitboard.equals(other));
+			assertEquals(1, bitboard.countDifferentCells(other));
+			assertEquals(1, other.countDifferentCells(new Cells(values)));
+		}
+	}
+
+	/**
+	 * Generates a maze with the given cells
+	 * @param builder generates the maze
+	 * @param cells are used instead of the cells the builder creates, null to keep those
+	 * @return the delivered cells
+	 */
+	private Cells generate(MazeBuilder builder, Cells cells) {
+		OrderStub stub = new OrderStub(3, false, Builder.DFS);
+		builder.setRandom(SingleRandom.newStream(11));
+		builder.buildOrder(stub);
+		if (null != cells)
+			builder.cells = cells;
+		builder.run();
+		assertNotNull(stub.getMazeConfig());
+		return stub.getMazeConfig().getMazecells();
+	}
+
+	/**
+	 * Tests that each builder generates the same maze with rooms on BitboardCells as on Cells
+	 */
+	@Test
+	public void testBuildersGenerateSameMaze() {
+		MazeBuilder[] builders = {new MazeBuilder(), new MazeBuilderPrim(), new MazeBuilderKruskal(),
+				new MazeBuilderEller(), new MazeBuilderCompactDFS()};
+		MazeBuilder[] bitboardBuilders = {new MazeBuilder(), new MazeBuilderPrim(), new MazeBuilderKruskal(),
+				new MazeBuilderEller(), new MazeBuilderCompactDFS()};
+		for (int i = 0; i < builders.length; i++) {
+			Cells expected = generate(builders[i], null);
+			Cells actual = generate(bitboardBuilders[i], new BitboardCells(expected.getWidth(), expected.getHeight()));
+			assertTrue(actual instanceof BitboardCells);
+			assertSameCells(expected, (BitboardCells) actual);
+			assertTrue(0 < actual.countMaskedBitsTrue(Cells.CW_IN_ROOM));
+		}
+	}
+}
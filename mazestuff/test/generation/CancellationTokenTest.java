@@ -0,0 +1,132 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests for cancelling maze generation with a CancellationToken
+ * and for the latency from cancel to stop.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class CancellationTokenTest {
+	static final int SIZE = 2000; // mazes of this size take minutes to generate, far longer than the bound below
+	// generous bound on waiting for a cancelled builder, a checkpoint is usually reached within a millisecond,
+	// may be raised with -Dgeneration.maxStopLatencyMs=... on slow or busy machines
+	static final long MAX_STOP_LATENCY_MS = Long.getLong("generation.maxStopLatencyMs", 10000);
+	private MazeFactory mazeFactory;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		if (null != mazeFactory) {
+			mazeFactory.shutdown();
+		}
+		mazeFactory = null;
+	}
+
+	/**
+	 * Tests that a checkpoint passes till the token is cancelled
+	 */
+	@Test
+	public void testCheckpoint() {
+		CancellationToken token = new CancellationToken();
+		token.checkpoint();
+		assertFalse(token.isCancelled());
+		assertEquals(-1, token.getStopLatency(TimeUnit.NANOSECONDS));
+		token.cancel();
+		assertTrue(token.isCancelled());
+		try {
+			token.checkpoint();
+			fail("checkpoint should throw after cancel");
+		} catch (CancellationException e) {
+			// expected
+		}
+		assertTrue(0 <= token.getStopLatency(TimeUnit.NANOSECONDS));
+	}
+
+	/**
+	 * Tests that a checkpoint also notices an interrupted thread
+	 */
+	@Test
+	public void testCheckpointInterrupted() {
+		CancellationToken token = new CancellationToken();
+		Thread.currentThread().interrupt();
+		try {
+			token.checkpoint();
+			fail("checkpoint should throw on an interrupted thread");
+		} catch (CancellationException e) {
+			// expected
+		} finally {
+			Thread.interrupted(); // clear the flag for other tests
+		}
+		assertFalse(token.isCancelled());
+	}
+
+	/**
+	 * Runs a builder on a large maze, cancels it while it is generating and checks
+	 * that it stops without delivering a maze
+	 * @param builder
+	 * @return latency from cancel to stop in milliseconds
+	 */
+	private long measureStopLatency(MazeBuilder builder) throws InterruptedException {
+		OrderStub stub = new OrderStub(SIZE, SIZE, 0, 5000, true, Builder.DFS);
+		builder.setRandom(SingleRandom.newStream(1));
+		CancellationToken token = new CancellationToken();
+		builder.setCancellationToken(token);
+		builder.buildOrder(stub);
+		Thread worker = new Thread(builder);
+		worker.start();
+		Thread.sleep(50); // let the builder get into its generation loops, it stops the same way if it did not
+		token.cancel();
+		worker.join(MAX_STOP_LATENCY_MS);
+		String name = builder.getClass().getSimpleName();
+		assertFalse(name + " did not stop after cancel", worker.isAlive());
+		assertNull(name + " delivered a cancelled maze", stub.getMazeConfig());
+		return token.getStopLatency(TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Tests that each builder stops after its token is cancelled and reaches a checkpoint to do so
+	 */
+	@Test
+	public void testStopLatency() throws InterruptedException {
+		MazeBuilder[] builders = {new MazeBuilder(), new MazeBuilderPrim(), new MazeBuilderKruskal(),
+				new MazeBuilderEller(), new MazeBuilderCompactDFS(), new MazeBuilderParallel()};
+		for (MazeBuilder builder : builders) {
+			long latency = measureStopLatency(builder);
+			assertTrue(builder.getClass().getSimpleName() + " stopped without a checkpoint", 0 <= latency);
+		}
+	}
+
+	/**
+	 * Tests that cancelling an order frees the worker, such that the next order
+	 * does not wait for the cancelled maze to be finished
+	 */
+	@Test
+	public void testCancelFreesWorker() throws InterruptedException {
+		mazeFactory = new MazeFactory(false, 1, 1);
+		OrderStub large = new OrderStub(SIZE, SIZE, 0, 5000, true, Builder.Prim);
+		OrderStub small = new OrderStub(0, true, Builder.DFS);
+		assertTrue(mazeFactory.order(large));
+		assertTrue(mazeFactory.cancel(large));
+		long start = System.nanoTime();
+		assertTrue(mazeFactory.order(small));
+		mazeFactory.waitTillDelivered();
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertNull(large.getMazeConfig());
+		assertNotNull(small.getMazeConfig());
+		// a small maze takes a few milliseconds, the large one would take minutes
+		assertTrue("next order waited " + elapsed + " ms", elapsed < MAX_STOP_LATENCY_MS);
+	}
+}
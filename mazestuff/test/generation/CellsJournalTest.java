@@ -0,0 +1,189 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests that a CellsJournal records the generation of a maze such that it can be replayed,
+ * saved, loaded and compared.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class CellsJournalTest {
+	private MazeFactory mazeFactory;
+	private File file;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		if (null != mazeFactory) {
+			mazeFactory.shutdown();
+		}
+		mazeFactory = null;
+		if (null != file) {
+			file.delete();
+		}
+		file = null;
+	}
+
+	/**
+	 * Generates a maze with a journal
+	 * @param builder generates the maze
+	 * @param seed for the random number stream of the builder
+	 * @return the delivered cells
+	 */
+	private Cells generate(MazeBuilder builder, int seed) {
+		OrderStub stub = new OrderStub(3, false, Builder.DFS);
+		builder.setRandom(SingleRandom.newStream(seed));
+		builder.setJournalCapacity(Integer.MAX_VALUE / 2);
+		builder.buildOrder(stub);
+		builder.run();
+		assertNotNull(stub.getMazeConfig());
+		Cells cells = stub.getMazeConfig().getMazecells();
+		assertNotNull(cells.getJournal());
+		return cells;
+	}
+
+	/**
+	 * Tests that replaying the journal of each builder gives the generated maze, rooms included
+	 */
+	@Test
+	public void testReplayGivesSameMaze() {
+		MazeBuilder[] builders = {new MazeBuilder(), new MazeBuilderPrim(), new MazeBuilderKruskal(),
+				new MazeBuilderEller(), new MazeBuilderCompactDFS(), new MazeBuilderParallel()};
+		for (MazeBuilder builder : builders) {
+			Cells cells = generate(builder, 13);
+			CellsJournal journal = cells.getJournal();
+			assertEquals(0, journal.getDropped());
+			assertEquals(CellsJournal.INITIALIZE, journal.getOperation(0));
+			Cells replayed = new Cells(journal.getWidth(), journal.getHeight());
+			journal.replay(replayed, 0, journal.size());
+			assertEquals(0, cells.countDifferentCells(replayed));
+			assertNull(replayed.getJournal());
+		}
+	}
+
+	/**
+	 * Tests that a replay can go step by step and that each wall deletion changes two cells
+	 */
+	@Test
+	public void testReplayStepByStep() {
+		Cells cells = generate(new MazeBuilderPrim(), 5);
+		CellsJournal journal = cells.getJournal();
+		Cells replayed = new Cells(journal.getWidth(), journal.getHeight());
+		int deleted = 0;
+		for (int r = 0; r < journal.size(); r++) {
+			if (CellsJournal.DELETE_WALL == journal.getOperation(r)) {
+				Cells before = new Cells(journal.getWidth(), journal.getHeight());
+				journal.replay(before, 0, r);
+				journal.replay(replayed, r, r + 1);
+				int wall = journal.getPosition(r);
+				assertTrue(replayed.hasNoWall(PackedWall.getX(wall), PackedWall.getY(wall), PackedWall.getDirection(wall)));
+				assertEquals(2, before.countDifferentCells(replayed));
+				deleted++;
+				if (3 == deleted)
+					break;
+			}
+			else {
+				journal.replay(replayed, r, r + 1);
+			}
+		}
+		assertEquals(3, deleted);
+	}
+
+	/**
+	 * Tests that the ring buffer keeps the most recent records once it is full
+	 */
+	@Test
+	public void testCapacity() {
+		CellsJournal journal = new CellsJournal(10, 10, 5);
+		Cells cells = new Cells(10, 10);
+		cells.setJournal(journal);
+		cells.initialize();
+		for (int x = 0; x < 9; x++) {
+			cells.deleteWall(PackedWall.pack(x, 0, CardinalDirection.East));
+		}
+		assertEquals(5, journal.size());
+		assertEquals(5, journal.getDropped());
+		for (int r = 0; r < 5; r++) {
+			assertEquals(CellsJournal.DELETE_WALL, journal.getOperation(r));
+			assertEquals(PackedWall.pack(r + 4, 0, CardinalDirection.East), journal.getPosition(r));
+		}
+		cells.setJournal(null);
+		cells.setCellAsVisited(0, 0);
+		assertEquals(5, journal.size());
+	}
+
+	/**
+	 * Tests that a saved journal loads with the same records and that two builds are compared
+	 */
+	@Test
+	public void testSaveLoadAndDifference() throws IOException {
+		Cells cells = generate(new MazeBuilderKruskal(), 7);
+		CellsJournal journal = cells.getJournal();
+		file = File.createTempFile("journal", ".bin");
+		journal.save(file);
+		assertEquals(4 * 7 + 8 * journal.size(), file.length());
+		CellsJournal loaded = CellsJournal.load(file);
+		assertEquals(journal.size(), loaded.size());
+		assertEquals(journal.getWidth(), loaded.getWidth());
+		assertEquals(-1, journal.firstDifference(loaded));
+		Cells replayed = new Cells(loaded.getWidth(), loaded.getHeight());
+		loaded.replay(replayed, 0, loaded.size());
+		assertEquals(cells, replayed);
+
+		CellsJournal same = generate(new MazeBuilderKruskal(), 7).getJournal();
+		assertEquals(-1, journal.firstDifference(same));
+		CellsJournal other = generate(new MazeBuilderKruskal(), 8).getJournal();
+		int r = journal.firstDifference(other);
+		assertTrue(0 < r);
+		assertTrue(journal.getOperation(r) != other.getOperation(r) || journal.getPosition(r) != other.getPosition(r));
+	}
+
+	/**
+	 * Tests that the text log of deleted walls derived from the journal is the same as the one of Cells
+	 */
+	@Test
+	public void testDeletedWallsLikeTextLog() throws IOException {
+		Cells cells;
+		Cells.deepdebugWall = true;
+		try {
+			cells = generate(new MazeBuilderPrim(), 11);
+		} finally {
+			Cells.deepdebugWall = false;
+		}
+		file = File.createTempFile("walls", ".txt");
+		cells.saveLogFile(file.getPath());
+		String expected = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		cells.getJournal().saveDeletedWalls(file);
+		assertEquals(expected, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+		assertTrue(expected.split("\n").length > 1);
+	}
+
+	/**
+	 * Tests that a factory with a journal capacity delivers mazes with a journal
+	 */
+	@Test
+	public void testFactoryJournal() {
+		mazeFactory = new MazeFactory(true);
+		mazeFactory.setJournalCapacity(1000);
+		OrderStub stub = new OrderStub(1, true, Builder.Eller);
+		assertTrue(mazeFactory.order(stub));
+		mazeFactory.waitTillDelivered();
+		CellsJournal journal = stub.getMazeConfig().getMazecells().getJournal();
+		assertNotNull(journal);
+		assertTrue(0 < journal.size() && journal.size() <= 1000);
+	}
+}
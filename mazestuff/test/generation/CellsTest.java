@@ -5,6 +5,12 @@ import generation.CardinalDirection;
 import generation.Cells;
 import generation.Wall;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -543,5 +549,169 @@ public class CellsTest{
 		assertEquals(cell1.getCWConstantForDirection(CardinalDirection.South),Cells.CW_BOT);
 		assertEquals(cell1.getCWConstantForDirection(CardinalDirection.North),Cells.CW_TOP);
 	}
+	/**
+	 * Test case: Check that cells of a maze that is not square are stored apart.
+	 * <p>
+	 * Method under test: Cells(int[][] input), getValueOfCell(int i, int j), deleteWall(Wall wall)
+	 * <p>
+	 * Correct behavior: each position keeps its own value, including values
+	 * that use all bits of the encoding, and deleting a wall only changes
+	 * the two cells next to it.
+	 */
+	@Test
+	public final void testNonSquareCells() {
+		int w = 5;
+		int h = 3;
+		int[][] a = new int[w][h] ;
+		for (int i = 0; i < w; i++) {
+			for (int j = 0; j < h; j++) {
+				a[i][j] = (i*h+j) * 67 % 1024 ;
+			}
+		}
+		a[w-1][h-1] = 1023 ;
+		cells = new Cells(a) ;
+		for (int i = 0; i < w; i++) {
+			for (int j = 0; j < h; j++) {
+				assertEquals(a[i][j], cells.getValueOfCell(i, j)) ;
+			}
+		}
+		Cells initial = new Cells(w, h) ;
+		initial.initialize();
+		cells = new Cells(w, h) ;
+		cells.initialize();
+		cells.deleteWall(new Wall(1, 2, CardinalDirection.East));
+		for (int i = 0; i < w; i++) {
+			for (int j = 0; j < h; j++) {
+				if (1 == i && 2 == j)
+					assertTrue(cells.hasNoWall(i, j, CardinalDirection.East)) ;
+				else if (2 == i && 2 == j)
+					assertTrue(cells.hasNoWall(i, j, CardinalDirection.West)) ;
+				else
+					assertEquals(initial.getValueOfCell(i, j), cells.getValueOfCell(i, j)) ;
+			}
+		}
+	}
+
+	/**
+	 * Test case: Check the bulk queries over all cells.
+	 * <p>
+	 * Method under test: countWalls(CardinalDirection dir), countDeadEnds(), countJunctions(), countDifferentCells(Cells other)
+	 * <p>
+	 * Correct behavior: after initialize all cells have four walls, so there are no dead ends
+	 * and no junctions. Deleting a wall turns the two cells next to it into dead ends,
+	 * deleting all walls around a cell makes it a junction, and each change of a cell
+	 * counts as one difference.
+	 */
+	@Test
+	public final void testBulkQueries() {
+		int w = 7;
+		int h = 4;
+		Cells initial = new Cells(w, h) ;
+		initial.initialize();
+		cells = new Cells(w, h) ;
+		cells.initialize();
+		for (CardinalDirection cd : CardinalDirection.values()) {
+			assertEquals(w*h, cells.countWalls(cd)) ;
+		}
+		assertEquals(0, cells.countDeadEnds()) ;
+		assertEquals(0, cells.countJunctions()) ;
+		assertEquals(0, cells.countDifferentCells(initial)) ;
+
+		cells.deleteWall(new Wall(1, 2, CardinalDirection.East));
+		assertEquals(w*h-1, cells.countWalls(CardinalDirection.East)) ;
+		assertEquals(w*h-1, cells.countWalls(CardinalDirection.West)) ;
+		assertEquals(w*h, cells.countWalls(CardinalDirection.North)) ;
+		assertEquals(2, cells.countDeadEnds()) ;
+		assertEquals(0, cells.countJunctions()) ;
+		assertEquals(2, cells.countDifferentCells(initial)) ;
+		assertEquals(2, initial.countDifferentCells(cells)) ;
+
+		// open up cell (2,2) on all sides, its neighbors (3,2), (2,1) and (2,3) become dead ends
+		cells.deleteWall(new Wall(2, 2, CardinalDirection.East));
+		cells.deleteWall(new Wall(2, 2, CardinalDirection.North));
+		cells.deleteWall(new Wall(2, 2, CardinalDirection.South));
+		assertEquals(1, cells.countJunctions()) ;
+		assertEquals(4, cells.countDeadEnds()) ;
+		assertEquals(5, cells.countDifferentCells(initial)) ;
+	}
+
+	/**
+	 * Tests that Cells and all its variants reject a position out of range, also if its index would be inside the array,
+	 * e.g. a y coordinate that is one too large for a column other than the last one
+	 */
+	@Test
+	public final void testPositionOutOfRange() throws IOException {
+		File directory = Files.createTempDirectory("cells").toFile() ;
+		MappedCells mapped = MappedCells.createTemporary(directory, 5, 4) ;
+		VersionedCells versioned = new VersionedCells(5, 4) ;
+		SeenCells seen = new SeenCells(5, 4) ;
+		Cells[] variants = {new Cells(5, 4), new BitboardCells(5, 4), mapped, versioned, versioned.getSnapshot(),
+				seen, seen.getSnapshot()} ;
+		int[][] positions = {{1, 4}, {2, -1}, {-1, 3}, {5, 0}} ;
+		try {
+			for (Cells variant : variants) {
+				for (int[] position : positions) {
+					try {
+						variant.getValueOfCell(position[0], position[1]) ;
+						fail(variant.getClass().getSimpleName() + " position out of range: " + position[0] + ", " + position[1]) ;
+					} catch (ArrayIndexOutOfBoundsException e) {
+						// expected
+					}
+					try {
+						variant.addWall(new Wall(position[0], position[1], CardinalDirection.North), false) ;
+						fail(variant.getClass().getSimpleName() + " position out of range: " + position[0] + ", " + position[1]) ;
+					} catch (ArrayIndexOutOfBoundsException | UnsupportedOperationException e) {
+						// expected, snapshots reject all updates
+					}
+				}
+			}
+		} finally {
+			mapped.close() ;
+			directory.delete() ;
+		}
+	}
+
+	/**
+	 * Tests the bulk queries on the Vector API against plain loops, for arrays that are not
+	 * a multiple of the vector width. Without the module at runtime there are no such queries,
+	 * Cells uses its scalar loops, which testBulkQueries covers.
+	 */
+	@Test
+	public final void testVectorBulkQueries() {
+		Cells.BulkQueries queries = Cells.loadVectorQueries() ;
+		// skipped unless src-vector is compiled and the tests run with --add-modules jdk.incubator.vector
+		Assume.assumeNotNull(queries) ;
+		Random random = new Random(9) ;
+		for (int n : new int[] {0, 1, 15, 16, 17, 1000, 1031}) {
+			short[] values = new short[n] ;
+			short[] other = new short[n] ;
+			for (int i = 0; i < n; i++) {
+				values[i] = (short) random.nextInt(1 << 10) ;
+				other[i] = random.nextBoolean() ? values[i] : (short) random.nextInt(1 << 10) ;
+			}
+			for (int bitmask : new int[] {Cells.CW_TOP, Cells.CW_RIGHT, Cells.CW_VISITED, Cells.CW_IN_ROOM, Cells.CW_ALL}) {
+				int expected = 0 ;
+				for (short value : values) {
+					if (0 != (value & bitmask))
+						expected++ ;
+				}
+				assertEquals(expected, queries.countMaskedBitsTrue(values, bitmask)) ;
+			}
+			for (int walls = 0; walls <= 4; walls++) {
+				int expected = 0 ;
+				for (short value : values) {
+					if (Integer.bitCount(value & Cells.CW_ALL) == walls)
+						expected++ ;
+				}
+				assertEquals(expected, queries.countCellsWithWalls(values, walls)) ;
+			}
+			int expected = 0 ;
+			for (int i = 0; i < n; i++) {
+				if (values[i] != other[i])
+					expected++ ;
+			}
+			assertEquals(expected, queries.countDifferentCells(values, other)) ;
+		}
+	}
 
 }
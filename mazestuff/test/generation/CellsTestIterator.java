@@ -3,6 +3,7 @@ package generation;
 import static org.junit.Assert.*;
 
 import java.util.Iterator;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -263,4 +264,53 @@ public class CellsTestIterator {
         }   
     }
 
+    /**
+     * Test case: See if the cursor delivers the same sequences as the iterator
+     * <p>
+     * Method under test: sequenceCursor
+     * <p>
+     * Test uses cells with random values, some with walls that overlap columns
+     * of the bit sets in BitboardCells, and compares the cursor of Cells and
+     * of BitboardCells with the iterator for all starting positions and directions.
+     * The cursor is reused for all of them.
+     */
+    @Test
+    public final void testCursorMatchesIterator() {
+        final Random random = new Random(3);
+        final int[][] sizes = {{1, 1}, {4, 5}, {3, 70}, {70, 2}, {9, 64}};
+        for (int[] size : sizes) {
+            final int width = size[0];
+            final int height = size[1];
+            final int[][] values = new int[width][height];
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    // mostly walls such that there are long sequences
+                    values[x][y] = random.nextInt(Cells.CW_ALL+1) | random.nextInt(Cells.CW_ALL+1);
+                }
+            }
+            final Cells cells = new Cells(values);
+            final Cells.SequenceCursor cursor = cells.sequenceCursor();
+            final Cells.SequenceCursor bitboardCursor = new BitboardCells(values).sequenceCursor();
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    for (CardinalDirection cd: CardinalDirection.values()) {
+                        Iterator<int[]> it = cells.iterator(x, y, cd);
+                        cursor.reset(x, y, cd);
+                        bitboardCursor.reset(x, y, cd);
+                        while (it.hasNext()) {
+                            int[] seq = it.next();
+                            assertTrue(cursor.next());
+                            assertEquals(seq[0], cursor.getStart());
+                            assertEquals(seq[1], cursor.getEnd());
+                            assertTrue(bitboardCursor.next());
+                            assertEquals(seq[0], bitboardCursor.getStart());
+                            assertEquals(seq[1], bitboardCursor.getEnd());
+                        }
+                        assertFalse(cursor.next());
+                        assertFalse(bitboardCursor.next());
+                    }
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,104 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayDeque;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests for the endless maze that is generated in chunks on demand.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class ChunkedMazeTest {
+
+	/**
+	 * Tests that both sides of a wall agree, also on chunk edges and for negative coordinates
+	 */
+	@Test
+	public void testConsistentWalls() {
+		for(Builder builder : Builder.values()) {
+			ChunkedMaze maze = new ChunkedMaze(11, builder, 8, 16);
+			for(int x = -20; x < 20; x++) {
+				for(int y = -20; y < 20; y++) {
+					assertEquals(maze.hasWall(x, y, CardinalDirection.East), maze.hasWall(x+1, y, CardinalDirection.West));
+					assertEquals(maze.hasWall(x, y, CardinalDirection.South), maze.hasWall(x, y+1, CardinalDirection.North));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Tests that all cells of a block of chunks can be reached without leaving the block
+	 */
+	@Test
+	public void testConnected() {
+		int size = 10;
+		ChunkedMaze maze = new ChunkedMaze(5, Builder.Prim, size, 9);
+		int x0 = -size;
+		int y0 = -size;
+		int n = 3 * size;
+		boolean[][] reached = new boolean[n][n];
+		ArrayDeque<int[]> queue = new ArrayDeque<int[]>();
+		reached[0][0] = true;
+		queue.add(new int[] {0, 0});
+		int count = 1;
+		while(!queue.isEmpty()) {
+			int[] pos = queue.removeFirst();
+			for(CardinalDirection dir : CardinalDirection.values()) {
+				int x = pos[0] + dir.getDx();
+				int y = pos[1] + dir.getDy();
+				if(0 <= x && x < n && 0 <= y && y < n && !reached[x][y]
+						&& !maze.hasWall(x0 + pos[0], y0 + pos[1], dir)) {
+					reached[x][y] = true;
+					queue.add(new int[] {x, y});
+					count++;
+				}
+			}
+		}
+		assertEquals(n * n, count);
+	}
+
+	/**
+	 * Tests that memory is bounded while travelling far and that a dropped chunk comes back the same
+	 */
+	@Test
+	public void testEvictionAndRegeneration() {
+		ChunkedMaze maze = new ChunkedMaze(3, Builder.DFS, 16, 9);
+		maze.prefetch(0, 0);
+		Cells origin = maze.getChunk(0, 0);
+		int[][] values = new int[16][16];
+		for(int x = 0; x < 16; x++) {
+			for(int y = 0; y < 16; y++) {
+				values[x][y] = origin.getValueOfCell(x, y);
+			}
+		}
+
+		//travel far to the east
+		for(int x = 0; x < 50 * 16; x += 16) {
+			maze.prefetch(x, 0);
+			assertTrue(maze.getNumberOfChunks() <= 9);
+		}
+		long generated = maze.getNumberOfGeneratedChunks();
+		Cells again = maze.getChunk(0, 0);
+		assertEquals(generated + 1, maze.getNumberOfGeneratedChunks()); //dropped and generated again
+		assertNotSame(origin, again);
+		assertEquals(new Cells(values), again);
+	}
+
+	/**
+	 * Tests that different seeds give different mazes
+	 */
+	@Test
+	public void testSeeds() {
+		ChunkedMaze maze = new ChunkedMaze(1, Builder.Kruskal, 16, 9);
+		ChunkedMaze same = new ChunkedMaze(1, Builder.Kruskal, 16, 9);
+		ChunkedMaze other = new ChunkedMaze(2, Builder.Kruskal, 16, 9);
+		assertEquals(maze.getChunk(4, -7), same.getChunk(4, -7));
+		assertNotEquals(maze.getChunk(4, -7), other.getChunk(4, -7));
+	}
+}
@@ -0,0 +1,86 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * White box tests for the union-find data structure used by the Kruskal maze algorithm.
+ * 
+ * @author Katson, Andrew
+ *
+ */
+public class DisjointSetsTest {
+
+	/**
+	 * Tests that each element starts out in a set of its own
+	 */
+	@Test
+	public void testInitialSets() {
+		int size = 10;
+		DisjointSets sets = new DisjointSets(size);
+		
+		assertEquals(size, sets.size());
+		assertEquals(size, sets.getNumberOfSets());
+		for (int i = 0; i < size; i++) {
+			assertEquals(i, sets.find(i)); //every element is its own representative
+		}
+	}
+	
+	/**
+	 * Tests that union merges sets exactly once and that find agrees afterwards
+	 */
+	@Test
+	public void testUnion() {
+		int size = 10;
+		DisjointSets sets = new DisjointSets(size);
+		
+		assertTrue(sets.union(0, 1));
+		assertTrue(sets.union(2, 3));
+		assertTrue(sets.union(1, 3));
+		assertFalse(sets.union(0, 2)); //already connected through 1 and 3
+		
+		assertEquals(size - 3, sets.getNumberOfSets());
+		assertTrue(sets.connected(0, 3));
+		assertEquals(sets.find(0), sets.find(2));
+		assertFalse(sets.connected(0, 4));
+	}
+	
+	/**
+	 * Tests that a long chain of unions ends in a single set with a single representative
+	 */
+	@Test
+	public void testChainOfUnions() {
+		int size = 1000;
+		DisjointSets sets = new DisjointSets(size);
+		
+		for (int i = 1; i < size; i++) {
+			assertTrue(sets.union(i - 1, i));
+		}
+		assertEquals(1, sets.getNumberOfSets());
+		int root = sets.find(0);
+		for (int i = 0; i < size; i++) {
+			assertEquals(root, sets.find(i));
+		}
+	}
+	
+	/**
+	 * Tests that reset puts every element back in a set of its own
+	 */
+	@Test
+	public void testReset() {
+		int size = 6;
+		DisjointSets sets = new DisjointSets(size);
+		sets.union(0, 1);
+		sets.union(2, 3);
+		sets.union(1, 3);
+		
+		sets.reset();
+		
+		assertEquals(size, sets.getNumberOfSets());
+		for (int i = 0; i < size; i++) {
+			assertEquals(i, sets.find(i));
+		}
+		assertTrue(sets.union(0, 5)); //elements that were merged before reset can be merged again
+	}
+}
@@ -0,0 +1,135 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests that FrozenCells answer all queries of play like the cells they were frozen from.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class FrozenCellsTest {
+
+	/**
+	 * Generates a maze
+	 * @param builder generates the maze
+	 * @param perfect is false for a maze with rooms
+	 * @return the delivered maze
+	 */
+	private MazeConfiguration generate(MazeBuilder builder, boolean perfect) {
+		OrderStub stub = new OrderStub(4, perfect, Builder.DFS);
+		builder.setRandom(SingleRandom.newStream(17));
+		builder.buildOrder(stub);
+		builder.run();
+		assertNotNull(stub.getMazeConfig());
+		return stub.getMazeConfig();
+	}
+
+	/**
+	 * Checks that the frozen cells give the same answers for walls, exit and rooms
+	 * @param expected
+	 * @param actual
+	 */
+	private void assertSameForPlay(Cells expected, Cells actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		int exits = 0;
+		for (int x = 0; x < expected.getWidth(); x++) {
+			for (int y = 0; y < expected.getHeight(); y++) {
+				for (CardinalDirection cd : CardinalDirection.values()) {
+					assertEquals(expected.hasWall(x, y, cd), actual.hasWall(x, y, cd));
+				}
+				assertEquals(expected.isExitPosition(x, y), actual.isExitPosition(x, y));
+				assertEquals(expected.isInRoom(x, y), actual.isInRoom(x, y));
+				assertEquals(expected.getValueOfCell(x, y) & (Cells.CW_ALL | Cells.CW_IN_ROOM), actual.getValueOfCell(x, y));
+				if (actual.isExitPosition(x, y))
+					exits++;
+			}
+		}
+		assertTrue(0 < exits);
+	}
+
+	/**
+	 * Tests that each builder's maze gives the same answers after freezing, rooms included
+	 */
+	@Test
+	public void testFrozenMazeAnswersSame() {
+		MazeBuilder[] builders = {new MazeBuilder(), new MazeBuilderPrim(), new MazeBuilderKruskal(),
+				new MazeBuilderEller(), new MazeBuilderCompactDFS()};
+		for (MazeBuilder builder : builders) {
+			MazeConfiguration config = generate(builder, false);
+			Cells cells = config.getMazecells();
+			config.freeze();
+			Cells frozen = config.getMazecells();
+			assertTrue(frozen instanceof FrozenCells);
+			assertSameForPlay(cells, frozen);
+			assertTrue(0 < frozen.countMaskedBitsTrue(Cells.CW_IN_ROOM));
+			assertEquals(cells.countDeadEnds(), frozen.countDeadEnds());
+			// freezing again keeps the same cells
+			config.freeze();
+			assertSame(frozen, config.getMazecells());
+		}
+	}
+
+	/**
+	 * Tests that frozen cells can not be changed
+	 */
+	@Test
+	public void testFrozenCellsAreReadOnly() {
+		Cells cells = new Cells(5, 4);
+		cells.initialize();
+		FrozenCells frozen = new FrozenCells(cells);
+		try {
+			frozen.deleteWall(PackedWall.pack(1, 1, CardinalDirection.East));
+			fail("frozen cells should not accept updates");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		try {
+			frozen.setCellAsVisited(0, 0);
+			fail("frozen cells should not accept updates");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		assertSameForPlayWithoutExit(cells, frozen);
+	}
+
+	/**
+	 * Checks walls only, for cells that have no exit
+	 * @param expected
+	 * @param actual
+	 */
+	private void assertSameForPlayWithoutExit(Cells expected, Cells actual) {
+		for (int x = 0; x < expected.getWidth(); x++) {
+			for (int y = 0; y < expected.getHeight(); y++) {
+				assertEquals(expected.getValueOfCell(x, y) & Cells.CW_ALL, actual.getValueOfCell(x, y));
+				assertFalse(actual.isExitPosition(x, y));
+				// bounds and visited flags are dropped
+				assertTrue(actual.hasMaskedBitsFalse(x, y, Cells.CW_VISITED));
+			}
+		}
+	}
+
+	/**
+	 * Tests that a position out of range is rejected, also if its index would be inside the array
+	 */
+	@Test
+	public void testPositionOutOfRange() {
+		Cells cells = new Cells(5, 4);
+		cells.initialize();
+		FrozenCells frozen = new FrozenCells(cells);
+		int[][] positions = {{1, 4}, {2, -1}, {-1, 3}, {5, 0}};
+		for (int[] position : positions) {
+			try {
+				frozen.hasWall(position[0], position[1], CardinalDirection.North);
+				fail("position out of range: " + position[0] + ", " + position[1]);
+			} catch (ArrayIndexOutOfBoundsException e) {
+				// expected
+			}
+		}
+	}
+}
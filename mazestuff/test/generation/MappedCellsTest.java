@@ -0,0 +1,244 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests that MappedCells behaves like Cells and keeps its cells in a file.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class MappedCellsTest {
+	private File directory;
+	private MazeFactory mazeFactory;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("mappedcells").toFile();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		if (null != mazeFactory) {
+			mazeFactory.shutdown();
+		}
+		mazeFactory = null;
+		File[] files = directory.listFiles();
+		if (null != files) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Checks that both grids hold the same values and agree on queries
+	 * @param expected
+	 * @param actual
+	 */
+	private void assertSameCells(Cells expected, Cells actual) {
+		for (int x = 0; x < expected.getWidth(); x++) {
+			for (int y = 0; y < expected.getHeight(); y++) {
+				assertEquals(expected.getValueOfCell(x, y), actual.getValueOfCell(x, y));
+				for (CardinalDirection dir : CardinalDirection.values()) {
+					assertEquals(expected.hasWall(x, y, dir), actual.hasWall(x, y, dir));
+				}
+				assertEquals(expected.isExitPosition(x, y), actual.isExitPosition(x, y));
+				assertEquals(expected.isInRoom(x, y), actual.isInRoom(x, y));
+			}
+		}
+		assertTrue(expected.equals(actual));
+		assertTrue(actual.equals(expected));
+		for (CardinalDirection cd : CardinalDirection.values()) {
+			assertEquals(expected.countWalls(cd), actual.countWalls(cd));
+		}
+		assertEquals(expected.countDeadEnds(), actual.countDeadEnds());
+		assertEquals(expected.countJunctions(), actual.countJunctions());
+		assertEquals(0, expected.countDifferentCells(actual));
+		assertEquals(0, actual.countDifferentCells(expected));
+	}
+
+	/**
+	 * Tests random single cell and region operations against Cells
+	 */
+	@Test
+	public void testRandomOperations() throws Exception {
+		Random random = new Random(7);
+		int w = 13;
+		int h = 9;
+		Cells cells = new Cells(w, h);
+		MappedCells mapped = MappedCells.createTemporary(directory, w, h);
+		assertSameCells(cells, mapped);
+		cells.initialize();
+		mapped.initialize();
+		assertSameCells(cells, mapped);
+		for (int i = 0; i < 500; i++) {
+			int bitmask = random.nextInt(1 << BitboardCells.FLAGS);
+			int rx = random.nextInt(w);
+			int ry = random.nextInt(h);
+			int rxl = rx + random.nextInt(w - rx);
+			int ryl = ry + random.nextInt(h - ry);
+			switch (random.nextInt(4)) {
+			case 0:
+				cells.setBitToOne(rx, ry, bitmask);
+				mapped.setBitToOne(rx, ry, bitmask);
+				break;
+			case 1:
+				cells.setBitToZero(rx, ry, bitmask);
+				mapped.setBitToZero(rx, ry, bitmask);
+				break;
+			case 2:
+				cells.fillRegion(bitmask, rx, ry, rxl, ryl);
+				mapped.fillRegion(bitmask, rx, ry, rxl, ryl);
+				break;
+			default:
+				assertEquals(cells.hasMaskedBitsTrueInRegion(bitmask, rx, ry, rxl, ryl),
+						mapped.hasMaskedBitsTrueInRegion(bitmask, rx, ry, rxl, ryl));
+				assertEquals(cells.countMaskedBitsTrue(bitmask), mapped.countMaskedBitsTrue(bitmask));
+			}
+		}
+		assertSameCells(cells, mapped);
+		File file = mapped.getFile();
+		assertTrue(file.exists());
+		mapped.close();
+		assertFalse(file.exists());
+	}
+
+	/**
+	 * Tests that the cells of a file that is mapped again are kept,
+	 * and that a file of a different size is started over
+	 */
+	@Test
+	public void testReopen() throws Exception {
+		File file = new File(directory, "maze" + MappedCells.SUFFIX);
+		Cells cells = new Cells(6, 4);
+		cells.initialize();
+		cells.markAreaAsRoom(3, 2, 1, 1, 3, 2, SingleRandom.newStream(5));
+		MappedCells mapped = new MappedCells(file, 6, 4);
+		mapped.initialize();
+		mapped.markAreaAsRoom(3, 2, 1, 1, 3, 2, SingleRandom.newStream(5));
+		mapped.close();
+		assertTrue(file.exists());
+		assertEquals(2 * 6 * 4, file.length());
+
+		assertSameCells(cells, new MappedCells(file, 6, 4));
+		MappedCells resized = new MappedCells(file, 5, 4);
+		assertSameCells(new Cells(5, 4), resized);
+		resized.close();
+		assertEquals(2 * 5 * 4, file.length());
+	}
+
+	/**
+	 * Generates a maze with the given cells
+	 * @param builder generates the maze
+	 * @param cells are used instead of the cells the builder creates, null to keep those
+	 * @return the delivered cells
+	 */
+	private Cells generate(MazeBuilder builder, Cells cells) {
+		OrderStub stub = new OrderStub(3, false, Builder.DFS);
+		builder.setRandom(SingleRandom.newStream(11));
+		builder.buildOrder(stub);
+		if (null != cells)
+			builder.cells = cells;
+		builder.run();
+		assertNotNull(stub.getMazeConfig());
+		return stub.getMazeConfig().getMazecells();
+	}
+
+	/**
+	 * Tests that each builder generates the same maze on MappedCells as on Cells
+	 */
+	@Test
+	public void testBuildersGenerateSameMaze() throws Exception {
+		MazeBuilder[] builders = {new MazeBuilder(), new MazeBuilderPrim(), new MazeBuilderKruskal(),
+				new MazeBuilderEller(), new MazeBuilderCompactDFS()};
+		MazeBuilder[] mappedBuilders = {new MazeBuilder(), new MazeBuilderPrim(), new MazeBuilderKruskal(),
+				new MazeBuilderEller(), new MazeBuilderCompactDFS()};
+		for (int i = 0; i < builders.length; i++) {
+			Cells expected = generate(builders[i], null);
+			Cells actual = generate(mappedBuilders[i],
+					MappedCells.createTemporary(directory, expected.getWidth(), expected.getHeight()));
+			assertTrue(actual instanceof MappedCells);
+			assertSameCells(expected, actual);
+			((MappedCells) actual).close();
+		}
+	}
+
+	/**
+	 * Tests that a factory with a directory for cells delivers mazes on MappedCells
+	 * in that directory, and the same mazes as without
+	 */
+	@Test
+	public void testFactoryWithCellsDirectory() {
+		MazeFactory heapFactory = new MazeFactory(true);
+		OrderStub expected = new OrderStub(2, true, Builder.Prim);
+		assertTrue(heapFactory.order(expected));
+		heapFactory.waitTillDelivered();
+		heapFactory.shutdown();
+
+		mazeFactory = new MazeFactory(true);
+		mazeFactory.setCellsDirectory(directory);
+		OrderStub actual = new OrderStub(2, true, Builder.Prim);
+		assertTrue(mazeFactory.order(actual));
+		mazeFactory.waitTillDelivered();
+		assertNotNull(actual.getMazeConfig());
+		Cells cells = actual.getMazeConfig().getMazecells();
+		assertTrue(cells instanceof MappedCells);
+		assertEquals(directory, ((MappedCells) cells).getFile().getParentFile());
+		assertSameCells(expected.getMazeConfig().getMazecells(), cells);
+	}
+
+	/**
+	 * Tests that the temporary files of a factory with a directory for cells are deleted
+	 * when a delivered maze is frozen or disposed and when an order is cancelled
+	 */
+	@Test
+	public void testFactoryLeavesNoFiles() throws InterruptedException {
+		mazeFactory = new MazeFactory(true);
+		mazeFactory.setCellsDirectory(directory);
+		OrderStub frozen = new OrderStub(1, true, Builder.DFS);
+		assertTrue(mazeFactory.order(frozen));
+		mazeFactory.waitTillDelivered();
+		assertEquals(1, directory.listFiles().length);
+		frozen.getMazeConfig().freeze();
+		assertEquals(0, directory.listFiles().length);
+
+		OrderStub disposed = new OrderStub(1, true, Builder.Kruskal);
+		assertTrue(mazeFactory.order(disposed));
+		mazeFactory.waitTillDelivered();
+		assertEquals(1, directory.listFiles().length);
+		disposed.getMazeConfig().dispose();
+		assertEquals(0, directory.listFiles().length);
+
+		OrderStub cancelled = new OrderStub(2000, 2000, 0, 5000, true, Builder.Prim);
+		assertTrue(mazeFactory.order(cancelled));
+		long deadline = System.currentTimeMillis() + 10000;
+		while (0 == directory.listFiles().length) {
+			assertTrue("cells were not created in time", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+		assertTrue(mazeFactory.cancel(cancelled));
+		while (0 != directory.listFiles().length) {
+			assertTrue("cells were not deleted in time", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+		assertNull(cancelled.getMazeConfig());
+	}
+}
@@ -0,0 +1,124 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * White box tests for the depth-first search maze algorithm with packed backtracking directions.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class MazeBuilderCompactDFSTest extends MazeBuilderCompactDFS {
+	private MazeBuilderCompactDFSTest testMaze;
+
+	/**
+	 * Initializes the testMaze to the given dimensions with all walls up
+	 * @param width
+	 * @param height
+	 */
+	private void setUpTestMaze(int width, int height) {
+		testMaze = new MazeBuilderCompactDFSTest();
+		testMaze.setWidth(width);
+		testMaze.setHeight(height);
+		testMaze.cells = new Cells(width, height);
+		testMaze.cells.initialize();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception{
+		testMaze = null;
+	}
+
+	/**
+	 * Tests that the backtracking directions of neighboring cells sharing a byte do not overwrite each other
+	 */
+	@Test
+	public void testBacktrackDirections() {
+		int width = 7;
+		int height = 5;
+		setUpTestMaze(width, height);
+		testMaze.backtrack = new byte[(width * height + 3) / 4];
+
+		for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
+				testMaze.setBacktrackDirection(x, y, (x + 3*y) % 4);
+			}
+		}
+		for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
+				assertEquals((x + 3*y) % 4, testMaze.getBacktrackDirection(x, y));
+			}
+		}
+		//overwriting a direction leaves the others alone
+		testMaze.setBacktrackDirection(2, 1, 0);
+		assertEquals(0, testMaze.getBacktrackDirection(2, 1));
+		assertEquals((1 + 3) % 4, testMaze.getBacktrackDirection(1, 1));
+		assertEquals((3 + 3) % 4, testMaze.getBacktrackDirection(3, 1));
+	}
+
+	/**
+	 * Tests that a picked direction is always one of the given options and every option gets picked
+	 */
+	@Test
+	public void testPickDirection() {
+		setUpTestMaze(4, 4);
+		int options = (1 << CardinalDirection.East.ordinal()) | (1 << CardinalDirection.West.ordinal());
+		boolean[] picked = new boolean[4];
+		for(int i = 0; i < 100; i++) {
+			int d = testMaze.pickDirection(options);
+			assertTrue((options & (1 << d)) != 0);
+			picked[d] = true;
+		}
+		assertTrue(picked[CardinalDirection.East.ordinal()]);
+		assertTrue(picked[CardinalDirection.West.ordinal()]);
+		assertEquals(CardinalDirection.South.ordinal(), testMaze.pickDirection(1 << CardinalDirection.South.ordinal()));
+	}
+
+	/**
+	 * Tests that unvisited neighbors exclude borders and visited cells
+	 */
+	@Test
+	public void testUnvisitedNeighbors() {
+		setUpTestMaze(4, 4);
+		//top left corner has borders to the north and west
+		int expected = (1 << CardinalDirection.East.ordinal()) | (1 << CardinalDirection.South.ordinal());
+		assertEquals(expected, testMaze.getUnvisitedNeighbors(0, 0));
+		testMaze.cells.setCellAsVisited(1, 0);
+		assertEquals(1 << CardinalDirection.South.ordinal(), testMaze.getUnvisitedNeighbors(0, 0));
+	}
+
+	/**
+	 * Tests that the search generates a perfect maze, even for a maze larger than any skill level
+	 */
+	@Test
+	public void testPerfectMaze() {
+		int width = 400;
+		int height = 300;
+		setUpTestMaze(width, height);
+		testMaze.generatePathways();
+
+		DisjointSets parts = new DisjointSets(width * height);
+		int pathways = 0;
+		for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
+				assertEquals(0, testMaze.cells.getValueOfCell(x, y) & Cells.CW_VISITED);
+				if(x < width-1 && testMaze.cells.hasNoWall(x, y, CardinalDirection.East)) {
+					assertTrue(parts.union(y * width + x, y * width + x+1)); //no loops
+					pathways++;
+				}
+				if(y < height-1 && testMaze.cells.hasNoWall(x, y, CardinalDirection.South)) {
+					assertTrue(parts.union(y * width + x, (y+1) * width + x)); //no loops
+					pathways++;
+				}
+			}
+		}
+		assertEquals(1, parts.getNumberOfSets());
+		assertEquals(width * height - 1, pathways);
+	}
+}
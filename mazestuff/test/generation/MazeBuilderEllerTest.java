@@ -0,0 +1,210 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * White box tests for Eller's maze algorithm, the row by row generator and the maze builder on top of it.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class MazeBuilderEllerTest extends MazeBuilderEller {
+	private MazeBuilderEllerTest testMaze;
+
+	/**
+	 * Initializes the testMaze to the given dimensions with all walls up
+	 * @param width
+	 * @param height
+	 */
+	private void setUpTestMaze(int width, int height) {
+		testMaze = new MazeBuilderEllerTest();
+		testMaze.setWidth(width);
+		testMaze.setHeight(height);
+		testMaze.cells = new Cells(width, height);
+		testMaze.cells.initialize();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception{
+		testMaze = null;
+	}
+
+	/**
+	 * Builds disjoint sets over all cells where cells without a wall in between share a set
+	 * @param cells
+	 * @param width
+	 * @param height
+	 * @return disjoint sets, cell (x,y) is element y*width+x
+	 */
+	private DisjointSets getConnectedParts(Cells cells, int width, int height) {
+		DisjointSets parts = new DisjointSets(width * height);
+		for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
+				if(x < width-1 && cells.hasNoWall(x, y, CardinalDirection.East)) {
+					parts.union(y * width + x, y * width + x+1);
+				}
+				if(y < height-1 && cells.hasNoWall(x, y, CardinalDirection.South)) {
+					parts.union(y * width + x, (y+1) * width + x);
+				}
+			}
+		}
+		return parts;
+	}
+
+	/**
+	 * Counts the internal walls that are down
+	 * @param cells
+	 * @param width
+	 * @param height
+	 * @return number of pathways between adjacent cells
+	 */
+	private int countPathways(Cells cells, int width, int height) {
+		int count = 0;
+		for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
+				if(x < width-1 && cells.hasNoWall(x, y, CardinalDirection.East)) {
+					count++;
+				}
+				if(y < height-1 && cells.hasNoWall(x, y, CardinalDirection.South)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Tests that the generator on its own produces a perfect maze when rows are consumed one by one.
+	 * Only the current row is passed in, connectivity is tracked on the side by the test.
+	 */
+	@Test
+	public void testGeneratorStreamsPerfectMaze() {
+		int width = 12;
+		int height = 300;
+		EllerRowGenerator generator = new EllerRowGenerator(width, SingleRandom.getRandom());
+		DisjointSets parts = new DisjointSets(width * height);
+		int pathways = 0;
+		int[] row = new int[width];
+
+		for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
+				row[x] = Cells.CW_ALL;
+			}
+			generator.carveRow(row, y == height-1);
+
+			assertTrue((row[width-1] & Cells.CW_RIGHT) != 0); //the border to the east stays up
+			for(int x = 0; x < width; x++) {
+				if((row[x] & Cells.CW_RIGHT) == 0) {
+					assertTrue(parts.union(y * width + x, y * width + x+1)); //no loops
+					pathways++;
+				}
+				if((row[x] & Cells.CW_BOT) == 0) {
+					assertTrue(y < height-1); //the border to the south stays up
+					assertTrue(parts.union(y * width + x, (y+1) * width + x)); //no loops
+					pathways++;
+				}
+			}
+		}
+
+		assertTrue(generator.isConnected());
+		assertEquals(1, parts.getNumberOfSets());
+		assertEquals(width * height - 1, pathways);
+	}
+
+	/**
+	 * Tests that a reset generator starts a new maze, all cells of the first row are in sets of their own
+	 */
+	@Test
+	public void testGeneratorReset() {
+		int width = 8;
+		EllerRowGenerator generator = new EllerRowGenerator(width, SingleRandom.getRandom());
+		int[] row = new int[width];
+		for(int x = 0; x < width; x++) {
+			row[x] = Cells.CW_ALL;
+		}
+		generator.carveRow(row, false);
+		generator.reset();
+
+		//a single row maze needs all walls in between to go down
+		for(int x = 0; x < width; x++) {
+			row[x] = Cells.CW_ALL;
+		}
+		generator.carveRow(row, true);
+		for(int x = 0; x < width-1; x++) {
+			assertEquals(0, row[x] & Cells.CW_RIGHT);
+		}
+		assertTrue(generator.isConnected());
+	}
+
+	/**
+	 * Tests that the builder generates a perfect maze and visits every cell
+	 */
+	@Test
+	public void testPerfectMaze() {
+		int width = 15;
+		int height = 20;
+		setUpTestMaze(width, height);
+		testMaze.generatePathways();
+
+		assertEquals(width * height - 1, countPathways(testMaze.cells, width, height));
+		assertEquals(1, getConnectedParts(testMaze.cells, width, height).getNumberOfSets());
+		for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
+				assertEquals(0, testMaze.cells.getValueOfCell(x, y) & Cells.CW_VISITED);
+			}
+		}
+	}
+
+	/**
+	 * Tests that rows are reported in order and that a reported row does not change afterwards
+	 */
+	@Test
+	public void testRowListener() {
+		int width = 10;
+		int height = 12;
+		setUpTestMaze(width, height);
+		final ArrayList<Integer> reportedRows = new ArrayList<Integer>();
+		final int[][] snapshot = new int[height][width];
+		testMaze.setRowListener(new RowListener() {
+			@Override
+			public void rowCompleted(Cells cells, int y) {
+				reportedRows.add(y);
+				for(int x = 0; x < width; x++) {
+					snapshot[y][x] = cells.getValueOfCell(x, y);
+				}
+			}
+		});
+		testMaze.generatePathways();
+
+		assertEquals(height, reportedRows.size());
+		for(int y = 0; y < height; y++) {
+			assertEquals(y, (int) reportedRows.get(y));
+			for(int x = 0; x < width; x++) {
+				assertEquals(snapshot[y][x], testMaze.cells.getValueOfCell(x, y));
+			}
+		}
+	}
+
+	/**
+	 * Tests that all cells are connected if there are rooms whose bounds block the row by row generation
+	 */
+	@Test
+	public void testRoomsStayConnected() {
+		int width = 20;
+		int height = 20;
+		setUpTestMaze(width, height);
+		testMaze.cells.markAreaAsRoom(5, 4, 2, 2, 6, 5);
+		testMaze.cells.markAreaAsRoom(6, 6, 10, 9, 15, 14);
+		testMaze.generatePathways();
+
+		assertEquals(1, getConnectedParts(testMaze.cells, width, height).getNumberOfSets());
+	}
+}
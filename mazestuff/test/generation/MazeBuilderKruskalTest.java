@@ -38,7 +38,6 @@ public class MazeBuilderKruskalTest extends MazeBuilderKruskal {
 		}
 		testMaze.setHeight(height);
 		testMaze.setWidth(width);
-		testMaze.mazeBoard = new int[width][height];
 		
 	}
 	/**
@@ -61,9 +60,15 @@ public class MazeBuilderKruskalTest extends MazeBuilderKruskal {
 		
 		int checkAgainstMaze[][] = {{0,1,2,3}, {4,5,6,7}, {8,9,10,11}, {12,13,14,15}};
 		
-		testMaze.initMazeBoard();
+		testMaze.initCellTrees();
 		
-		assertTrue(Arrays.deepEquals(testMaze.mazeBoard, checkAgainstMaze));
+		assertEquals(chosenWidth * chosenHeight, testMaze.cellTrees.size());
+		assertEquals(chosenWidth * chosenHeight, testMaze.cellTrees.getNumberOfSets());
+		for(int row = 0; row < chosenWidth; row++) {
+			for(int col = 0; col < chosenHeight; col++) {
+				assertEquals(checkAgainstMaze[row][col], testMaze.getCellTreeID(row, col));
+			}
+		}
 	}
 	
 	/**
@@ -78,29 +83,30 @@ public class MazeBuilderKruskalTest extends MazeBuilderKruskal {
 		int chosenHeight = 4;
 		boolean notDeterministic = false;
 		setUpTestMaze(chosenWidth, chosenHeight, notDeterministic);
-		testMaze.initMazeBoard();
-		
-		mazeBoard = testMaze.mazeBoard;
-		
-		int spanValMain = 1; //value given to the main spanning tree in the test merge
-		int spanValMerge = 5; //value given to the spanning tree to be merged with the main one
+		testMaze.initCellTrees();
 		
 		//Changing board to have two primary spanning trees
-		mazeBoard[0][0] = spanValMain;
-		mazeBoard[0][2] = spanValMain;
-		mazeBoard[2][1] = spanValMerge;
-		mazeBoard[3][1] = spanValMerge;
+		testMaze.mergeCellTree(0, 0, 0, 1);
+		testMaze.mergeCellTree(0, 1, 0, 2);
+		testMaze.mergeCellTree(1, 1, 2, 1);
+		testMaze.mergeCellTree(2, 1, 3, 1);
 		
 		int chosenMainRow = 0;
 		int chosenMainCol = 0;
 		int mergeRow = 2;
 		int mergeCol = 1;
 		
+		assertFalse(testMaze.checkIfSameTree(chosenMainRow, chosenMainCol, mergeRow, mergeCol));
+		
 		testMaze.mergeCellTree(chosenMainRow, chosenMainCol, mergeRow, mergeCol);
 		
-		assertTrue(mazeBoard[1][1] == spanValMain);
-		assertTrue(mazeBoard[2][1] == spanValMain);
-		assertTrue(mazeBoard[3][1] == spanValMain);
+		int spanValMain = testMaze.getCellTreeID(chosenMainRow, chosenMainCol); //value of the main spanning tree after the merge
+		assertTrue(testMaze.getCellTreeID(0, 2) == spanValMain);
+		assertTrue(testMaze.getCellTreeID(1, 1) == spanValMain);
+		assertTrue(testMaze.getCellTreeID(2, 1) == spanValMain);
+		assertTrue(testMaze.getCellTreeID(3, 1) == spanValMain);
+		assertFalse(testMaze.getCellTreeID(3, 3) == spanValMain);
+		assertEquals(chosenWidth * chosenHeight - 5, testMaze.cellTrees.getNumberOfSets());
 	}
 	
 	/**
@@ -114,25 +120,29 @@ public class MazeBuilderKruskalTest extends MazeBuilderKruskal {
 		boolean notDeterministic = false;
 		setUpTestMaze(chosenWidth, chosenHeight, notDeterministic);
 		
-		testMaze.initMazeBoard();
-		
-		ArrayList<Wall> walls = new ArrayList<Wall>();
+		testMaze.initCellTrees();
 		
-		Wall duplicate = new Wall(0,0,CardinalDirection.East);
-		//set it to a random wall
-		duplicate.setRandomly(chosenWidth, chosenHeight);
-		walls.add(duplicate);
+		testMaze.cells = new Cells(chosenWidth, chosenHeight);
+		testMaze.cells.initialize(); //all walls up, borders on the outside
 		
-		testMaze.getListOfWallsStatic(walls); //set the list to the calculated list of walls
+		int[] walls = testMaze.getListOfWalls(); //the calculated list of walls
 		
-		int expectedNumWalls = 40;
-		int numOfWalls = walls.size(); //the number of walls found by the getListOfWalls
+		int expectedNumWalls = 24; //each internal wall exactly once, border walls are left out
+		int numOfWalls = walls.length; //the number of walls found by the getListOfWalls
 		assertEquals(expectedNumWalls, numOfWalls);
 		
+		for (int i = 0; i < walls.length; i++) {
+			for (int j = i+1; j < walls.length; j++) {
+				assertFalse(walls[i] == walls[j]); //no duplicates
+			}
+			Wall wall = new Wall(PackedWall.getX(walls[i]), PackedWall.getY(walls[i]), PackedWall.getDirection(walls[i]));
+			assertTrue(testMaze.cells.wallExists(wall));
+			assertTrue(wall.getNeighborX() < chosenWidth && wall.getNeighborY() < chosenHeight); //neighbor is inside the maze
+		}
 	}
 	
 	/**
-	 * Tests if the wall removal method is working properly (not retuning null)
+	 * Tests if shuffling the walls keeps every wall exactly once
 	 * @precondition testKruskalSetup is run
 	 * @precondition testWalls is run
 	 */
@@ -143,11 +153,15 @@ public class MazeBuilderKruskalTest extends MazeBuilderKruskal {
 		boolean notDeterministic = false;
 		setUpTestMaze(chosenWidth, chosenHeight, notDeterministic);
 		
-		testMaze.initMazeBoard();
-		final ArrayList<Wall> walls = new ArrayList<Wall>();
-		testMaze.getListOfWallsStatic(walls);
+		testMaze.initCellTrees();
+		testMaze.cells = new Cells(chosenWidth, chosenHeight);
+		testMaze.cells.initialize();
+		final int[] walls = testMaze.getListOfWalls();
+		final int[] shuffled = walls.clone();
+		testMaze.shuffleWalls(shuffled);
 		
-		assertNotNull(testMaze.extractWallFromCandidateSetRandomly(walls)); //check if the function returns a wall
+		Arrays.sort(shuffled);
+		assertTrue(Arrays.equals(walls, shuffled)); //walls are listed in increasing order, shuffle is a permutation
 	}
 	
 	/**
@@ -162,9 +176,8 @@ public class MazeBuilderKruskalTest extends MazeBuilderKruskal {
 		boolean notDeterministic = false;
 		setUpTestMaze(chosenWidth, chosenHeight, notDeterministic);
 		
-		testMaze.initMazeBoard();
-		int checkMaze[][] = testMaze.mazeBoard;
-		Cells doublecheck = new Cells(checkMaze);
+		testMaze.initCellTrees();
+		Cells doublecheck = new Cells(checkAgainstMaze);
 		
 		for(int row = 0; row < chosenWidth; row++) {
 			for(int col = 0; col < chosenHeight; col++) {
@@ -180,53 +193,34 @@ public class MazeBuilderKruskalTest extends MazeBuilderKruskal {
 	}
 	
 	/**
-	 * Tests if id setting works (id is the value)
+	 * Tests if merging whole rows results in one id per row (id is the value)
 	 * @precondition testKruskalSetup is run
 	 * 
 	 */
 	@Test
 	public void testRightIdSet() {
-		int checkAgainstMaze[][] = {{0,0,0,0}, {5,5,5,5}, {10,10,10,10}, {15,15,15,15}};
-		Cells checkAgainst = new Cells(checkAgainstMaze);
 		int chosenWidth = 4;
 		int chosenHeight = 4;
 		boolean notDeterministic = false;
 		setUpTestMaze(chosenWidth, chosenHeight, notDeterministic);
 		
-		testMaze.initMazeBoard();
+		testMaze.initCellTrees();
 		
 		for(int row = 0; row < chosenWidth; row++) {
+			for(int col = 1; col < chosenHeight; col++) {
+				testMaze.mergeCellTree(row, 0, row, col);
+			}
+		}
+		for(int row = 0; row < chosenWidth; row++) {
+			int rowId = testMaze.getCellTreeID(row, 0);
 			for(int col = 0; col < chosenHeight; col++) {
-				switch(row) {
-				case 0:{
-					testMaze.setCellTreeID(row, col, 0);
-					break;
-				}
-				case 1:{
-					testMaze.setCellTreeID(row, col, 5);
-					break;
-				}
-				case 2:{
-					testMaze.setCellTreeID(row, col, 10);
-					break;
+				assertEquals(rowId, testMaze.getCellTreeID(row, col));
+				if(row > 0) {
+					assertFalse(testMaze.getCellTreeID(row - 1, col) == rowId); //rows were never merged with each other
 				}
-				case 3:{
-					testMaze.setCellTreeID(row, col, 15);
-					break;
-				}
-				default:{
-					assertTrue(false); //should not ever get a row that is beyond the dimensions set
-				}
-					
-			}			
-					
 			}
 		}
-		int checkMaze[][] = testMaze.mazeBoard;
-		Cells doublecheck = new Cells(checkMaze);
-		assertTrue(doublecheck.equals(checkAgainst));
-		
-		assertTrue(Arrays.deepEquals(checkMaze, checkAgainstMaze));
+		assertEquals(chosenWidth, testMaze.cellTrees.getNumberOfSets());
 	}
 	
 	/**
@@ -244,25 +238,25 @@ public class MazeBuilderKruskalTest extends MazeBuilderKruskal {
 		boolean notDeterministic = false;
 		setUpTestMaze(chosenWidth, chosenHeight, notDeterministic);
 		
-		testMaze.initMazeBoard();
+		testMaze.initCellTrees();
 		
-		int idMainTree = 0;
-		int mergeTreeID = 15;
 		int mainTreePos[] = {0,0};
 		int mergeTreePos[] = {3,3};
 		int notTreePos[] = {0,3};
 		
 		//Set up main span tree
-		testMaze.setCellTreeID(1, 0, idMainTree);
-		testMaze.setCellTreeID(2, 0, idMainTree);
-		testMaze.setCellTreeID(3, 0, idMainTree);
-		testMaze.setCellTreeID(1, 1, idMainTree);
-		testMaze.setCellTreeID(3, 1, idMainTree);
+		testMaze.mergeCellTree(0, 0, 1, 0);
+		testMaze.mergeCellTree(1, 0, 2, 0);
+		testMaze.mergeCellTree(2, 0, 3, 0);
+		testMaze.mergeCellTree(1, 0, 1, 1);
+		testMaze.mergeCellTree(3, 0, 3, 1);
 		
 		//Set up the second span tree
-		testMaze.setCellTreeID(1, 2, mergeTreeID);
-		testMaze.setCellTreeID(2, 2, mergeTreeID);
-		testMaze.setCellTreeID(2, 3, mergeTreeID);
+		testMaze.mergeCellTree(3, 3, 2, 3);
+		testMaze.mergeCellTree(2, 3, 2, 2);
+		testMaze.mergeCellTree(2, 2, 1, 2);
+		
+		assertFalse(testMaze.checkIfSameTree(mainTreePos[0], mainTreePos[1], mergeTreePos[0], mergeTreePos[1]));
 		
 		testMaze.mergeCellTree(mainTreePos[0], mainTreePos[1], mergeTreePos[0], mergeTreePos[1]);
 		
@@ -281,7 +275,7 @@ public class MazeBuilderKruskalTest extends MazeBuilderKruskal {
 		boolean notDeterministic = false;
 		setUpTestMaze(chosenWidth, chosenHeight, true);
 		
-		testMaze.initMazeBoard();
+		testMaze.initCellTrees();
 		
 		int expectedSeed = 3;
 		int seed = testMaze.getSingleRandom().getSeed();
@@ -299,7 +293,7 @@ public class MazeBuilderKruskalTest extends MazeBuilderKruskal {
 		boolean notDeterministic = false;
 		setUpTestMaze(chosenWidth, chosenHeight, true);
 		
-		testMaze.initMazeBoard();
+		testMaze.initCellTrees();
 		
 		int randNum = testMaze.getSingleRandom().nextInt();
 		assertNotNull(randNum);
@@ -316,8 +310,8 @@ public class MazeBuilderKruskalTest extends MazeBuilderKruskal {
 		boolean notDeterministic = false;
 		setUpTestMaze(chosenWidth, chosenHeight, notDeterministic);
 		
-		testMaze.initMazeBoard();
-		int checkMaze[][] = testMaze.mazeBoard;
+		testMaze.initCellTrees();
+		int checkMaze[][] = {{0,1,2,3}, {4,5,6,7}, {8,9,10,11}, {12,13,14,15}};
 		
 		Cells compareMaze = new Cells(checkMaze);
 		Cells mainMaze = new Cells(checkAgainstMaze);
@@ -0,0 +1,233 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * White box tests for the parallel maze builder that carves tiles concurrently and joins them.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class MazeBuilderParallelTest extends MazeBuilderParallel {
+	private MazeBuilderParallelTest testMaze;
+
+	public MazeBuilderParallelTest() {
+		super();
+	}
+
+	/**
+	 * Constructor for a deterministic builder that carves tiles on the given pool
+	 * @param pool
+	 */
+	private MazeBuilderParallelTest(ForkJoinPool pool) {
+		super(true, pool);
+	}
+
+	/**
+	 * Initializes the testMaze to the given dimensions with all walls up
+	 * @param width
+	 * @param height
+	 * @param builder algorithm to carve the tiles with
+	 */
+	private void setUpTestMaze(int width, int height, Builder builder) {
+		testMaze = new MazeBuilderParallelTest();
+		testMaze.setWidth(width);
+		testMaze.setHeight(height);
+		testMaze.setTileDimension(16);
+		testMaze.order = new OrderStub(0, true, builder, true);
+		testMaze.cells = new Cells(width, height);
+		testMaze.cells.initialize();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception{
+		testMaze = null;
+	}
+
+	/**
+	 * Tests that tiles cover each axis without gaps or overlaps and differ in size by at most one cell
+	 */
+	@Test
+	public void testTileStart() {
+		int length = 100;
+		for(int tiles = 1; tiles <= 9; tiles++) {
+			assertEquals(0, getTileStart(0, tiles, length));
+			assertEquals(length, getTileStart(tiles, tiles, length));
+			for(int i = 0; i < tiles; i++) {
+				int size = getTileStart(i+1, tiles, length) - getTileStart(i, tiles, length);
+				assertTrue(length / tiles <= size && size <= length / tiles + 1);
+			}
+		}
+	}
+
+	/**
+	 * Tests that joined tiles form a perfect maze for each builder algorithm
+	 */
+	@Test
+	public void testPerfectMaze() {
+		int width = 100;
+		int height = 70;
+		for(Builder builder : Builder.values()) {
+			setUpTestMaze(width, height, builder);
+			testMaze.generatePathways();
+
+			assertTrue(testMaze.getNumberOfTiles() > 1);
+			DisjointSets parts = new DisjointSets(width * height);
+			int pathways = 0;
+			for(int y = 0; y < height; y++) {
+				for(int x = 0; x < width; x++) {
+					assertEquals(0, testMaze.cells.getValueOfCell(x, y) & Cells.CW_VISITED);
+					if(x < width-1 && testMaze.cells.hasNoWall(x, y, CardinalDirection.East)) {
+						assertTrue(parts.union(y * width + x, y * width + x+1)); //no loops
+						pathways++;
+					}
+					if(y < height-1 && testMaze.cells.hasNoWall(x, y, CardinalDirection.South)) {
+						assertTrue(parts.union(y * width + x, (y+1) * width + x)); //no loops
+						pathways++;
+					}
+				}
+			}
+			assertEquals(1, parts.getNumberOfSets());
+			assertEquals(width * height - 1, pathways);
+		}
+	}
+
+	/**
+	 * Tests that the outer border and the bounds of a room that spans tiles stay up
+	 * and all cells are connected
+	 */
+	@Test
+	public void testRoomsAcrossTiles() {
+		int width = 48;
+		int height = 48;
+		for(Builder builder : Builder.values()) {
+			setUpTestMaze(width, height, builder);
+			//room covers the tile boundaries in the middle for any number of threads
+			testMaze.cells.markAreaAsRoom(20, 20, 14, 14, 33, 33);
+			testMaze.generatePathways();
+
+			for(int i = 0; i < width; i++) {
+				assertTrue(testMaze.cells.hasWall(i, 0, CardinalDirection.North));
+				assertTrue(testMaze.cells.hasWall(i, height-1, CardinalDirection.South));
+				assertTrue(testMaze.cells.hasWall(0, i, CardinalDirection.West));
+				assertTrue(testMaze.cells.hasWall(width-1, i, CardinalDirection.East));
+			}
+			for(int x = 14; x <= 33; x++) {
+				for(int y = 14; y <= 33; y++) {
+					assertTrue(testMaze.cells.isInRoom(x, y));
+				}
+			}
+			assertEquals(1, testMaze.getConnectedComponents().getNumberOfSets());
+		}
+	}
+
+	/**
+	 * Generates a maze in deterministic mode with a journal
+	 * @param width
+	 * @param height
+	 * @param builder algorithm to carve the tiles with
+	 * @param rooms is true if the maze has rooms
+	 * @param pool carves the tiles
+	 * @return the cells of the maze
+	 */
+	private Cells generateDeterministic(int width, int height, Builder builder, boolean rooms, ForkJoinPool pool) {
+		MazeBuilderParallelTest maze = new MazeBuilderParallelTest(pool);
+		maze.setWidth(width);
+		maze.setHeight(height);
+		maze.setTileDimension(8);
+		maze.order = new OrderStub(0, !rooms, builder, true);
+		maze.random = SingleRandom.newStream(42);
+		maze.cells = new Cells(width, height);
+		maze.cells.setJournal(new CellsJournal(width, height));
+		maze.cells.initialize();
+		if (rooms) {
+			maze.cells.markAreaAsRoom(6, 5, 10, 12, 15, 16, maze.random);
+			maze.cells.markAreaAsRoom(4, 7, 40, 3, 43, 9, maze.random);
+		}
+		maze.generatePathways();
+		return maze.cells;
+	}
+
+	/**
+	 * Tests that a maze in deterministic mode and its journal are the same for any number of threads
+	 * and the same as carving the tiles on a single thread, for each builder algorithm
+	 */
+	@Test
+	public void testDeterministicForAnyNumberOfThreads() {
+		int width = 90;
+		int height = 60;
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool[] pools = {new ForkJoinPool(2), new ForkJoinPool(3), new ForkJoinPool(8)};
+		try {
+			for(Builder builder : Builder.values()) {
+				for(boolean rooms : new boolean[] {false, true}) {
+					Cells expected = generateDeterministic(width, height, builder, rooms, single);
+					for(ForkJoinPool pool : pools) {
+						Cells cells = generateDeterministic(width, height, builder, rooms, pool);
+						assertEquals(expected, cells);
+						assertEquals(-1, expected.getJournal().firstDifference(cells.getJournal()));
+					}
+				}
+			}
+		} finally {
+			single.shutdown();
+			for(ForkJoinPool pool : pools) {
+				pool.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Tests that tile seeds differ for nearby tiles and for different maze seeds
+	 */
+	@Test
+	public void testTileSeed() {
+		assertEquals(getTileSeed(7, 32, 64), getTileSeed(7, 32, 64));
+		assertNotEquals(getTileSeed(7, 32, 64), getTileSeed(7, 64, 32));
+		assertNotEquals(getTileSeed(7, 32, 64), getTileSeed(7, 32, 65));
+		assertNotEquals(getTileSeed(7, 32, 64), getTileSeed(8, 32, 64));
+	}
+
+	/**
+	 * Tests that the time spent in tiles and the parallelism of the tile phase are reported
+	 */
+	@Test
+	public void testTileParallelism() {
+		setUpTestMaze(64, 64, Builder.Prim);
+		testMaze.generatePathways();
+
+		assertTrue(testMaze.getElapsedNanos() > 0);
+		assertTrue(testMaze.getTileNanos() > 0);
+		assertTrue(testMaze.getTileParallelism() > 0);
+	}
+
+	/**
+	 * Tests that the factory delivers a maze for a parallel order
+	 */
+	@Test
+	public void testParallelOrder() {
+		MazeFactory mazeFactory = new MazeFactory(true);
+		OrderStub stub = new OrderStub(2, true, Builder.Kruskal, true);
+		assertTrue(mazeFactory.order(stub));
+		mazeFactory.waitTillDelivered();
+		MazeConfiguration config = stub.getMazeConfig();
+
+		assertNotNull(config);
+		for(int x = 0; x < config.getWidth(); x++) {
+			for(int y = 0; y < config.getHeight(); y++) {
+				int distance = config.getDistanceToExit(x, y);
+				assertTrue(0 < distance && distance < Distance.INFINITY);
+			}
+		}
+	}
+}
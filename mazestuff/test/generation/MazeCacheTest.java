@@ -0,0 +1,247 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests for the cache of finished mazes on disk.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class MazeCacheTest {
+	private File directory;
+	private MazeFactory mazeFactory;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("mazecache").toFile();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		if (null != mazeFactory) {
+			mazeFactory.shutdown();
+		}
+		mazeFactory = null;
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Produces a maze with a deterministic factory
+	 * @param order
+	 * @return the delivered maze
+	 */
+	private MazeConfiguration produce(MazeFactory factory, OrderStub order) {
+		assertTrue(factory.order(order));
+		factory.waitTillDelivered();
+		assertNotNull(order.getMazeConfig());
+		return order.getMazeConfig();
+	}
+
+	/**
+	 * Checks that two BSP trees have the same structure and segments
+	 * @param expected
+	 * @param actual
+	 */
+	private void assertSameTree(BSPNode expected, BSPNode actual) {
+		assertEquals(expected.isIsleaf(), actual.isIsleaf());
+		assertEquals(expected.getLowerBoundX(), actual.getLowerBoundX());
+		assertEquals(expected.getLowerBoundY(), actual.getLowerBoundY());
+		assertEquals(expected.getUpperBoundX(), actual.getUpperBoundX());
+		assertEquals(expected.getUpperBoundY(), actual.getUpperBoundY());
+		if (expected.isIsleaf()) {
+			ArrayList<Seg> segs = ((BSPLeaf) expected).getSlist();
+			ArrayList<Seg> loaded = ((BSPLeaf) actual).getSlist();
+			assertEquals(segs.size(), loaded.size());
+			for (int i = 0; i < segs.size(); i++) {
+				assertEquals(segs.get(i), loaded.get(i));
+				assertEquals(segs.get(i).getColor(), loaded.get(i).getColor());
+			}
+		}
+		else {
+			BSPBranch branch = (BSPBranch) expected;
+			BSPBranch other = (BSPBranch) actual;
+			assertEquals(branch.getX(), other.getX());
+			assertEquals(branch.getY(), other.getY());
+			assertEquals(branch.getDx(), other.getDx());
+			assertEquals(branch.getDy(), other.getDy());
+			assertSameTree(branch.getLeftBranch(), other.getLeftBranch());
+			assertSameTree(branch.getRightBranch(), other.getRightBranch());
+		}
+	}
+
+	/**
+	 * Tests that a stored maze is loaded with the same cells, distances, starting position and BSP tree
+	 */
+	@Test
+	public void testStoreAndLoad() {
+		mazeFactory = new MazeFactory(true);
+		MazeConfiguration config = produce(mazeFactory, new OrderStub(2, false, Builder.Prim));
+		MazeCache cache = new MazeCache(directory);
+		String key = MazeCache.getKey(3, new OrderStub(2, false, Builder.Prim));
+		assertNull(cache.load(key));
+		cache.store(key, config);
+		assertTrue(cache.getSize() > 0);
+
+		MazeConfiguration loaded = cache.load(key);
+		assertNotNull(loaded);
+		assertEquals(config.getWidth(), loaded.getWidth());
+		assertEquals(config.getHeight(), loaded.getHeight());
+		assertArrayEquals(config.getStartingPosition(), loaded.getStartingPosition());
+		assertEquals(config.getMazecells(), loaded.getMazecells());
+		for (int x = 0; x < config.getWidth(); x++) {
+			assertArrayEquals(config.getMazedists().getDists()[x], loaded.getMazedists().getDists()[x]);
+		}
+		assertSameTree(config.getRootnode(), loaded.getRootnode());
+	}
+
+	/**
+	 * Tests that keys differ for each input a maze depends on
+	 */
+	@Test
+	public void testKeys() {
+		String key = MazeCache.getKey(3, new OrderStub(1, true, Builder.DFS));
+		assertEquals(key, MazeCache.getKey(3, new OrderStub(1, true, Builder.DFS)));
+		assertNotEquals(key, MazeCache.getKey(4, new OrderStub(1, true, Builder.DFS)));
+		assertNotEquals(key, MazeCache.getKey(3, new OrderStub(2, true, Builder.DFS)));
+		assertNotEquals(key, MazeCache.getKey(3, new OrderStub(1, true, Builder.Prim)));
+		assertNotEquals(key, MazeCache.getKey(3, new OrderStub(1, false, Builder.DFS)));
+		assertNotEquals(key, MazeCache.getKey(3, new OrderStub(1, true, Builder.DFS, true)));
+	}
+
+	/**
+	 * Tests that orders that differ only in the expected number of partitioning iterations
+	 * do not share a cached maze, as their BSP trees differ
+	 */
+	@Test
+	public void testKeysDependOnPartiters() {
+		OrderStub few = new OrderStub(20, 15, 2, 100, true, Builder.DFS);
+		OrderStub many = new OrderStub(20, 15, 2, 500, true, Builder.DFS);
+		assertEquals(MazeCache.getKey(3, few), MazeCache.getKey(3, new OrderStub(20, 15, 2, 100, true, Builder.DFS)));
+		assertNotEquals(MazeCache.getKey(3, few), MazeCache.getKey(3, many));
+
+		MazeCache cache = new MazeCache(directory);
+		mazeFactory = new MazeFactory(true);
+		mazeFactory.setMazeCache(cache);
+		produce(mazeFactory, few);
+		assertEquals(1, directory.listFiles().length);
+		produce(mazeFactory, many);
+		assertEquals(2, directory.listFiles().length); // generated, not loaded from the file of the first order
+	}
+
+	/**
+	 * Tests that a deterministic factory stores a generated maze and delivers a repeated order from the cache
+	 */
+	@Test
+	public void testFactoryUsesCache() {
+		MazeCache cache = new MazeCache(directory);
+		mazeFactory = new MazeFactory(true);
+		mazeFactory.setMazeCache(cache);
+		MazeConfiguration generated = produce(mazeFactory, new OrderStub(1, true, Builder.Kruskal));
+		assertEquals(1, directory.listFiles().length);
+
+		MazeConfiguration repeated = produce(mazeFactory, new OrderStub(1, true, Builder.Kruskal));
+		assertNotSame(generated, repeated);
+		assertEquals(generated.getMazecells(), repeated.getMazecells());
+
+		//replace the cached maze, a repeated order must be delivered from the cache and not generated
+		String key = MazeCache.getKey(MazeFactory.DETERMINISTIC_SEED, new OrderStub(1, true, Builder.Kruskal));
+		MazeConfiguration other = produce(mazeFactory, new OrderStub(0, true, Builder.DFS));
+		cache.store(key, other);
+		assertEquals(other.getWidth(), produce(mazeFactory, new OrderStub(1, true, Builder.Kruskal)).getWidth());
+	}
+
+	/**
+	 * Tests that a randomized factory does not use the cache
+	 */
+	@Test
+	public void testRandomizedFactoryIgnoresCache() {
+		mazeFactory = new MazeFactory(false);
+		mazeFactory.setMazeCache(new MazeCache(directory));
+		produce(mazeFactory, new OrderStub(0, true, Builder.DFS));
+		assertEquals(0, directory.listFiles().length);
+	}
+
+	/**
+	 * Tests that the least recently used mazes are deleted if the cache exceeds its size
+	 */
+	@Test
+	public void testEviction() {
+		mazeFactory = new MazeFactory(true);
+		MazeConfiguration config = produce(mazeFactory, new OrderStub(0, true, Builder.DFS));
+		MazeCache unbounded = new MazeCache(directory);
+		unbounded.store("a", config);
+		long size = unbounded.getSize();
+
+		MazeCache cache = new MazeCache(directory, 2 * size);
+		cache.store("b", config);
+		new File(directory, "a" + MazeCache.SUFFIX).setLastModified(System.currentTimeMillis() - 20000);
+		new File(directory, "b" + MazeCache.SUFFIX).setLastModified(System.currentTimeMillis() - 10000);
+		assertNotNull(cache.load("a")); //a is now the most recently used
+		cache.store("c", config);
+
+		assertEquals(2 * size, cache.getSize());
+		assertNotNull(cache.load("a"));
+		assertNull(cache.load("b"));
+		assertNotNull(cache.load("c"));
+	}
+
+	/**
+	 * Tests that a damaged file is treated as a miss and removed
+	 * @throws IOException
+	 */
+	@Test
+	public void testDamagedFile() throws IOException {
+		File file = new File(directory, "broken" + MazeCache.SUFFIX);
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(new byte[] {1, 2, 3});
+		}
+		MazeCache cache = new MazeCache(directory);
+		assertNull(cache.load("broken"));
+		assertFalse(file.exists());
+	}
+
+	/**
+	 * Tests that a file whose header gives huge dimensions is dropped without allocating the maze
+	 */
+	@Test
+	public void testHugeDimensions() throws IOException {
+		int[][] headers = {
+				{MazeCache.MAGIC, Integer.MAX_VALUE, Integer.MAX_VALUE, 0, 0}, // not a valid size
+				{MazeCache.MAGIC, 1000, 1000, 0, 0}, // valid size, but longer than the file
+		};
+		for (int[] header : headers) {
+			File file = new File(directory, "huge" + MazeCache.SUFFIX);
+			try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+				for (int value : header) {
+					out.writeInt(value);
+				}
+			}
+			MazeCache cache = new MazeCache(directory);
+			assertNull(cache.load("huge"));
+			assertFalse(file.exists());
+		}
+	}
+}
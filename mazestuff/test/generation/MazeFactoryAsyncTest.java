@@ -0,0 +1,181 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests for the asynchronous orders of the MazeFactory.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class MazeFactoryAsyncTest {
+	private MazeFactory mazeFactory;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		if (null != mazeFactory) {
+			mazeFactory.shutdown();
+		}
+		mazeFactory = null;
+	}
+
+	/**
+	 * Subscriber that records progress values and how the stream ended
+	 */
+	private static class ProgressRecorder implements Flow.Subscriber<Integer> {
+		final List<Integer> values = new ArrayList<Integer>();
+		final CountDownLatch ended = new CountDownLatch(1);
+		boolean completed;
+		Throwable error;
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			subscription.request(Long.MAX_VALUE);
+		}
+		@Override
+		public synchronized void onNext(Integer item) {
+			values.add(item);
+		}
+		@Override
+		public synchronized void onError(Throwable throwable) {
+			error = throwable;
+			ended.countDown();
+		}
+		@Override
+		public synchronized void onComplete() {
+			completed = true;
+			ended.countDown();
+		}
+	}
+
+	/**
+	 * Tests that the future completes with the maze that is delivered to the order
+	 * @throws Exception
+	 */
+	@Test
+	public void testFutureCompletes() throws Exception {
+		mazeFactory = new MazeFactory(true);
+		OrderStub stub = new OrderStub(0, true, Builder.DFS);
+		CompletableFuture<MazeConfiguration> future = mazeFactory.orderAsync(stub);
+		MazeConfiguration config = future.get(60, TimeUnit.SECONDS);
+		assertNotNull(config);
+		assertSame(config, stub.getMazeConfig());
+		assertEquals(0, mazeFactory.getNumberOfOutstandingOrders());
+	}
+
+	/**
+	 * Tests that the subscriber receives increasing progress within [0,100] and is completed on delivery.
+	 * The maze expects a single partitioning iteration, so the BSPBuilder reports values beyond 100
+	 * that must not reach the subscriber.
+	 * @throws Exception
+	 */
+	@Test
+	public void testProgressStream() throws Exception {
+		mazeFactory = new MazeFactory(true);
+		ProgressRecorder recorder = new ProgressRecorder();
+		CompletableFuture<MazeConfiguration> future = mazeFactory.orderAsync(new OrderStub(20, 15, 2, 1, false, Builder.Prim), recorder);
+		assertNotNull(future.get(60, TimeUnit.SECONDS));
+		assertTrue(recorder.ended.await(10, TimeUnit.SECONDS));
+
+		synchronized (recorder) {
+			assertTrue(recorder.completed);
+			assertNull(recorder.error);
+			assertFalse(recorder.values.isEmpty());
+			for(int i = 0; i < recorder.values.size(); i++) {
+				assertTrue(0 <= recorder.values.get(i) && recorder.values.get(i) <= 100);
+				if (0 < i)
+					assertTrue(recorder.values.get(i-1) < recorder.values.get(i));
+			}
+			assertEquals(100, (int) recorder.values.get(recorder.values.size()-1));
+		}
+	}
+
+	/**
+	 * Tests that several outstanding mazes can be composed and waited on together
+	 * @throws Exception
+	 */
+	@Test
+	public void testCompose() throws Exception {
+		mazeFactory = new MazeFactory(false, 2, 4);
+		List<CompletableFuture<Integer>> widths = new ArrayList<CompletableFuture<Integer>>();
+		for(int i = 0; i < 4; i++) {
+			widths.add(mazeFactory.orderAsync(new OrderStub(i % 2, true, Builder.values()[i % Builder.values().length]))
+					.thenApply(config -> config.getWidth()));
+		}
+		CompletableFuture.allOf(widths.toArray(new CompletableFuture<?>[0])).get(120, TimeUnit.SECONDS);
+		for(CompletableFuture<Integer> width : widths) {
+			assertTrue(width.get() > 0);
+		}
+	}
+
+	/**
+	 * Tests that cancelling the future cancels the order
+	 * @throws Exception
+	 */
+	@Test
+	public void testCancelFuture() throws Exception {
+		mazeFactory = new MazeFactory(false, 1, 1);
+		OrderStub first = new OrderStub(200, 200, 0, 2000, true, Builder.DFS);
+		assertTrue(mazeFactory.order(first)); //keeps the worker busy
+		OrderStub second = new OrderStub(0, true, Builder.Kruskal);
+		ProgressRecorder recorder = new ProgressRecorder();
+		CompletableFuture<MazeConfiguration> future = mazeFactory.orderAsync(second, recorder);
+
+		assertTrue(future.cancel(true));
+		assertTrue(future.isCancelled());
+		try {
+			future.get();
+			fail("cancelled future must not deliver");
+		} catch (CancellationException e) {
+			// expected
+		}
+		mazeFactory.waitTillDelivered();
+		assertNull(second.getMazeConfig());
+		assertNotNull(first.getMazeConfig());
+		assertTrue(recorder.ended.await(10, TimeUnit.SECONDS));
+		synchronized (recorder) {
+			assertFalse(recorder.completed);
+			assertNotNull(recorder.error);
+		}
+	}
+
+	/**
+	 * Tests that a refused order gives a failed future instead of blocking the caller
+	 * @throws Exception
+	 */
+	@Test
+	public void testRefused() throws Exception {
+		mazeFactory = new MazeFactory(false, 1, 0);
+		CompletableFuture<MazeConfiguration> first = mazeFactory.orderAsync(new OrderStub(1, true, Builder.DFS));
+		ProgressRecorder recorder = new ProgressRecorder();
+		CompletableFuture<MazeConfiguration> second = mazeFactory.orderAsync(new OrderStub(0, true, Builder.DFS), recorder);
+
+		assertTrue(second.isCompletedExceptionally());
+		try {
+			second.get();
+			fail("refused order must not deliver");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+		assertTrue(recorder.ended.await(10, TimeUnit.SECONDS));
+		assertNotNull(first.get(60, TimeUnit.SECONDS));
+	}
+}
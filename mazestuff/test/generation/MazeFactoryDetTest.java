@@ -63,11 +63,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							stub  = new OrderStub(i, perfect, currBuild);
 							mazeFactory.order(stub);
 							mazeFactory.waitTillDelivered();
@@ -96,11 +91,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS,  Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							stub  = new OrderStub(i, perfect, currBuild);
 							mazeFactory.order(stub);
 							mazeFactory.waitTillDelivered();
@@ -145,11 +135,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							stub  = new OrderStub(i, perfect, currBuild);
 							mazeFactory.order(stub);
 							mazeFactory.waitTillDelivered();
@@ -196,11 +181,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							//rooms can exist in a non-Perfect maze
 							if(!perfect) {
 								continue;
@@ -240,11 +220,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							stub  = new OrderStub(i, perfect, currBuild);
 							mazeFactory.order(stub);
 							mazeFactory.waitTillDelivered();
@@ -307,11 +282,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							stub  = new OrderStub(i, perfect, currBuild);
 							mazeFactory.order(stub);
 							mazeFactory.waitTillDelivered();
@@ -362,11 +332,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							stub  = new OrderStub(i, perfect, currBuild);
 							mazeFactory.order(stub);
 							mazeFactory.waitTillDelivered();
@@ -418,11 +383,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							stub  = new OrderStub(i, perfect, currBuild);
 							mazeFactory.order(stub);
 							mazeFactory.waitTillDelivered();
@@ -470,11 +430,9 @@ package generation;
 			for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 				for(boolean perfect : isPerfect) { //perfect or not
 						
-						//do not allow Eller until implemented
-						if(currBuild == Builder.Eller) {
-							continue;
-						}
-						
+						// small mazes are done within a millisecond, an order ahead
+						// keeps the worker busy such that the cancel comes first
+						mazeFactory.order(new OrderStub(200, 200, 0, 2000, perfect, currBuild));
 						stub  = new OrderStub(i, perfect, currBuild);
 						mazeFactory.order(stub);
 						mazeFactory.cancel();
@@ -502,11 +460,6 @@ package generation;
 			for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 				for(boolean perfect : isPerfect) { //perfect or not
 						
-						//do not allow Eller until implemented
-						if(currBuild == Builder.Eller) {
-							continue;
-						}
-						
 						stub  = new OrderStub(i, perfect, currBuild);
 						mazeFactory.order(stub);
 						MazeBuilder mazeBuild = mazeFactory.getMazeBuilder();
@@ -534,11 +487,6 @@ package generation;
 			for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 				for(boolean perfect : isPerfect) { //perfect or not
 						
-						//do not allow Eller until implemented
-						if(currBuild == Builder.Eller) {
-							continue;
-						}
-						
 						stub  = new OrderStub(i, perfect, currBuild);
 						mazeFactory.order(stub);
 						MazeBuilder mazeBuild = mazeFactory.getMazeBuilder();
@@ -595,11 +543,6 @@ package generation;
 			for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 				for(boolean perfect : isPerfect) { //perfect or not
 						
-						//do not allow Eller until implemented
-						if(currBuild == Builder.Eller) {
-							continue;
-						}
-						
 						stub  = new OrderStub(i, perfect, currBuild);
 						mazeFactory.order(stub);
 						MazeBuilder mazeBuild = mazeFactory.getMazeBuilder();
@@ -616,8 +559,8 @@ package generation;
 						assertFalse(testSeg1.equals(null));
 						assertFalse(testSeg1.equals(leftHandSide));
 						
-						int dx = testSeg1.getEndPositionX();
-						int dy = testSeg2.getEndPositionY();
+						int dx = testSeg1.getExtensionX(); //direction and length of the segment
+						int dy = testSeg1.getExtensionY();
 						
 						CardinalDirection direction = testSeg1.getCD(dx, dy);
 						
@@ -0,0 +1,131 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Test;
+
+import generation.Order.Builder;
+import gui.Constants;
+
+/**
+ * Tests for orders that give the dimensions of the maze explicitly
+ * instead of taking them from the skill level.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class MazeFactoryDimensionsTest {
+	private MazeFactory mazeFactory;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		if (null != mazeFactory) {
+			mazeFactory.shutdown();
+		}
+		mazeFactory = null;
+	}
+
+	/**
+	 * Orders a maze and waits for it
+	 * @param stub
+	 * @return the delivered maze
+	 */
+	private MazeConfiguration produce(OrderStub stub) {
+		mazeFactory = new MazeFactory(true);
+		assertTrue(mazeFactory.order(stub));
+		mazeFactory.waitTillDelivered();
+		mazeFactory.shutdown();
+		assertNotNull(stub.getMazeConfig());
+		return stub.getMazeConfig();
+	}
+
+	/**
+	 * Checks that the exit is at distance 1 and every other cell is one step further
+	 * than its closest neighbor that it is connected to
+	 * @param config
+	 */
+	private void assertDistances(MazeConfiguration config) {
+		final Cells cells = config.getMazecells();
+		for(int x = 0; x < config.getWidth(); x++) {
+			for(int y = 0; y < config.getHeight(); y++) {
+				int distance = config.getDistanceToExit(x, y);
+				assertTrue(0 < distance && distance < Distance.INFINITY);
+				int closest = Distance.INFINITY;
+				for(CardinalDirection dir : CardinalDirection.values()) {
+					int nx = x + dir.getDx();
+					int ny = y + dir.getDy();
+					if (0 <= nx && nx < config.getWidth() && 0 <= ny && ny < config.getHeight()
+							&& cells.hasNoWall(x, y, dir)) {
+						closest = Math.min(closest, config.getDistanceToExit(nx, ny));
+					}
+				}
+				if (cells.isExitPosition(x, y))
+					assertEquals(1, distance);
+				else
+					assertEquals(closest + 1, distance);
+			}
+		}
+	}
+
+	/**
+	 * Tests that a maze gets the dimensions of the order, also if they are not square
+	 * and do not match any skill level
+	 */
+	@Test
+	public void testExplicitDimensions() {
+		for(Builder builder : new Builder[] {Builder.DFS, Builder.Prim, Builder.Kruskal, Builder.Eller}) {
+			MazeConfiguration config = produce(new OrderStub(37, 11, 3, 40, false, builder));
+			assertEquals(37, config.getWidth());
+			assertEquals(11, config.getHeight());
+			assertDistances(config);
+		}
+	}
+
+	/**
+	 * Tests a maze that is larger than any skill level
+	 */
+	@Test
+	public void testBeyondSkillTable() {
+		int width = Constants.SKILL_X[Constants.SKILL_X.length-1] * 4;
+		int height = Constants.SKILL_Y[Constants.SKILL_Y.length-1] * 3;
+		MazeConfiguration config = produce(new OrderStub(width, height, 0, 2000, true, Builder.Kruskal));
+		assertEquals(width, config.getWidth());
+		assertEquals(height, config.getHeight());
+		assertDistances(config);
+	}
+
+	/**
+	 * Tests that orders for mazes that can not be built are refused
+	 */
+	@Test
+	public void testInvalidDimensions() {
+		mazeFactory = new MazeFactory(true);
+		assertFalse(mazeFactory.order(new OrderStub(0, 10, 0, 10, true, Builder.DFS)));
+		assertFalse(mazeFactory.order(new OrderStub(10, -1, 0, 10, true, Builder.DFS)));
+		assertFalse(mazeFactory.order(new OrderStub(PackedWall.MAX_COORDINATE + 2, 1, 0, 10, true, Builder.DFS)));
+		assertFalse(mazeFactory.order(new OrderStub(PackedWall.MAX_COORDINATE + 1, PackedWall.MAX_COORDINATE + 1, 0, 10, true, Builder.DFS)));
+		assertEquals(0, mazeFactory.getNumberOfOutstandingOrders());
+		assertTrue(MazeBuilder.isValidSize(10000, 10000));
+	}
+
+	/**
+	 * Tests that the grade of a partition counts segments on the correct side
+	 * for map coordinates whose products exceed the int range
+	 */
+	@Test
+	public void testGradeWithLargeCoordinates() {
+		int far = 5000 * Constants.MAP_UNIT;
+		Seg partition = new Seg(0, 0, 0, 2 * far, 0, 0);
+		ArrayList<Seg> segs = new ArrayList<Seg>();
+		segs.add(new Seg(Constants.MAP_UNIT, 0, Constants.MAP_UNIT, 0, 0, 0));
+		segs.add(new Seg(far, 0, Constants.MAP_UNIT, 0, 0, 0));
+		// both segments are on the same side of the partition
+		assertEquals(2, partition.calculateGrade(segs));
+	}
+}
@@ -56,11 +56,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							stub  = new OrderStub(i, perfect, currBuild);
 							mazeFactory.order(stub);
 							mazeFactory.waitTillDelivered();
@@ -88,11 +83,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS,  Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							stub  = new OrderStub(i, perfect, currBuild);
 							mazeFactory.order(stub);
 							mazeFactory.waitTillDelivered();
@@ -137,11 +127,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							stub  = new OrderStub(i, perfect, currBuild);
 							mazeFactory.order(stub);
 							mazeFactory.waitTillDelivered();
@@ -186,11 +171,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							//rooms can exist in a non-Perfect maze
 							if(!perfect) {
 								continue;
@@ -230,11 +210,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							stub  = new OrderStub(i, perfect, currBuild);
 							mazeFactory.order(stub);
 							mazeFactory.waitTillDelivered();
@@ -274,11 +249,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							stub  = new OrderStub(i, perfect, currBuild);
 							mazeFactory.order(stub);
 							mazeFactory.waitTillDelivered();
@@ -321,11 +291,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							stub  = new OrderStub(i, perfect, currBuild);
 							mazeFactory.order(stub);
 							mazeFactory.waitTillDelivered();
@@ -377,11 +342,6 @@ package generation;
 				for(Builder currBuild : Builder.values()) { //builder type, DFS, Kruskal, Prim
 					for(boolean perfect : isPerfect) { //perfect or not
 							
-							//do not allow Eller until implemented
-							if(currBuild == Builder.Eller) {
-								continue;
-							}
-							
 							stub  = new OrderStub(i, perfect, currBuild);
 							mazeFactory.order(stub);
 							mazeFactory.waitTillDelivered();
@@ -0,0 +1,185 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests for the order queue and worker pool of the MazeFactory.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class MazeFactoryQueueTest {
+	static final int BUSY_SIZE = 200; // dimension of a maze that keeps a worker busy for a good part of a second
+	private MazeFactory mazeFactory;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		if (null != mazeFactory) {
+			mazeFactory.shutdown();
+		}
+		mazeFactory = null;
+	}
+
+	/**
+	 * Checks that a delivered maze has a valid distance for each cell
+	 * @param stub
+	 */
+	private void assertDelivered(OrderStub stub) {
+		MazeConfiguration config = stub.getMazeConfig();
+		assertNotNull(config);
+		for(int x = 0; x < config.getWidth(); x++) {
+			for(int y = 0; y < config.getHeight(); y++) {
+				int distance = config.getDistanceToExit(x, y);
+				assertTrue(0 < distance && distance < Distance.INFINITY);
+			}
+		}
+	}
+
+	/**
+	 * Gives an order that keeps a worker busy long enough for the test to place
+	 * or cancel other orders while it is in production
+	 * @param builder
+	 * @return the order
+	 */
+	private OrderStub busyOrder(Builder builder) {
+		return new OrderStub(BUSY_SIZE, BUSY_SIZE, 0, BUSY_SIZE * BUSY_SIZE / 20, true, builder);
+	}
+
+	/**
+	 * Tests that orders are queued while the worker is busy and refused once the queue is full
+	 */
+	@Test
+	public void testQueueAndRefuse() {
+		mazeFactory = new MazeFactory(true, 1, 2);
+		OrderStub[] stubs = new OrderStub[3];
+		for(int i = 0; i < stubs.length; i++) {
+			stubs[i] = (0 == i) ? busyOrder(Builder.values()[i]) : new OrderStub(0, true, Builder.values()[i]);
+			assertTrue(mazeFactory.order(stubs[i])); //one in production, two waiting
+		}
+		assertFalse(mazeFactory.order(new OrderStub(0, true, Builder.DFS))); //no room left
+
+		mazeFactory.waitTillDelivered();
+		for(OrderStub stub : stubs) {
+			assertDelivered(stub);
+		}
+		assertEquals(0, mazeFactory.getNumberOfOutstandingOrders());
+		assertTrue(mazeFactory.order(new OrderStub(0, true, Builder.DFS))); //room again after delivery
+		mazeFactory.waitTillDelivered();
+	}
+
+	/**
+	 * Tests that cancelling a single order leaves the other orders alone
+	 */
+	@Test
+	public void testCancelSingleOrder() {
+		mazeFactory = new MazeFactory(false, 1, 2);
+		OrderStub first = busyOrder(Builder.Prim);
+		OrderStub second = new OrderStub(0, true, Builder.Kruskal);
+		OrderStub third = new OrderStub(0, false, Builder.Eller);
+		assertTrue(mazeFactory.order(first));
+		assertTrue(mazeFactory.order(second));
+		assertTrue(mazeFactory.order(third));
+
+		assertTrue(mazeFactory.cancel(second));
+		assertFalse(mazeFactory.cancel(second)); //already cancelled
+		mazeFactory.waitTillDelivered();
+
+		assertDelivered(first);
+		assertNull(second.getMazeConfig());
+		assertDelivered(third);
+	}
+
+	/**
+	 * Tests that cancelling all orders delivers none of them
+	 */
+	@Test
+	public void testCancelAll() {
+		mazeFactory = new MazeFactory(false, 2, 2);
+		OrderStub[] stubs = new OrderStub[4];
+		for(int i = 0; i < stubs.length; i++) {
+			stubs[i] = busyOrder(Builder.DFS);
+			assertTrue(mazeFactory.order(stubs[i]));
+		}
+		mazeFactory.cancel();
+		mazeFactory.waitTillDelivered();
+
+		for(OrderStub stub : stubs) {
+			assertNull(stub.getMazeConfig());
+		}
+		assertEquals(0, mazeFactory.getNumberOfOutstandingOrders());
+	}
+
+	/**
+	 * Tests that an order waits for room in the queue instead of being refused
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testBackpressure() throws InterruptedException {
+		mazeFactory = new MazeFactory(false, 1, 0);
+		OrderStub first = busyOrder(Builder.DFS);
+		OrderStub second = new OrderStub(0, true, Builder.Prim);
+		assertTrue(mazeFactory.order(first));
+		assertFalse(mazeFactory.order(second, 1, TimeUnit.MILLISECONDS)); //worker is still busy
+		assertTrue(mazeFactory.order(second, 60, TimeUnit.SECONDS)); //accepted once the first order is done
+		assertDelivered(first);
+
+		mazeFactory.waitTillDelivered();
+		assertDelivered(second);
+	}
+
+	/**
+	 * Tests that deterministic orders in production at the same time result in the same maze
+	 * as the same order produced on its own, each order has a random number stream of its own
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testDeterministicConcurrentOrders() throws InterruptedException {
+		mazeFactory = new MazeFactory(true);
+		OrderStub alone = new OrderStub(1, false, Builder.Prim);
+		assertTrue(mazeFactory.order(alone));
+		mazeFactory.waitTillDelivered();
+		mazeFactory.shutdown();
+
+		mazeFactory = new MazeFactory(true, 3, 3);
+		OrderStub[] stubs = new OrderStub[6];
+		for(int i = 0; i < stubs.length; i++) {
+			//interleave with other algorithms that draw from their own streams
+			stubs[i] = (i % 2 == 0) ? new OrderStub(1, false, Builder.Prim) : new OrderStub(1, false, Builder.values()[i % Builder.values().length]);
+			assertTrue(mazeFactory.order(stubs[i], 60, TimeUnit.SECONDS));
+		}
+		mazeFactory.waitTillDelivered();
+
+		for(int i = 0; i < stubs.length; i += 2) {
+			assertEquals(alone.getMazeConfig().getMazecells(), stubs[i].getMazeConfig().getMazecells());
+		}
+	}
+
+	/**
+	 * Tests that several workers deliver all orders of a batch
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testConcurrentWorkers() throws InterruptedException {
+		mazeFactory = new MazeFactory(false, 3, 1);
+		OrderStub[] stubs = new OrderStub[8];
+		for(int i = 0; i < stubs.length; i++) {
+			stubs[i] = new OrderStub(i % 2, i % 3 == 0, Builder.values()[i % Builder.values().length]);
+			assertTrue(mazeFactory.order(stubs[i], 60, TimeUnit.SECONDS));
+		}
+		mazeFactory.waitTillDelivered();
+
+		for(OrderStub stub : stubs) {
+			assertDelivered(stub);
+		}
+	}
+}
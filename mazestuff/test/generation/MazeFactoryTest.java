@@ -11,7 +11,7 @@ import org.junit.runners.Suite.SuiteClasses;
  */
 
 @RunWith(Suite.class)
-@SuiteClasses({MazeFactoryDetTest.class, MazeFactoryNonDetTest.class})
+@SuiteClasses({MazeFactoryDetTest.class, MazeFactoryNonDetTest.class, MazeFactoryQueueTest.class, MazeFactoryAsyncTest.class, MazeFactoryDimensionsTest.class})
 public class MazeFactoryTest {
 
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Test;
+
+import generation.Order.Builder;
+import gui.Constants;
+
+/**
+ * Tests for the pool of mazes that are generated ahead of time.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class MazePoolTest {
+	private MazeFactory mazeFactory;
+	private MazePool pool;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		if (null != mazeFactory) {
+			mazeFactory.shutdown();
+		}
+		mazeFactory = null;
+		pool = null;
+	}
+
+	/**
+	 * Waits till the pool has the given number of ready mazes for a key
+	 * @param count
+	 * @param skill
+	 * @param builder
+	 * @param perfect
+	 * @throws InterruptedException
+	 */
+	private void awaitReady(int count, int skill, Builder builder, boolean perfect) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 60000;
+		while (pool.getNumberOfReadyMazes(skill, builder, perfect) < count) {
+			assertTrue("pool did not fill in time", System.currentTimeMillis() < deadline);
+			Thread.sleep(20);
+		}
+	}
+
+	/**
+	 * Tests that an empty pool gives nothing and refills in the background
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testTakeRefills() throws InterruptedException {
+		mazeFactory = new MazeFactory(true, 2, 4);
+		pool = new MazePool(mazeFactory, 2, MazePool.DEFAULT_MAX_CELLS);
+		OrderStub stub = new OrderStub(0, true, Builder.Prim);
+		assertNull(pool.take(stub));
+		awaitReady(2, 0, Builder.Prim, true);
+
+		MazeConfiguration first = pool.take(stub);
+		assertNotNull(first);
+		assertTrue(first.getMazecells() instanceof FrozenCells); //ready mazes are frozen
+		assertEquals(Constants.SKILL_X[0], first.getWidth());
+		assertEquals(Constants.SKILL_Y[0], first.getHeight());
+		assertNull(stub.getMazeConfig()); //the order is not notified
+
+		MazeConfiguration second = pool.take(stub);
+		assertNotNull(second);
+		assertNotSame(first, second); //a maze is handed out only once
+		awaitReady(2, 0, Builder.Prim, true);
+	}
+
+	/**
+	 * Tests that mazes are kept apart by skill level, builder and perfect flag
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testKeys() throws InterruptedException {
+		mazeFactory = new MazeFactory(false, 1, 4);
+		pool = new MazePool(mazeFactory);
+		pool.prefill(1, Builder.DFS, false);
+		awaitReady(1, 1, Builder.DFS, false);
+
+		assertEquals(0, pool.getNumberOfReadyMazes(1, Builder.DFS, true));
+		assertEquals(0, pool.getNumberOfReadyMazes(0, Builder.DFS, false));
+		assertEquals(0, pool.getNumberOfReadyMazes(1, Builder.Kruskal, false));
+		assertNull(pool.take(new OrderStub(1, true, Builder.DFS)));
+		assertNotNull(pool.take(new OrderStub(1, false, Builder.DFS, true))); //parallel flag does not matter
+	}
+
+	/**
+	 * Tests that the least recently used key loses its mazes if the pool runs out of memory
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testEviction() throws InterruptedException {
+		mazeFactory = new MazeFactory(false, 1, 4);
+		long cells = Constants.SKILL_X[0] * Constants.SKILL_Y[0];
+		pool = new MazePool(mazeFactory, 1, 2 * cells);
+		pool.prefill(0, Builder.DFS, true);
+		awaitReady(1, 0, Builder.DFS, true);
+		pool.prefill(0, Builder.Prim, true);
+		awaitReady(1, 0, Builder.Prim, true);
+		assertEquals(2 * cells, pool.getNumberOfCells());
+
+		pool.prefill(0, Builder.Kruskal, true);
+		awaitReady(1, 0, Builder.Kruskal, true);
+		assertEquals(0, pool.getNumberOfReadyMazes(0, Builder.DFS, true));
+		assertEquals(1, pool.getNumberOfReadyMazes(0, Builder.Prim, true));
+		assertEquals(2 * cells, pool.getNumberOfCells());
+	}
+
+	/**
+	 * Tests that the log of deleted walls survives freezing, such that a maze from the pool
+	 * can be saved as StateGenerating.deliver does for grading
+	 * @throws InterruptedException
+	 * @throws IOException
+	 */
+	@Test
+	public void testDeletedWallLogSurvivesPool() throws InterruptedException, IOException {
+		File file = File.createTempFile("logDeletedWalls", ".txt");
+		Cells.deepdebugWall = true;
+		try {
+			mazeFactory = new MazeFactory(true, 1, 4);
+			pool = new MazePool(mazeFactory, 1, MazePool.DEFAULT_MAX_CELLS);
+			OrderStub stub = new OrderStub(0, true, Builder.Prim);
+			assertNull(pool.take(stub));
+			awaitReady(1, 0, Builder.Prim, true);
+			MazeConfiguration config = pool.take(stub);
+			assertTrue(config.getMazecells() instanceof FrozenCells);
+			config.getMazecells().saveLogFile(file.getPath());
+			// a header and one line per deleted wall, a perfect maze deletes width*height-1 walls at least
+			int lines = Files.readAllLines(file.toPath()).size();
+			assertTrue("log has " + lines + " lines", lines >= config.getWidth() * config.getHeight());
+		} finally {
+			Cells.deepdebugWall = false;
+			file.delete();
+		}
+	}
+}
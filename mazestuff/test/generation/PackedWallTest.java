@@ -0,0 +1,89 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for the integer encoding of walls and for the packed wall
+ * methods in Cells that are used by the maze builders.
+ * 
+ * @author Katson, Andrew
+ *
+ */
+public class PackedWallTest {
+
+	/**
+	 * Tests if encoding and decoding a wall gives back the same position and direction
+	 * and the same neighbor as the Wall class
+	 */
+	@Test
+	public void testPackUnpack() {
+		int[] coordinates = {0, 1, 7, 300, PackedWall.MAX_COORDINATE};
+		for (int x : coordinates) {
+			for (int y : coordinates) {
+				for (CardinalDirection cd : CardinalDirection.values()) {
+					int wall = PackedWall.pack(x, y, cd);
+					assertEquals(x, PackedWall.getX(wall));
+					assertEquals(y, PackedWall.getY(wall));
+					assertEquals(cd, PackedWall.getDirection(wall));
+					assertEquals(cd.ordinal(), PackedWall.getDirectionIndex(wall));
+					
+					Wall reference = new Wall(x, y, cd);
+					assertEquals(reference.getNeighborX(), PackedWall.getNeighborX(wall));
+					assertEquals(reference.getNeighborY(), PackedWall.getNeighborY(wall));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Tests if the direction tables match the (dx,dy) pairs of getDirection()
+	 */
+	@Test
+	public void testDirectionDeltas() {
+		for (CardinalDirection cd : CardinalDirection.values()) {
+			int[] d = cd.getDirection();
+			assertEquals(d[0], cd.getDx());
+			assertEquals(d[1], cd.getDy());
+			assertEquals(cd, CardinalDirection.fromIndex(cd.ordinal()));
+		}
+	}
+	
+	/**
+	 * Tests if the packed versions of canGo, wallExists and deleteWall 
+	 * behave the same as the versions that take a Wall
+	 */
+	@Test
+	public void testCellsOperations() {
+		int width = 4;
+		int height = 5;
+		Cells packedCells = new Cells(width, height);
+		Cells wallCells = new Cells(width, height);
+		packedCells.initialize();
+		wallCells.initialize();
+		packedCells.setCellAsVisited(1, 1);
+		wallCells.setCellAsVisited(1, 1);
+		
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				for (CardinalDirection cd : CardinalDirection.values()) {
+					Wall wall = new Wall(x, y, cd);
+					int packed = PackedWall.pack(x, y, cd);
+					assertEquals(wallCells.wallExists(wall), packedCells.wallExists(packed));
+					assertEquals(wallCells.canGo(wall), packedCells.canGo(packed));
+				}
+			}
+		}
+		
+		// delete a few internal walls both ways and compare the results
+		packedCells.deleteWall(PackedWall.pack(1, 1, CardinalDirection.East));
+		wallCells.deleteWall(new Wall(1, 1, CardinalDirection.East));
+		packedCells.deleteWall(PackedWall.pack(2, 3, CardinalDirection.North));
+		wallCells.deleteWall(new Wall(2, 3, CardinalDirection.North));
+		
+		assertTrue(packedCells.equals(wallCells));
+		assertFalse(packedCells.hasWall(2, 1, CardinalDirection.West)); // wall is deleted from both sides
+		assertFalse(packedCells.hasWall(2, 2, CardinalDirection.South));
+	}
+}
@@ -0,0 +1,116 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that SeenCells keeps the walls that are seen like Cells
+ * and only takes memory for the part of the maze that is seen.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class SeenCellsTest {
+
+	/**
+	 * Tests that segments set the same walls as in Cells and that only touched chunks are allocated
+	 */
+	@Test
+	public void testSegmentsLikeCells() {
+		final int map_unit = 128;
+		final int w = 401;
+		final int h = 301;
+		Cells expected = new Cells(w, h);
+		SeenCells cells = new SeenCells(w, h);
+		Seg[] segs = {
+				new Seg(10 * map_unit, 20 * map_unit, 5 * map_unit, 0, 0, 0), // north walls to the east
+				new Seg(15 * map_unit, 20 * map_unit, -5 * map_unit, 0, 0, 0), // same walls back to the west
+				new Seg(10 * map_unit, 20 * map_unit, 0, 3 * map_unit, 0, 0), // west walls to the south
+				new Seg(400 * map_unit, 300 * map_unit, 0, -40 * map_unit, 0, 0), // west walls at the border, two chunks
+		};
+		for (Seg seg : segs) {
+			expected.addWallsForSegment(seg, map_unit);
+			cells.addWallsForSegment(seg, map_unit);
+		}
+		assertEquals(expected, cells);
+		assertEquals(5, expected.countWalls(CardinalDirection.North));
+		assertEquals(43, cells.countWalls(CardinalDirection.West));
+		assertEquals(3, cells.getNumberOfChunks());
+		assertEquals(expected, cells.publish());
+	}
+
+	/**
+	 * Tests random north and west walls against Cells
+	 */
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(3);
+		int w = 100;
+		int h = 70;
+		Cells expected = new Cells(w, h);
+		SeenCells cells = new SeenCells(w, h);
+		for (int i = 0; i < 3000; i++) {
+			int x = random.nextInt(w);
+			int y = random.nextInt(h);
+			int bitmask = random.nextBoolean() ? Cells.CW_TOP : Cells.CW_LEFT;
+			if (random.nextInt(4) > 0) {
+				expected.setBitToOne(x, y, bitmask);
+				cells.setBitToOne(x, y, bitmask);
+			}
+			else {
+				expected.setBitToZero(x, y, bitmask);
+				cells.setBitToZero(x, y, bitmask);
+			}
+			if (0 == i % 100)
+				cells.publish();
+		}
+		assertEquals(expected, cells);
+		assertEquals(expected, cells.publish());
+	}
+
+	/**
+	 * Tests that snapshots do not change with later updates and can not be changed
+	 */
+	@Test
+	public void testSnapshots() {
+		SeenCells cells = new SeenCells(50, 50);
+		SeenCells.Snapshot initial = cells.getSnapshot();
+		assertEquals(0, initial.getVersion());
+		cells.addWall(new Wall(3, 4, CardinalDirection.North), false);
+		assertSame(initial, cells.getSnapshot());
+		SeenCells.Snapshot first = cells.publish();
+		assertEquals(1, first.getVersion());
+		assertTrue(first.hasWall(3, 4, CardinalDirection.North));
+		cells.addWall(new Wall(3, 4, CardinalDirection.North), false); // seen before, nothing new
+		assertSame(first, cells.publish());
+
+		cells.addWall(new Wall(3, 5, CardinalDirection.West), false);
+		assertFalse(first.hasWall(3, 5, CardinalDirection.West));
+		assertTrue(cells.publish().hasWall(3, 5, CardinalDirection.West));
+		assertFalse(initial.hasWall(3, 4, CardinalDirection.North));
+		try {
+			first.addWall(new Wall(0, 0, CardinalDirection.North), false);
+			fail("a snapshot should not accept updates");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Tests that only north and west walls are kept
+	 */
+	@Test
+	public void testOnlyNorthAndWest() {
+		SeenCells cells = new SeenCells(5, 5);
+		try {
+			cells.addWall(new Wall(1, 1, CardinalDirection.East), false);
+			fail("east walls are not kept");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		assertEquals(0, cells.getNumberOfChunks());
+	}
+}
@@ -0,0 +1,139 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests that VersionedCells behaves like Cells for its writer
+ * and that readers see consistent snapshots.
+ *
+ * @author Katson, Andrew
+ *
+ */
+public class VersionedCellsTest {
+
+	/**
+	 * Tests that the writer sees its updates right away and readers after publish only
+	 */
+	@Test
+	public void testPublish() {
+		VersionedCells cells = new VersionedCells(40, 30); // more than one page
+		VersionedCells.Snapshot initial = cells.getSnapshot();
+		assertEquals(0, initial.getVersion());
+		assertSame(initial, cells.publish()); // no updates, nothing new to publish
+
+		cells.initialize();
+		assertEquals(40 * 30, cells.countWalls(CardinalDirection.North));
+		assertEquals(0, initial.countWalls(CardinalDirection.North));
+		assertSame(initial, cells.getSnapshot());
+
+		VersionedCells.Snapshot first = cells.publish();
+		assertEquals(1, first.getVersion());
+		assertSame(first, cells.getSnapshot());
+		assertEquals(cells, first);
+
+		cells.deleteWall(new Wall(39, 29, CardinalDirection.West));
+		assertTrue(first.hasWall(39, 29, CardinalDirection.West));
+		assertTrue(first.hasWall(38, 29, CardinalDirection.East));
+		assertEquals(2, cells.countDifferentCells(first));
+		VersionedCells.Snapshot second = cells.publish();
+		assertEquals(2, second.getVersion());
+		assertFalse(second.hasWall(39, 29, CardinalDirection.West));
+		assertEquals(cells, second);
+		// earlier snapshots never change
+		assertEquals(0, initial.countWalls(CardinalDirection.North));
+		assertEquals(2, first.countDifferentCells(second));
+	}
+
+	/**
+	 * Tests that a snapshot can not be changed
+	 */
+	@Test
+	public void testSnapshotIsReadOnly() {
+		VersionedCells cells = new VersionedCells(3, 3);
+		try {
+			cells.getSnapshot().initialize();
+			fail("a snapshot should not accept updates");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Tests random updates against Cells
+	 */
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(5);
+		int w = 50;
+		int h = 37;
+		Cells expected = new Cells(w, h);
+		VersionedCells cells = new VersionedCells(w, h);
+		for (int i = 0; i < 2000; i++) {
+			int x = random.nextInt(w);
+			int y = random.nextInt(h);
+			int bitmask = random.nextInt(Cells.CW_ALL + 1);
+			if (random.nextBoolean()) {
+				expected.setBitToOne(x, y, bitmask);
+				cells.setBitToOne(x, y, bitmask);
+			}
+			else {
+				expected.setBitToZero(x, y, bitmask);
+				cells.setBitToZero(x, y, bitmask);
+			}
+			if (0 == i % 100)
+				cells.publish();
+		}
+		assertEquals(expected, cells);
+		assertEquals(expected, cells.publish());
+		assertEquals(expected.countDeadEnds(), cells.getSnapshot().countDeadEnds());
+	}
+
+	/**
+	 * Tests that a reader on another thread only sees complete updates while a writer publishes.
+	 * The writer toggles a wall in the first and in the last cell, which are on different pages,
+	 * and publishes in between, such that both walls are up or down in each snapshot.
+	 */
+	@Test
+	public void testConcurrentReader() throws InterruptedException {
+		final int w = 64;
+		final int h = 64;
+		final int rounds = 20000;
+		final VersionedCells cells = new VersionedCells(w, h);
+		final AtomicReference<String> failure = new AtomicReference<String>();
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				long version = 0;
+				while (version < rounds && null == failure.get()) {
+					VersionedCells.Snapshot snapshot = cells.getSnapshot();
+					if (snapshot.getVersion() < version)
+						failure.set("version went back from " + version + " to " + snapshot.getVersion());
+					version = snapshot.getVersion();
+					boolean first = snapshot.hasWall(0, 0, CardinalDirection.North);
+					boolean last = snapshot.hasWall(w-1, h-1, CardinalDirection.North);
+					if (first != last || first != (1 == version % 2))
+						failure.set("inconsistent snapshot " + version);
+				}
+			}
+		});
+		reader.start();
+		for (int i = 1; i <= rounds; i++) {
+			if (1 == i % 2) {
+				cells.setBitToOne(0, 0, Cells.CW_TOP);
+				cells.setBitToOne(w-1, h-1, Cells.CW_TOP);
+			}
+			else {
+				cells.setBitToZero(0, 0, Cells.CW_TOP);
+				cells.setBitToZero(w-1, h-1, Cells.CW_TOP);
+			}
+			assertEquals(i, cells.publish().getVersion());
+		}
+		reader.join();
+		assertNull(failure.get(), failure.get());
+	}
+}
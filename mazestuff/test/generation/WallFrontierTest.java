@@ -0,0 +1,76 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for the frontier of candidate walls used by the Prim maze algorithm.
+ * 
+ * @author Katson, Andrew
+ *
+ */
+public class WallFrontierTest {
+
+	/**
+	 * Tests that the frontier grows beyond its initial capacity and keeps all walls
+	 */
+	@Test
+	public void testAddGrows() {
+		WallFrontier frontier = new WallFrontier(2);
+		assertTrue(frontier.isEmpty());
+		
+		int numWalls = 100;
+		for (int i = 0; i < numWalls; i++) {
+			frontier.add(PackedWall.pack(i, i+1, CardinalDirection.South));
+		}
+		assertEquals(numWalls, frontier.size());
+		for (int i = 0; i < numWalls; i++) {
+			assertEquals(i, PackedWall.getX(frontier.get(i)));
+		}
+	}
+	
+	/**
+	 * Tests that removing a wall moves the last wall into its place
+	 */
+	@Test
+	public void testRemoveAt() {
+		WallFrontier frontier = new WallFrontier(4);
+		frontier.add(10);
+		frontier.add(20);
+		frontier.add(30);
+		frontier.add(40);
+		
+		assertEquals(20, frontier.removeAt(1));
+		assertEquals(3, frontier.size());
+		assertEquals(40, frontier.get(1));
+		assertEquals(40, frontier.removeAt(1));
+		assertEquals(30, frontier.removeAt(1)); // removing the last element
+		assertEquals(10, frontier.removeAt(0));
+		assertTrue(frontier.isEmpty());
+	}
+	
+	/**
+	 * Tests that random extraction delivers every wall exactly once
+	 */
+	@Test
+	public void testExtractRandomly() {
+		WallFrontier frontier = new WallFrontier(8);
+		int numWalls = 50;
+		for (int i = 0; i < numWalls; i++) {
+			frontier.add(i);
+		}
+		int[] extracted = new int[numWalls];
+		for (int i = 0; i < numWalls; i++) {
+			extracted[i] = frontier.extractRandomly(SingleRandom.getRandom());
+		}
+		assertTrue(frontier.isEmpty());
+		
+		Arrays.sort(extracted);
+		for (int i = 0; i < numWalls; i++) {
+			assertEquals(i, extracted[i]);
+		}
+	}
+}
@@ -526,15 +526,26 @@ public class BasicRobotTest {
 			assertFalse(robot.canSeeExit(direction));
 		}
 		
-		//move back a step and check to see if the exit is visible
-		robot.position[0] = 2;
-		robot.position[1] = 10;
+		//find the direction in which the exit leads out of the maze
+		CardinalDirection outside = null;
+		for(CardinalDirection cd : CardinalDirection.values()) {
+			int[] dir = cd.getDirection();
+			if(!config.isValidPosition(exitPos[0]+dir[0], exitPos[1]+dir[1]) && !cells.hasWall(exitPos[0], exitPos[1], cd)) {
+				outside = cd;
+			}
+		}
+		assertNotNull(outside);
+		int[] outsideDir = outside.getDirection();
+		
+		//move back two steps and check to see if the exit is visible
+		robot.position[0] = exitPos[0] - 2*outsideDir[0];
+		robot.position[1] = exitPos[1] - 2*outsideDir[1];
 		
-		Wall wall = new Wall(1, 10, CardinalDirection.West);
+		Wall wall = new Wall(exitPos[0] - outsideDir[0], exitPos[1] - outsideDir[1], outside);
 		
 		cells.deleteWall(wall);
 		
-		wall = new Wall(2, 10, CardinalDirection.West);
+		wall = new Wall(robot.position[0], robot.position[1], outside);
 		
 		cells.deleteWall(wall);
 		